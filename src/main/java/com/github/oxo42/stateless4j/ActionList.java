@@ -0,0 +1,97 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.delegates.Action;
+import com.github.oxo42.stateless4j.transitions.Transition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entry or exit actions of a state, indexed by the trigger they are restricted to.
+ * <p>
+ * Executing the list for a transition runs the unconditional actions and the actions registered for
+ * the transition's trigger only, in the order they were registered.
+ */
+class ActionList<S, T, C> {
+
+    private List<Entry<S, T, C>> unconditional = new ArrayList<>();
+    private Map<T, List<Entry<S, T, C>>> byTrigger = new HashMap<>();
+    private long nextOrder;
+    private long firstOrder;
+
+    void add(Action<S, T, C> action) {
+        unconditional.add(new Entry<>(nextOrder++, action));
+    }
+
+    void add(T trigger, Action<S, T, C> action) {
+        byTrigger.computeIfAbsent(trigger, t -> new ArrayList<>()).add(new Entry<>(nextOrder++, action));
+    }
+
+    /**
+     * Add an unconditional action that runs before all others
+     */
+    void insert(Action<S, T, C> action) {
+        unconditional.add(0, new Entry<>(--firstOrder, action));
+    }
+
+    boolean isEmpty() {
+        return unconditional.isEmpty() && byTrigger.isEmpty();
+    }
+
+    void execute(Transition<S, T, C> transition) {
+        T trigger = transition.getTrigger();
+        List<Entry<S, T, C>> triggered = trigger == null ? null : byTrigger.get(trigger);
+        if (triggered == null) {
+            for (int i = 0; i < unconditional.size(); i++) {
+                unconditional.get(i).action.doIt(transition);
+            }
+            return;
+        }
+        int u = 0;
+        int t = 0;
+        while (u < unconditional.size() || t < triggered.size()) {
+            if (t == triggered.size() || (u < unconditional.size() && unconditional.get(u).order < triggered.get(t).order)) {
+                unconditional.get(u++).action.doIt(transition);
+            } else {
+                triggered.get(t++).action.doIt(transition);
+            }
+        }
+    }
+
+    void freeze() {
+        unconditional = StateRepresentation.immutableCopy(unconditional);
+        Map<T, List<Entry<S, T, C>>> frozen = new HashMap<>();
+        for (Map.Entry<T, List<Entry<S, T, C>>> entry : byTrigger.entrySet()) {
+            frozen.put(entry.getKey(), StateRepresentation.immutableCopy(entry.getValue()));
+        }
+        byTrigger = StateRepresentation.immutableCopy(frozen);
+    }
+
+    long estimateFootprint(FootprintEstimator estimator, boolean frozen) {
+        long bytes = estimator.object(this) + FootprintEstimator.list(unconditional, frozen);
+        for (Entry<S, T, C> entry : unconditional) {
+            bytes += estimator.object(entry);
+        }
+        bytes += FootprintEstimator.map(byTrigger, frozen);
+        for (List<Entry<S, T, C>> entries : byTrigger.values()) {
+            bytes += FootprintEstimator.list(entries, frozen);
+            for (Entry<S, T, C> entry : entries) {
+                bytes += estimator.object(entry);
+            }
+        }
+        return bytes;
+    }
+
+    private static final class Entry<S, T, C> {
+
+        final long order;
+        final Action<S, T, C> action;
+
+        Entry(long order, Action<S, T, C> action) {
+            this.order = order;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.oxo42.stateless4j;
+
+/**
+ * What happens when a trigger is deferred while the deferral queue is full
+ */
+public enum DeferralOverflowPolicy {
+
+    /**
+     * Discard the oldest deferred trigger to make room
+     */
+    DROP_OLDEST,
+
+    /**
+     * Throw an {@link IllegalStateException} from {@code fire}
+     */
+    REJECT,
+
+    /**
+     * Hand the trigger to the configured {@link com.github.oxo42.stateless4j.delegates.DeferredTriggerStore}
+     */
+    SPILL
+}
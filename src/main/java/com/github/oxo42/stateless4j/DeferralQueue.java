@@ -0,0 +1,86 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.delegates.DeferredTriggerStore;
+
+/**
+ * Bounded FIFO of deferred triggers and their contexts, backed by a ring buffer
+ */
+class DeferralQueue<T, C> {
+
+    private final Object[] triggers;
+    private final Object[] contexts;
+    private final DeferralOverflowPolicy policy;
+    private final DeferredTriggerStore<T, C> store;
+    private int head;
+    private int size;
+    private long overflowCount;
+
+    DeferralQueue(int capacity, DeferralOverflowPolicy policy, DeferredTriggerStore<T, C> store) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (policy == DeferralOverflowPolicy.SPILL && store == null) {
+            throw new IllegalArgumentException("SPILL requires a store");
+        }
+        this.triggers = new Object[capacity];
+        this.contexts = new Object[capacity];
+        this.policy = policy;
+        this.store = store;
+    }
+
+    void add(T trigger, C context) {
+        if (size == triggers.length) {
+            overflowCount++;
+            switch (policy) {
+                case DROP_OLDEST:
+                    remove(0);
+                    break;
+                case SPILL:
+                    store.store(trigger, context);
+                    return;
+                default:
+                    throw new IllegalStateException(String.format(
+                            "Deferral queue is full (%d triggers); cannot defer trigger '%s'", size, trigger));
+            }
+        }
+        int tail = (head + size) % triggers.length;
+        triggers[tail] = trigger;
+        contexts[tail] = context;
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    T triggerAt(int index) {
+        return (T) triggers[(head + index) % triggers.length];
+    }
+
+    @SuppressWarnings("unchecked")
+    C contextAt(int index) {
+        return (C) contexts[(head + index) % triggers.length];
+    }
+
+    void remove(int index) {
+        for (int i = index; i > 0; i--) {
+            int to = (head + i) % triggers.length;
+            int from = (head + i - 1) % triggers.length;
+            triggers[to] = triggers[from];
+            contexts[to] = contexts[from];
+        }
+        triggers[head] = null;
+        contexts[head] = null;
+        head = (head + 1) % triggers.length;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return triggers.length;
+    }
+
+    long overflowCount() {
+        return overflowCount;
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.oxo42.stateless4j;
+
+/**
+ * How a fired trigger was handled
+ *
+ * @see StateMachine#tryFire(Object, Object)
+ */
+public enum FireResult {
+
+    /**
+     * The state machine transitioned to a new state, or re-entered the current one
+     */
+    TRANSITIONED,
+
+    /**
+     * The trigger was handled by an internal transition or ignored; the state did not change
+     */
+    INTERNAL,
+
+    /**
+     * The trigger was put into the deferral queue
+     */
+    DEFERRED,
+
+    /**
+     * The trigger was handled by at least one active region
+     */
+    HANDLED_BY_REGION,
+
+    /**
+     * No valid transition is permitted from the current state for the trigger
+     */
+    UNHANDLED;
+
+    /**
+     * @return True unless the trigger was unhandled
+     */
+    public boolean isHandled() {
+        return this != UNHANDLED;
+    }
+}
@@ -0,0 +1,203 @@
+package com.github.oxo42.stateless4j;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estimates the bytes retained by configurations and state machines, modelling the layout of a
+ * 64-bit HotSpot JVM: 8-byte alignment, and compressed references unless the heap may exceed 32 GB.
+ * <p>
+ * Collections are sized from the shape this library gives them: growing {@link ArrayList}s and
+ * {@link HashMap}s while mutable, and the compact forms built by {@link StateRepresentation#freeze()}
+ * once frozen. Guards, actions and selectors are counted with the lambdas they capture, once per
+ * estimator however often they are shared; non-capturing lambdas are singletons and cost nothing.
+ * States, triggers, contexts and other objects supplied by the application are not counted.
+ */
+final class FootprintEstimator {
+
+    private static final boolean COMPRESSED_REFERENCES = Runtime.getRuntime().maxMemory() < (32L << 30);
+    static final int REFERENCE = COMPRESSED_REFERENCES ? 4 : 8;
+    static final int OBJECT_HEADER = COMPRESSED_REFERENCES ? 12 : 16;
+    static final int ARRAY_HEADER = COMPRESSED_REFERENCES ? 16 : 20;
+    private static final int ALIGNMENT = 8;
+    private static final int DEFAULT_LIST_CAPACITY = 10;
+    private static final int DEFAULT_MAP_CAPACITY = 16;
+
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long bytes = OBJECT_HEADER;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        bytes += fieldSize(field.getType());
+                    }
+                }
+            }
+            return align(bytes);
+        }
+    };
+
+    /**
+     * The reference fields through which an object may hold guards and actions, made accessible
+     */
+    private static final ClassValue<List<Field>> REFERENCE_FIELDS = new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    } catch (RuntimeException e) {
+                        // Not ours to inspect, e.g. a field of a JDK class
+                    }
+                }
+            }
+            return fields;
+        }
+    };
+
+    private static final long HASH_NODE = align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+    private static final long LINKED_NODE = align(OBJECT_HEADER + 4 + 5 * REFERENCE);
+    private static final long SINGLETON_LIST = shallow(Collections.singletonList(null).getClass());
+    private static final long SINGLETON_MAP = shallow(Collections.singletonMap(null, null).getClass());
+    private static final long UNMODIFIABLE_LIST = shallow(Collections.unmodifiableList(new ArrayList<>()).getClass());
+    private static final long UNMODIFIABLE_MAP = shallow(Collections.unmodifiableMap(new HashMap<>()).getClass());
+
+    private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    /**
+     * @return The size of an instance of the class, without the objects it references
+     */
+    static long shallow(Class<?> type) {
+        return SHALLOW_SIZES.get(type);
+    }
+
+    static long referenceArray(int length) {
+        return align(ARRAY_HEADER + (long) length * REFERENCE);
+    }
+
+    /**
+     * Count an object, and the guards, actions and other lambdas reachable from it through lambdas only.
+     * An object already counted by this estimator counts nothing.
+     *
+     * @param object The object, or null
+     * @return The bytes not counted before
+     */
+    long object(Object object) {
+        if (object == null || !seen.add(object)) {
+            return 0;
+        }
+        Class<?> type = object.getClass();
+        List<Field> fields = REFERENCE_FIELDS.get(type);
+        if (type.isSynthetic() && fields.isEmpty() && shallow(type) == align(OBJECT_HEADER)) {
+            return 0;
+        }
+        long bytes = shallow(type);
+        for (Field field : fields) {
+            Object value;
+            try {
+                value = field.get(object);
+            } catch (IllegalAccessException | RuntimeException e) {
+                continue;
+            }
+            if (value != null && (value.getClass().isSynthetic() || value instanceof StateReference)) {
+                bytes += object(value);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * The structure of a list or set built by this library, without its elements
+     *
+     * @param collection The collection
+     * @param compact    Whether it was built by {@link StateRepresentation#immutableCopy(List)}
+     * @return The bytes of the collection objects and backing array
+     */
+    static long list(Collection<?> collection, boolean compact) {
+        int size = collection.size();
+        if (compact) {
+            if (size == 0) {
+                return 0;
+            }
+            if (size == 1) {
+                return SINGLETON_LIST;
+            }
+            return UNMODIFIABLE_LIST + shallow(ArrayList.class) + referenceArray(size);
+        }
+        if (size == 0) {
+            return shallow(ArrayList.class);
+        }
+        int capacity = DEFAULT_LIST_CAPACITY;
+        while (capacity < size) {
+            capacity += capacity >> 1;
+        }
+        return shallow(ArrayList.class) + referenceArray(capacity);
+    }
+
+    /**
+     * The structure of a map built by this library, without its keys and values
+     *
+     * @param map     The map
+     * @param compact Whether it was built by {@link StateRepresentation#immutableCopy(Map)}
+     * @return The bytes of the map objects, table and nodes
+     */
+    static long map(Map<?, ?> map, boolean compact) {
+        int size = map.size();
+        if (compact) {
+            if (size == 0) {
+                return 0;
+            }
+            if (size == 1) {
+                return SINGLETON_MAP;
+            }
+            int capacity = Integer.highestOneBit((int) (size / 0.75f + 1.0f) - 1) << 1;
+            return UNMODIFIABLE_MAP + shallow(HashMap.class) + referenceArray(capacity) + size * HASH_NODE;
+        }
+        boolean linked = map instanceof LinkedHashMap;
+        long bytes = shallow(linked ? LinkedHashMap.class : HashMap.class);
+        if (size == 0) {
+            return bytes;
+        }
+        int capacity = DEFAULT_MAP_CAPACITY;
+        while (size > capacity * 3 / 4) {
+            capacity <<= 1;
+        }
+        return bytes + referenceArray(capacity) + size * (linked ? LINKED_NODE : HASH_NODE);
+    }
+}
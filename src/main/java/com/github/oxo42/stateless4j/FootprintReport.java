@@ -0,0 +1,65 @@
+package com.github.oxo42.stateless4j;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Estimated bytes retained by a state machine configuration, in total and per state
+ *
+ * @see StateMachineConfig#estimateFootprint()
+ */
+public class FootprintReport<S> {
+
+    private final long configBytes;
+    private final Map<S, Long> stateBytes;
+    private final long totalBytes;
+
+    FootprintReport(long configBytes, Map<S, Long> stateBytes) {
+        this.configBytes = configBytes;
+        this.stateBytes = Collections.unmodifiableMap(stateBytes);
+        long total = configBytes;
+        for (long bytes : stateBytes.values()) {
+            total += bytes;
+        }
+        this.totalBytes = total;
+    }
+
+    /**
+     * @return The bytes retained by the configuration and all its state representations
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return The bytes retained by the configuration itself, excluding the state representations
+     */
+    public long getConfigBytes() {
+        return configBytes;
+    }
+
+    /**
+     * The bytes retained by each state representation, including its behaviours, actions and
+     * regions. Guards and actions shared by several states are counted for the first one only.
+     *
+     * @return An unmodifiable map from state to bytes
+     */
+    public Map<S, Long> getStateBytes() {
+        return stateBytes;
+    }
+
+    /**
+     * @param state The state
+     * @return The bytes retained by the state's representation, or 0 if it is not configured
+     */
+    public long getStateBytes(S state) {
+        Long bytes = stateBytes.get(state);
+        return bytes == null ? 0 : bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "FootprintReport{totalBytes=" + totalBytes + ", configBytes=" + configBytes
+                + ", states=" + stateBytes.size() + "}";
+    }
+}
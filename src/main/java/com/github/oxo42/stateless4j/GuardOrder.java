@@ -0,0 +1,107 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The behaviours of a state for one trigger, tried in the order of how often their guards accepted.
+ * <p>
+ * Hits are counted on striped counters, so state machines on different threads sharing a frozen
+ * configuration do not contend. Every {@link #REORDER_INTERVAL} lookups the order is recomputed from
+ * the counts and published; the countdown is deliberately not atomic, as a lost tick only delays a reorder.
+ */
+final class GuardOrder<S, T, C> {
+
+    /**
+     * The number of lookups between two reorders
+     */
+    static final int REORDER_INTERVAL = 1024;
+
+    private final TriggerBehaviour<S, T, C>[] declared;
+    private final LongAdder[] hits;
+    private volatile Ranking<S, T, C> ranking;
+    private int countdown = REORDER_INTERVAL;
+
+    @SuppressWarnings("unchecked")
+    GuardOrder(List<TriggerBehaviour<S, T, C>> behaviours) {
+        this.declared = behaviours.toArray((TriggerBehaviour<S, T, C>[]) new TriggerBehaviour<?, ?, ?>[0]);
+        this.hits = new LongAdder[declared.length];
+        for (int i = 0; i < declared.length; i++) {
+            hits[i] = new LongAdder();
+        }
+        this.ranking = new Ranking<>(declared.clone(), hits.clone());
+    }
+
+    /**
+     * The behaviours, most frequently accepted first, with their hit counters
+     */
+    Ranking<S, T, C> ranking() {
+        if (--countdown <= 0) {
+            countdown = REORDER_INTERVAL;
+            reorder();
+        }
+        return ranking;
+    }
+
+    /**
+     * Sort the behaviours by their hit counts; ties keep the declaration order
+     */
+    @SuppressWarnings("unchecked")
+    synchronized void reorder() {
+        long[] counts = getHits();
+        Integer[] indexes = new Integer[declared.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, (a, b) -> Long.compare(counts[b], counts[a]));
+        TriggerBehaviour<S, T, C>[] behaviours = (TriggerBehaviour<S, T, C>[]) new TriggerBehaviour<?, ?, ?>[indexes.length];
+        LongAdder[] counters = new LongAdder[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            behaviours[i] = declared[indexes[i]];
+            counters[i] = hits[indexes[i]];
+        }
+        ranking = new Ranking<>(behaviours, counters);
+    }
+
+    /**
+     * The number of times each guard accepted
+     *
+     * @return The counts in declaration order
+     */
+    long[] getHits() {
+        long[] result = new long[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            result[i] = hits[i].sum();
+        }
+        return result;
+    }
+
+    List<TriggerBehaviour<S, T, C>> getOrder() {
+        return Collections.unmodifiableList(new ArrayList<>(Arrays.asList(ranking.behaviours)));
+    }
+
+    long estimateFootprint(FootprintEstimator estimator) {
+        long adder = FootprintEstimator.shallow(LongAdder.class);
+        return estimator.object(this) + estimator.object(ranking)
+                + 4 * FootprintEstimator.referenceArray(declared.length) + declared.length * adder;
+    }
+
+    /**
+     * One published order. The counter at an index counts the behaviour at the same index.
+     */
+    static final class Ranking<S, T, C> {
+
+        final TriggerBehaviour<S, T, C>[] behaviours;
+        final LongAdder[] hits;
+
+        Ranking(TriggerBehaviour<S, T, C>[] behaviours, LongAdder[] hits) {
+            this.behaviours = behaviours;
+            this.hits = hits;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.oxo42.stateless4j;
+
+/**
+ * Which state a transition into a composite state with history restores
+ */
+public enum HistoryType {
+
+    /**
+     * Restore the direct substate that was active when the composite state was last exited
+     */
+    SHALLOW,
+
+    /**
+     * Restore the innermost substate that was active when the composite state was last exited
+     */
+    DEEP
+}
@@ -0,0 +1,153 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.delegates.StateMachineHook;
+import com.github.oxo42.stateless4j.delegates.Trace;
+import com.github.oxo42.stateless4j.delegates.UnHandleGuard;
+import com.github.oxo42.stateless4j.store.StateStore;
+import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+
+import java.util.List;
+
+/**
+ * Drives any number of state machines that share one configuration, keeping only their current
+ * states in a {@link StateStore}. No object is allocated per machine.
+ * <p>
+ * Deferred triggers, regions and history keep data per machine and are not supported; use a
+ * {@link StateMachine} per machine for configurations that need them. Configurations with deferred
+ * triggers or regions are rejected when the engine is constructed. A transition into a state with a
+ * {@link HistoryType history} enters that state itself. Not thread-safe, but re-entrant: an action or
+ * listener may fire a trigger on the same or another machine, and the outer transition still stores
+ * the state of its own machine.
+ *
+ * @param <K> The type used to identify machines
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class KeyedStateMachine<K, S, T, C> {
+
+    private final StateStore<K, S> store;
+    private final S initialState;
+    private final StateMachine<S, T, C> machine;
+    // the machine being fired or queried; restored when a nested call returns
+    private K key;
+
+    /**
+     * Construct an engine
+     *
+     * @param config       State machine configuration
+     * @param store        Stores the current state of every machine
+     * @param initialState The state of machines that have no stored state yet
+     * @throws IllegalArgumentException if the configuration defers a trigger or has regions
+     */
+    public KeyedStateMachine(StateMachineConfig<S, T, C> config, StateStore<K, S> store, S initialState) {
+        for (StateRepresentation<S, T, C> representation : config.getRepresentations()) {
+            if (representation.hasRegions()) {
+                throw new IllegalArgumentException(String.format(
+                        "State '%s' has regions, which a keyed state machine does not support",
+                        representation.getUnderlyingState()));
+            }
+            for (List<TriggerBehaviour<S, T, C>> behaviours : representation.getTriggerBehaviours().values()) {
+                for (TriggerBehaviour<S, T, C> behaviour : behaviours) {
+                    if (behaviour.isDeferred()) {
+                        throw new IllegalArgumentException(String.format(
+                                "State '%s' defers trigger '%s', which a keyed state machine does not support",
+                                representation.getUnderlyingState(), behaviour.getTrigger()));
+                    }
+                }
+            }
+        }
+        this.store = store;
+        this.initialState = initialState;
+        this.machine = new StateMachine<>(config, this::load, state -> store.put(key, state));
+    }
+
+    private S load() {
+        S state = store.get(key);
+        return state == null ? initialState : state;
+    }
+
+    /**
+     * Fire a trigger on a machine
+     *
+     * @param key     The machine id
+     * @param trigger The trigger to fire
+     * @param context The context
+     */
+    public void fire(K key, T trigger, C context) {
+        K previous = this.key;
+        this.key = key;
+        try {
+            machine.fire(trigger, context);
+        } finally {
+            this.key = previous;
+        }
+    }
+
+    /**
+     * Fire a trigger on a machine, reporting an unhandled trigger through the result
+     *
+     * @param key     The machine id
+     * @param trigger The trigger to fire
+     * @param context The context
+     * @return How the trigger was handled
+     */
+    public FireResult tryFire(K key, T trigger, C context) {
+        K previous = this.key;
+        this.key = key;
+        try {
+            return machine.tryFire(trigger, context);
+        } finally {
+            this.key = previous;
+        }
+    }
+
+    /**
+     * The current state of a machine
+     *
+     * @param key The machine id
+     * @return The stored state, or the initial state if none is stored
+     */
+    public S getState(K key) {
+        K previous = this.key;
+        this.key = key;
+        try {
+            return load();
+        } finally {
+            this.key = previous;
+        }
+    }
+
+    /**
+     * Determine if a machine is in the supplied state
+     *
+     * @param key   The machine id
+     * @param state The state to test for
+     * @return True if the current state of the machine is equal to, or a substate of, the supplied state
+     */
+    public boolean isInState(K key, S state) {
+        K previous = this.key;
+        this.key = key;
+        try {
+            return machine.getCurrentRepresentation().isIncludedIn(state);
+        } finally {
+            this.key = previous;
+        }
+    }
+
+    public void onUnhandledTrigger(UnHandleGuard<S, T, C> unhandledTriggerAction) {
+        machine.onUnhandledTrigger(unhandledTriggerAction);
+    }
+
+    public void setTrace(Trace<S, T> trace) {
+        machine.setTrace(trace);
+    }
+
+    public void setHook(StateMachineHook<S, T, C> hook) {
+        machine.setHook(hook);
+    }
+
+    public StateStore<K, S> getStore() {
+        return store;
+    }
+}
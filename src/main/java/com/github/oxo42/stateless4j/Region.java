@@ -0,0 +1,31 @@
+package com.github.oxo42.stateless4j;
+
+/**
+ * An orthogonal region of a composite state. While the composite state is active, every region
+ * runs its own state machine, built from the region configuration and started in the region's
+ * initial state.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class Region<S, T, C> {
+
+    private final StateMachineConfig<S, T, C> config;
+    private final S initialState;
+
+    public Region(StateMachineConfig<S, T, C> config, S initialState) {
+        assert config != null : "config is null";
+        assert initialState != null : "initialState is null";
+        this.config = config;
+        this.initialState = initialState;
+    }
+
+    public StateMachineConfig<S, T, C> getConfig() {
+        return config;
+    }
+
+    public S getInitialState() {
+        return initialState;
+    }
+}
@@ -2,11 +2,18 @@ package com.github.oxo42.stateless4j;
 
 import com.github.oxo42.stateless4j.delegates.Action;
 import com.github.oxo42.stateless4j.delegates.Guard;
+import com.github.oxo42.stateless4j.delegates.KeyExtractor;
 import com.github.oxo42.stateless4j.delegates.Selector;
 import com.github.oxo42.stateless4j.delegates.StateRepresentationSelector;
 import com.github.oxo42.stateless4j.transitions.TransitioningTriggerBehaviour;
+import com.github.oxo42.stateless4j.triggers.DeferredTriggerBehaviour;
 import com.github.oxo42.stateless4j.triggers.DynamicTriggerBehaviour;
 import com.github.oxo42.stateless4j.triggers.InternalTriggerBehaviour;
+import com.github.oxo42.stateless4j.triggers.MemoizedTriggerBehaviour;
+import com.github.oxo42.stateless4j.triggers.SelectorCache;
+import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+
+import java.util.concurrent.ForkJoinPool;
 
 public class StateConfiguration<S, T, C> {
     private static final String GUARD_IS_NULL = "guard is null";
@@ -16,7 +23,7 @@ public class StateConfiguration<S, T, C> {
     private static final String TRIGGER_IS_NULL = "trigger is null";
     private static final String DESTINATION_STATE_SELECTOR_IS_NULL = "destinationStateSelector is null";
 
-    private final Guard<S, T, C> NO_GUARD = condition -> true;
+    private final Guard<S, T, C> NO_GUARD = TriggerBehaviour.unguarded();
 
     private final Action<S, T, C> NO_ACTION = transition -> {
     };
@@ -264,6 +271,76 @@ public class StateConfiguration<S, T, C> {
         return this;
     }
 
+    /**
+     * Transition to the destination state as soon as the configured state has been entered, without
+     * waiting for a trigger
+     *
+     * @param toState The state to transition to
+     * @return The receiver
+     */
+    public StateConfiguration<S, T, C> permitCompletion(S toState) {
+        return permitCompletionIf(toState, NO_GUARD, NO_ACTION);
+    }
+
+    /**
+     * Transition to the destination state as soon as the configured state has been entered, if the guard
+     * returns true. When several completion transitions are configured the first one whose guard returns
+     * true, in declaration order, is taken.
+     * <p>
+     * Completion transitions are taken one after another by the fire that entered the configured state,
+     * without calling {@code fire} recursively; their transitions have a null trigger.
+     *
+     * @param toState The state to transition to
+     * @param guard   Function that must return true in order for the transition to be taken
+     * @return The receiver
+     * @see StateMachineConfig#setMaxCompletionChain(int)
+     */
+    public StateConfiguration<S, T, C> permitCompletionIf(S toState, Guard<S, T, C> guard) {
+        return permitCompletionIf(toState, guard, NO_ACTION);
+    }
+
+    /**
+     * Like {@link #permitCompletionIf(Object, Guard)}, performing an action during the transition
+     *
+     * @param toState The state to transition to
+     * @param guard   Function that must return true in order for the transition to be taken
+     * @param action  The action to be performed "during" transition
+     * @return The receiver
+     */
+    public StateConfiguration<S, T, C> permitCompletionIf(S toState, Guard<S, T, C> guard, Action<S, T, C> action) {
+        enforceNotIdentityTransition(toState);
+        assert guard != null : GUARD_IS_NULL;
+        assert action != null : ACTION_IS_NULL;
+        representation.addCompletion(new TransitioningTriggerBehaviour<>(null, toState, guard, action));
+        return this;
+    }
+
+    /**
+     * Defer the specified trigger when in the configured state
+     * <p>
+     * The trigger is kept in the deferral queue of the state machine and fired again as soon as the
+     * state machine enters a state that can handle it.
+     *
+     * @param trigger The trigger to defer
+     * @return The receiver
+     */
+    public StateConfiguration<S, T, C> defer(T trigger) {
+        return deferIf(trigger, NO_GUARD);
+    }
+
+    /**
+     * Defer the specified trigger when in the configured state, if the guard returns true
+     *
+     * @param trigger The trigger to defer
+     * @param guard   Function that must return true in order for the trigger to be deferred
+     * @return The receiver
+     */
+    public StateConfiguration<S, T, C> deferIf(T trigger, Guard<S, T, C> guard) {
+        assert guard != null : GUARD_IS_NULL;
+        representation.addTriggerBehaviour(new DeferredTriggerBehaviour<>(trigger, guard));
+        return this;
+    }
+
     /**
      * Specify an action that will execute when transitioning into the configured state
      *
@@ -301,6 +378,19 @@ public class StateConfiguration<S, T, C> {
         return this;
     }
 
+    /**
+     * Specify an action that will execute when transitioning from the configured state
+     *
+     * @param trigger    The trigger by which the state must be exited in order for the action to execute
+     * @param exitAction Action to execute, providing details of the transition
+     * @return The receiver
+     */
+    public StateConfiguration<S, T, C> onExitVia(T trigger, Action<S, T, C> exitAction) {
+        assert exitAction != null : EXIT_ACTION_IS_NULL;
+        representation.addExitAction(trigger, exitAction);
+        return this;
+    }
+
     /**
      * Sets the superstate that the configured state is a substate of
      * <p>
@@ -320,6 +410,52 @@ public class StateConfiguration<S, T, C> {
         return this;
     }
 
+    /**
+     * Give the configured composite state a history.
+     * <p>
+     * A transition whose destination is the configured state then enters the substate that was active
+     * when the state was last exited, instead of the configured state itself. Until the state has been
+     * exited once, or after {@link StateMachine#clearHistory()}, the configured state is entered as usual.
+     *
+     * @param type Whether the direct substate or the innermost substate is restored
+     * @return The receiver
+     */
+    public StateConfiguration<S, T, C> history(HistoryType type) {
+        assert type != null : "type is null";
+        representation.setHistoryType(type);
+        return this;
+    }
+
+    /**
+     * Adds an orthogonal region to the configured state
+     * <p>
+     * While the configured state (or one of its substates) is active, the region runs a state machine of
+     * its own, started in {@code initialState} when the configured state is entered and exited when the
+     * configured state is left. A fired trigger is dispatched to every region that can handle it; only if
+     * no region handles it is it handled by the enclosing state machine.
+     *
+     * @param regionConfig The configuration of the region
+     * @param initialState The state the region starts in
+     * @return The receiver
+     */
+    public StateConfiguration<S, T, C> region(StateMachineConfig<S, T, C> regionConfig, S initialState) {
+        representation.addRegion(new Region<>(regionConfig, initialState));
+        return this;
+    }
+
+    /**
+     * Declares the actions of the regions of the configured state independent of each other, so that
+     * regions handling the same trigger may be evaluated concurrently on the given pool
+     *
+     * @param pool The pool to evaluate regions on
+     * @return The receiver
+     */
+    public StateConfiguration<S, T, C> independentRegions(ForkJoinPool pool) {
+        assert pool != null : "pool is null";
+        representation.setRegionPool(pool);
+        return this;
+    }
+
     /**
      * Accept the specified trigger and transition to the destination state, calculated dynamically by the supplied
      * function
@@ -387,6 +523,46 @@ public class StateConfiguration<S, T, C> {
         return publicPermitDynamicIf(trigger, selector, guard, action);
     }
 
+    /**
+     * Accept the specified trigger and transition to the destination state, calculated dynamically by the supplied
+     * function and cached per key
+     * <p>
+     * The selector must depend only on the key extracted from its condition: it is called once for each key
+     * not held in the cache, and its result is reused for every later fire with an equal key.
+     *
+     * @param trigger  The accepted trigger
+     * @param key      Function to extract the key the selector depends on
+     * @param selector Function to calculate the state that the trigger will cause a transition to
+     * @param cache    The cache of selected states; use one cache per behaviour
+     * @return The receiver
+     */
+    public <K> StateConfiguration<S, T, C> permitDynamic(T trigger, KeyExtractor<S, T, C, K> key,
+                                                         Selector<S, T, C> selector, SelectorCache<K, S> cache) {
+        return permitDynamicIf(trigger, key, selector, cache, NO_GUARD);
+    }
+
+    /**
+     * Accept the specified trigger, if the guard returns true, and transition to the destination state,
+     * calculated dynamically by the supplied function and cached per key
+     *
+     * @param trigger  The accepted trigger
+     * @param key      Function to extract the key the selector depends on
+     * @param selector Function to calculate the state that the trigger will cause a transition to
+     * @param cache    The cache of selected states; use one cache per behaviour
+     * @param guard    Function that must return true in order for the trigger to be accepted
+     * @return The receiver
+     * @see #permitDynamic(Object, KeyExtractor, Selector, SelectorCache)
+     */
+    public <K> StateConfiguration<S, T, C> permitDynamicIf(T trigger, KeyExtractor<S, T, C, K> key,
+                                                           Selector<S, T, C> selector, SelectorCache<K, S> cache,
+                                                           Guard<S, T, C> guard) {
+        assert trigger != null : TRIGGER_IS_NULL;
+        assert selector != null : DESTINATION_STATE_SELECTOR_IS_NULL;
+        assert guard != null : GUARD_IS_NULL;
+        representation.addTriggerBehaviour(new MemoizedTriggerBehaviour<>(trigger, key, selector, cache, guard, NO_ACTION));
+        return this;
+    }
+
     void enforceNotIdentityTransition(S destination) {
         if (destination.equals(representation.getUnderlyingState())) {
             throw new IllegalStateException("Permit() (and PermitIf()) require that the destination state is not equal to the source state. To accept a trigger without changing state, use either ignore(), permitInternal() or permitReentry().");
@@ -1,13 +1,21 @@
 package com.github.oxo42.stateless4j;
 
+import com.github.oxo42.stateless4j.delegates.DeferredTriggerStore;
+import com.github.oxo42.stateless4j.delegates.StateMachineHook;
+import com.github.oxo42.stateless4j.delegates.StateMigration;
 import com.github.oxo42.stateless4j.delegates.Trace;
 import com.github.oxo42.stateless4j.delegates.UnHandleGuard;
+import com.github.oxo42.stateless4j.listeners.TransitionListenerBus;
 import com.github.oxo42.stateless4j.transitions.SelectorCondition;
 import com.github.oxo42.stateless4j.transitions.Transition;
 import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+import com.github.oxo42.stateless4j.triggers.TypedTrigger;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -20,20 +28,28 @@ import java.util.function.Supplier;
 public class StateMachine<S, T, C> {
 
     private static final String TRIGGER_IS_NULL = "trigger is null";
-    protected final StateMachineConfig<S, T, C> config;
+    private static final int DEFAULT_DEFERRAL_CAPACITY = 16;
+    protected StateMachineConfig<S, T, C> config;
     protected final Supplier<S> stateAccessor;
     protected final Consumer<S> stateMutator;
     private Trace<S, T> trace = null;
+    private TransitionListenerBus<S, T, C> listeners;
+    private StateMachineHook<S, T, C> hook;
     private boolean isStarted = false;
     private S initialState;
     protected UnHandleGuard<S, T, C> unhandledTriggerAction = guardCondition -> {
-        throw new IllegalStateException(
-                String.format(
-                        "No valid leaving transitions are permitted from state '%s' for trigger '%s'. Consider ignoring the trigger.",
-                        guardCondition.getFrom(), guardCondition.getTrigger())
-        );
+        throw new UnhandledTriggerException(guardCondition.getFrom(), guardCondition.getTrigger());
     };
     private C context;
+    private boolean regionsEntered = false;
+    private Map<StateRepresentation<S, T, C>, List<StateMachine<S, T, C>>> activeRegions;
+    private DeferralQueue<T, C> deferred;
+    private boolean firingDeferred = false;
+    private VersionedStateMachineConfig<S, T, C> versionedConfig;
+    private StateMigration<S, T, C> migration;
+    private int fireDepth = 0;
+    private Object[] history;
+    private boolean historyDisabled = false;
 
     /**
      * Construct a state machine
@@ -59,6 +75,18 @@ public class StateMachine<S, T, C> {
         stateMutator = reference::setState;
     }
 
+    /**
+     * Construct a state machine on a versioned configuration. The state machine switches to the
+     * current configuration before every fire that is not nested in another fire.
+     *
+     * @param initialState The initial state
+     * @param config       The versioned state machine configuration
+     */
+    public StateMachine(S initialState, VersionedStateMachineConfig<S, T, C> config) {
+        this(initialState, config.current());
+        this.versionedConfig = config;
+    }
+
     /**
      * Construct a state machine with external state storage.
      *
@@ -73,6 +101,20 @@ public class StateMachine<S, T, C> {
         stateMutator.accept(initialState);
     }
 
+    /**
+     * Construct a state machine on external state storage that already holds the current state
+     *
+     * @param config        State machine configuration
+     * @param stateAccessor State accessor
+     * @param stateMutator  State mutator
+     */
+    StateMachine(StateMachineConfig<S, T, C> config, Supplier<S> stateAccessor, Consumer<S> stateMutator) {
+        this.config = config;
+        this.stateAccessor = stateAccessor;
+        this.stateMutator = stateMutator;
+        this.historyDisabled = true;
+    }
+
     /**
      * Fire initial transition into the initial state.
      * All super-states are entered too.
@@ -86,7 +128,11 @@ public class StateMachine<S, T, C> {
         }
         isStarted = true;
         Transition<S, T, C> initialTransition = new Transition<>(null, currentState, null, context);
-        getCurrentRepresentation().enter(initialTransition);
+        getCurrentRepresentation().enter(initialTransition, (StateRepresentation<S, T, C>) null, null);
+        enterRegions(initialTransition);
+        if (getCurrentRepresentation().hasCompletions()) {
+            runCompletions(context, null);
+        }
     }
 
     public StateConfiguration<S, T, C> configure(S state) {
@@ -151,40 +197,556 @@ public class StateMachine<S, T, C> {
         publicFire(trigger, context);
     }
 
+    /**
+     * Transition from the current state via the specified typed trigger.
+     * The context type is checked by the compiler, so the context itself is not validated at runtime;
+     * only the typed trigger is checked against the context type registered with the configuration.
+     *
+     * @param trigger The trigger to fire, {@link StateMachineConfig#register registered} with the configuration
+     * @param context context
+     * @throws IllegalStateException if the trigger is not registered with the same context type
+     */
+    public <X extends C> void fire(TypedTrigger<T, X> trigger, X context) {
+        Class<?> registered = config.getContextClass(trigger.getTrigger());
+        if (registered != trigger.getContextClass()) {
+            throw new IllegalStateException(String.format(
+                    "Trigger '%s' is registered with context type %s, cannot fire it with %s",
+                    trigger.getTrigger(), registered, trigger.getContextClass()));
+        }
+        fire(trigger.getTrigger(), context);
+    }
+
+    /**
+     * Transition from the current state via the specified trigger, like {@link #fire(Object, Object)},
+     * but report an unhandled trigger through the result instead of calling the unhandled trigger action.
+     *
+     * @param trigger The trigger to fire
+     * @param context context
+     * @return How the trigger was handled
+     */
+    public FireResult tryFire(T trigger, C context) {
+        assert trigger != null : TRIGGER_IS_NULL;
+        this.context = context;
+        return fireAndReport(trigger, context);
+    }
+
+    /**
+     * Transition from the current state via the specified trigger, like {@link #fire(Object)},
+     * but report an unhandled trigger through the result instead of calling the unhandled trigger action.
+     *
+     * @param trigger The trigger to fire
+     * @return How the trigger was handled
+     */
+    public FireResult tryFire(T trigger) {
+        return fireAndReport(trigger, context);
+    }
+
     protected void publicFire(T trigger, C context) {
+        if (fireAndReport(trigger, context) == FireResult.UNHANDLED) {
+            unhandledTriggerAction.doIt(new SelectorCondition<>(getState(), trigger, context));
+        }
+    }
+
+    private FireResult fireAndReport(T trigger, C context) {
+        if (versionedConfig != null && fireDepth == 0) {
+            switchConfig(versionedConfig.current());
+        }
+        fireDepth++;
+        try {
+            StateMachineHook<S, T, C> hook = this.hook;
+            if (hook == null || !hook.isEnabled()) {
+                return doFire(trigger, context, null);
+            }
+            return observedFire(trigger, context, hook);
+        } finally {
+            fireDepth--;
+        }
+    }
+
+    private FireResult observedFire(T trigger, C context, StateMachineHook<S, T, C> hook) {
+        S source = getState();
+        Object token = hook.fireStarted(source, trigger, context);
+        long start = System.nanoTime();
+        FireResult result;
+        try {
+            result = doFire(trigger, context, hook);
+        } catch (RuntimeException e) {
+            hook.fireFailed(token, source, trigger, e);
+            throw e;
+        }
+        hook.fireCompleted(token, source, trigger, getState(), result, System.nanoTime() - start);
+        return result;
+    }
+
+    private FireResult doFire(T trigger, C context, StateMachineHook<S, T, C> hook) {
         isStarted = true;
         if (trace != null) {
             trace.trigger(trigger);
         }
 
+        if (!regionsEntered) {
+            enterRegions(new Transition<>(null, getState(), null, context));
+        }
+        if (activeRegions != null && fireInRegions(trigger, context)) {
+            return FireResult.HANDLED_BY_REGION;
+        }
+
         SelectorCondition<S, T, C> selectorCondition = new SelectorCondition<>(getState(), trigger, context);
-        TriggerBehaviour<S, T, C> triggerBehaviour = getCurrentRepresentation().tryFindHandler(trigger, selectorCondition);
+        TriggerBehaviour<S, T, C> triggerBehaviour = getCurrentRepresentation().tryFindHandler(trigger, selectorCondition, hook);
         if (triggerBehaviour == null) {
-            SelectorCondition<S, T, C> condition = new SelectorCondition<>(getCurrentRepresentation().getUnderlyingState(), trigger, context);
-            unhandledTriggerAction.doIt(condition);
-            return;
+            return FireResult.UNHANDLED;
         }
 
-        S source = getState();
+        if (triggerBehaviour.isDeferred()) {
+            defer(trigger, context);
+            return FireResult.DEFERRED;
+        }
+        return perform(triggerBehaviour, selectorCondition, trigger, context, hook);
+    }
+
+    /**
+     * Perform the internal or external transition of a behaviour whose guard has already accepted
+     */
+    private FireResult perform(TriggerBehaviour<S, T, C> triggerBehaviour, SelectorCondition<S, T, C> selectorCondition,
+                               T trigger, C context, StateMachineHook<S, T, C> hook) {
         if (triggerBehaviour.isInternal()) {
             S destination = triggerBehaviour.transitionsTo(selectorCondition);
-            Transition<S, T, C> transition = new Transition<>(source, destination, trigger, context);
+            Transition<S, T, C> transition = new Transition<>(getState(), destination, trigger, context);
             triggerBehaviour.performAction(transition);
-        } else {
+            return FireResult.INTERNAL;
+        }
+        transition(triggerBehaviour, selectorCondition, trigger, context, hook);
+        if (getCurrentRepresentation().hasCompletions()) {
+            runCompletions(context, hook);
+        }
+        fireDeferred(hook);
+        return FireResult.TRANSITIONED;
+    }
 
-            S destination = triggerBehaviour.transitionsTo(selectorCondition);
-            Transition<S, T, C> transition = new Transition<>(source, destination, trigger, context);
+    private void transition(TriggerBehaviour<S, T, C> triggerBehaviour, SelectorCondition<S, T, C> selectorCondition,
+                            T trigger, C context, StateMachineHook<S, T, C> hook) {
+        S source = getState();
+        S destination = triggerBehaviour.transitionsTo(selectorCondition);
+        StateRepresentation<S, T, C> destinationRepresentation = config.getRepresentation(destination);
+        if (history != null && destinationRepresentation != null && destinationRepresentation.getHistoryType() != null) {
+            destination = restoreHistory(destinationRepresentation);
+            destinationRepresentation = config.getRepresentation(destination);
+        }
+        Transition<S, T, C> transition = new Transition<>(source, destination, trigger, context);
 
-            getCurrentRepresentation().exit(transition);
-            triggerBehaviour.performAction(transition);
-            setState(destination);
-            getCurrentRepresentation().enter(transition);
-            if (trace != null) {
-                trace.transition(trigger, source, destination);
+        StateRepresentation<S, T, C> sourceRepresentation = getCurrentRepresentation();
+        exitRegions(transition);
+        sourceRepresentation.exit(transition, destinationRepresentation, hook);
+        if (!historyDisabled && !transition.isReentry() && sourceRepresentation.hasHistoryAbove()) {
+            recordHistory(sourceRepresentation, destinationRepresentation);
+        }
+        triggerBehaviour.performAction(transition);
+        setState(destination);
+        getCurrentRepresentation().enter(transition, sourceRepresentation, hook);
+        enterRegions(transition);
+        if (trace != null) {
+            trace.transition(trigger, source, destination);
+        }
+        notifyListeners(transition);
+    }
+
+    /**
+     * Take completion transitions one after another until the current state has none that is
+     * permitted. Completion transitions have a null trigger.
+     *
+     * @throws IllegalStateException if the chain is longer than the configured maximum
+     */
+    private void runCompletions(C context, StateMachineHook<S, T, C> hook) {
+        int remaining = config.getMaxCompletionChain();
+        for (StateRepresentation<S, T, C> current = getCurrentRepresentation(); current.hasCompletions();
+             current = getCurrentRepresentation()) {
+            SelectorCondition<S, T, C> condition = new SelectorCondition<>(current.getUnderlyingState(), null, context);
+            TriggerBehaviour<S, T, C> completion = current.tryFindCompletion(condition, hook);
+            if (completion == null) {
+                return;
+            }
+            if (remaining-- == 0) {
+                throw new IllegalStateException(String.format(
+                        "Completion transitions from state '%s' exceed the maximum chain length of %d",
+                        current.getUnderlyingState(), config.getMaxCompletionChain()));
+            }
+            transition(completion, condition, null, context, hook);
+        }
+    }
+
+    /**
+     * Record the substates of the composite states with a history that a transition leaves
+     */
+    private void recordHistory(StateRepresentation<S, T, C> source, StateRepresentation<S, T, C> destination) {
+        StateRepresentation<S, T, C>[] ancestors = source.ancestors();
+        int exited = ancestors.length - StateRepresentation.commonAncestors(ancestors, destination);
+        for (int i = 1; i < exited; i++) {
+            HistoryType type = ancestors[i].getHistoryType();
+            if (type == null) {
+                continue;
+            }
+            int slot = config.historySlot(ancestors[i]);
+            if (history == null || slot >= history.length) {
+                history = history == null
+                        ? new Object[Math.max(config.getHistorySlotCount(), slot + 1)]
+                        : Arrays.copyOf(history, Math.max(config.getHistorySlotCount(), slot + 1));
             }
+            history[slot] = type == HistoryType.DEEP ? ancestors[0].getUnderlyingState() : ancestors[i - 1].getUnderlyingState();
         }
     }
 
+    /**
+     * The state a transition into a composite state with a history actually enters. A restored
+     * substate with a shallow history of its own restores that history in turn.
+     */
+    @SuppressWarnings("unchecked")
+    private S restoreHistory(StateRepresentation<S, T, C> composite) {
+        S destination = composite.getUnderlyingState();
+        for (StateRepresentation<S, T, C> r = composite; r != null && r.getHistoryType() != null; ) {
+            int slot = r.getHistorySlot();
+            if (slot < 0 || slot >= history.length || history[slot] == null) {
+                break;
+            }
+            destination = (S) history[slot];
+            if (r.getHistoryType() == HistoryType.DEEP) {
+                break;
+            }
+            r = config.getRepresentation(destination);
+        }
+        return destination;
+    }
+
+    /**
+     * The substate recorded for a composite state with a history
+     *
+     * @param composite The composite state
+     * @return The substate that a transition into {@code composite} would enter, or null if nothing
+     * has been recorded
+     */
+    @SuppressWarnings("unchecked")
+    public S getHistory(S composite) {
+        StateRepresentation<S, T, C> representation = config.getRepresentation(composite);
+        if (history == null || representation == null) {
+            return null;
+        }
+        int slot = representation.getHistorySlot();
+        return slot < 0 || slot >= history.length ? null : (S) history[slot];
+    }
+
+    /**
+     * Forget all recorded history, so that transitions into composite states with a history enter
+     * the composite states themselves
+     */
+    public void clearHistory() {
+        history = null;
+    }
+
+    /**
+     * Estimate the heap retained by this state machine alone, assuming a 64-bit HotSpot JVM: its
+     * state storage, history, deferred triggers and active regions. The configuration, shared by all
+     * machines using it, is not counted; see {@link StateMachineConfig#estimateFootprint()}.
+     *
+     * @return The estimated bytes
+     */
+    public long estimateFootprint() {
+        return estimateFootprint(new FootprintEstimator());
+    }
+
+    private long estimateFootprint(FootprintEstimator estimator) {
+        long bytes = estimator.object(this);
+        if (history != null) {
+            bytes += FootprintEstimator.referenceArray(history.length);
+        }
+        if (deferred != null) {
+            bytes += estimator.object(deferred) + 2 * FootprintEstimator.referenceArray(deferred.capacity());
+        }
+        if (activeRegions != null) {
+            bytes += FootprintEstimator.map(activeRegions, false);
+            for (List<StateMachine<S, T, C>> machines : activeRegions.values()) {
+                bytes += FootprintEstimator.list(machines, false);
+                for (StateMachine<S, T, C> machine : machines) {
+                    bytes += machine.estimateFootprint(estimator);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private void notifyListeners(Transition<S, T, C> transition) {
+        if (listeners != null && !listeners.isEmpty()) {
+            listeners.publish(transition);
+        }
+        TransitionListenerBus<S, T, C> shared = config.getListeners();
+        if (!shared.isEmpty()) {
+            shared.publish(transition);
+        }
+    }
+
+    private void switchConfig(StateMachineConfig<S, T, C> next) {
+        if (next == config) {
+            return;
+        }
+        config = next;
+        history = null;
+        S state = getState();
+        if (migration != null && next.getRepresentation(state) == null) {
+            setState(migration.migrate(state, next));
+        }
+        if (activeRegions != null) {
+            Map<StateRepresentation<S, T, C>, List<StateMachine<S, T, C>>> rekeyed = new LinkedHashMap<>();
+            for (Map.Entry<StateRepresentation<S, T, C>, List<StateMachine<S, T, C>>> entry : activeRegions.entrySet()) {
+                StateRepresentation<S, T, C> composite = next.getRepresentation(entry.getKey().getUnderlyingState());
+                if (composite != null) {
+                    rekeyed.put(composite, entry.getValue());
+                }
+            }
+            activeRegions = rekeyed.isEmpty() ? null : rekeyed;
+            regionsEntered = false;
+        }
+    }
+
+    /**
+     * Set the hook that maps the current state onto a newly published configuration that does not
+     * configure it. Without a migration the state machine stays in the unconfigured state.
+     *
+     * @param migration The migration hook
+     */
+    public void setMigration(StateMigration<S, T, C> migration) {
+        this.migration = migration;
+    }
+
+    private void defer(T trigger, C context) {
+        if (deferred == null) {
+            deferred = new DeferralQueue<>(DEFAULT_DEFERRAL_CAPACITY, DeferralOverflowPolicy.REJECT, null);
+        }
+        deferred.add(trigger, context);
+    }
+
+    /**
+     * Fire the oldest deferred trigger that the current state can handle, until none is left. The
+     * handler found for a trigger is performed directly, so its guard is evaluated only once.
+     */
+    private void fireDeferred(StateMachineHook<S, T, C> hook) {
+        if (deferred == null || deferred.size() == 0 || firingDeferred) {
+            return;
+        }
+        firingDeferred = true;
+        try {
+            int i = 0;
+            while (i < deferred.size()) {
+                T trigger = deferred.triggerAt(i);
+                C context = deferred.contextAt(i);
+                SelectorCondition<S, T, C> condition = new SelectorCondition<>(getState(), trigger, context);
+                TriggerBehaviour<S, T, C> handler = getCurrentRepresentation().tryFindHandler(trigger, condition, hook);
+                if (handler == null || handler.isDeferred()) {
+                    i++;
+                    continue;
+                }
+                deferred.remove(i);
+                this.context = context;
+                if (trace != null) {
+                    trace.trigger(trigger);
+                }
+                if (hook == null) {
+                    perform(handler, condition, trigger, context, null);
+                } else {
+                    performObserved(handler, condition, trigger, context, hook);
+                }
+                i = 0;
+            }
+        } finally {
+            firingDeferred = false;
+        }
+    }
+
+    private void performObserved(TriggerBehaviour<S, T, C> handler, SelectorCondition<S, T, C> condition,
+                                 T trigger, C context, StateMachineHook<S, T, C> hook) {
+        S source = getState();
+        Object token = hook.fireStarted(source, trigger, context);
+        long start = System.nanoTime();
+        FireResult result;
+        try {
+            result = perform(handler, condition, trigger, context, hook);
+        } catch (RuntimeException e) {
+            hook.fireFailed(token, source, trigger, e);
+            throw e;
+        }
+        hook.fireCompleted(token, source, trigger, getState(), result, System.nanoTime() - start);
+    }
+
+    /**
+     * Replace the deferral queue. Triggers that are deferred while the queue is full are handled
+     * according to the given policy. By default the queue holds 16 triggers
+     * and rejects further ones.
+     *
+     * @param capacity The maximum number of deferred triggers
+     * @param policy   What to do when the queue is full; use {@link #setDeferralQueue(int, DeferredTriggerStore)}
+     *                 for {@link DeferralOverflowPolicy#SPILL}
+     */
+    public void setDeferralQueue(int capacity, DeferralOverflowPolicy policy) {
+        replaceDeferralQueue(new DeferralQueue<>(capacity, policy, null));
+    }
+
+    /**
+     * Replace the deferral queue. Triggers that are deferred while the queue is full are handed
+     * to the given store.
+     *
+     * @param capacity The maximum number of deferred triggers
+     * @param store    Receives the triggers that do not fit into the queue
+     */
+    public void setDeferralQueue(int capacity, DeferredTriggerStore<T, C> store) {
+        replaceDeferralQueue(new DeferralQueue<>(capacity, DeferralOverflowPolicy.SPILL, store));
+    }
+
+    private void replaceDeferralQueue(DeferralQueue<T, C> queue) {
+        if (deferred != null && deferred.size() > 0) {
+            throw new IllegalStateException("Cannot replace a deferral queue that holds triggers");
+        }
+        deferred = queue;
+    }
+
+    /**
+     * The number of triggers currently waiting in the deferral queue
+     *
+     * @return The deferral queue depth
+     */
+    public int getDeferredTriggerCount() {
+        return deferred == null ? 0 : deferred.size();
+    }
+
+    /**
+     * The number of triggers that were deferred while the deferral queue was full
+     *
+     * @return The number of dropped, rejected or spilled triggers
+     */
+    public long getDeferralOverflowCount() {
+        return deferred == null ? 0 : deferred.overflowCount();
+    }
+
+    /**
+     * Start the regions of all active composite states that are not running yet
+     */
+    private void enterRegions(Transition<S, T, C> transition) {
+        regionsEntered = true;
+        StateRepresentation<S, T, C>[] ancestors = getCurrentRepresentation().ancestors();
+        for (int i = ancestors.length - 1; i >= 0; i--) {
+            StateRepresentation<S, T, C> composite = ancestors[i];
+            if (!composite.hasRegions() || (activeRegions != null && activeRegions.containsKey(composite))) {
+                continue;
+            }
+            List<StateMachine<S, T, C>> machines = new ArrayList<>();
+            for (Region<S, T, C> region : composite.getRegions()) {
+                StateMachine<S, T, C> machine = new StateMachine<>(region.getInitialState(), region.getConfig());
+                machine.context = transition.getContext();
+                machine.fireInitialTransition();
+                machines.add(machine);
+            }
+            if (activeRegions == null) {
+                activeRegions = new LinkedHashMap<>();
+            }
+            activeRegions.put(composite, machines);
+        }
+    }
+
+    /**
+     * Exit the regions of all composite states that the transition leaves
+     */
+    private void exitRegions(Transition<S, T, C> transition) {
+        if (activeRegions == null) {
+            return;
+        }
+        StateRepresentation<S, T, C> current = getCurrentRepresentation();
+        Iterator<Map.Entry<StateRepresentation<S, T, C>, List<StateMachine<S, T, C>>>> it = activeRegions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<StateRepresentation<S, T, C>, List<StateMachine<S, T, C>>> entry = it.next();
+            StateRepresentation<S, T, C> composite = entry.getKey();
+            boolean leaving = transition.isReentry()
+                    ? composite == current
+                    : !composite.includes(config.getRepresentation(transition.getDestination()));
+            if (leaving) {
+                for (StateMachine<S, T, C> machine : entry.getValue()) {
+                    machine.exitRegion(transition);
+                }
+                it.remove();
+            }
+        }
+        if (activeRegions.isEmpty()) {
+            activeRegions = null;
+        }
+    }
+
+    private void exitRegion(Transition<S, T, C> transition) {
+        S state = getState();
+        exitRegions(new Transition<>(state, null, transition.getTrigger(), transition.getContext()));
+        getCurrentRepresentation().exit(new Transition<>(state, null, transition.getTrigger(), transition.getContext()),
+                (StateRepresentation<S, T, C>) null, null);
+    }
+
+    /**
+     * Dispatch the trigger to every active region. Each region evaluates its guards once, in
+     * {@link #tryFire(Object, Object)}, so a region that cannot handle the trigger is simply left alone.
+     *
+     * @return True if at least one region handled the trigger
+     */
+    private boolean fireInRegions(T trigger, C context) {
+        List<StateMachine<S, T, C>> machines = new ArrayList<>();
+        ForkJoinPool pool = null;
+        boolean independent = true;
+        for (Map.Entry<StateRepresentation<S, T, C>, List<StateMachine<S, T, C>>> entry : activeRegions.entrySet()) {
+            machines.addAll(entry.getValue());
+            pool = pool == null ? entry.getKey().getRegionPool() : pool;
+            independent &= entry.getKey().getRegionPool() != null;
+        }
+
+        boolean handled = false;
+        if (machines.size() == 1 || !independent) {
+            for (StateMachine<S, T, C> machine : machines) {
+                handled |= machine.tryFire(trigger, context).isHandled();
+            }
+            return handled;
+        }
+
+        List<Callable<FireResult>> tasks = new ArrayList<>();
+        for (StateMachine<S, T, C> machine : machines) {
+            tasks.add(() -> machine.tryFire(trigger, context));
+        }
+        try {
+            for (Future<FireResult> result : pool.invokeAll(tasks)) {
+                handled |= result.get().isHandled();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating regions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return handled;
+    }
+
+    /**
+     * The states of this state machine and of all its active regions
+     *
+     * @return The current state followed by the current states of the active regions
+     */
+    public List<S> getActiveStates() {
+        List<S> result = new ArrayList<>();
+        result.add(getState());
+        if (activeRegions != null) {
+            for (List<StateMachine<S, T, C>> machines : activeRegions.values()) {
+                for (StateMachine<S, T, C> machine : machines) {
+                    result.addAll(machine.getActiveStates());
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Override the default behaviour of throwing an exception when an unhandled trigger is fired
      *
@@ -201,10 +763,23 @@ public class StateMachine<S, T, C> {
      * Determine if the state machine is in the supplied state
      *
      * @param state The state to test for
-     * @return True if the current state is equal to, or a substate of, the supplied state
+     * @return True if the current state, or the current state of an active region, is equal to,
+     * or a substate of, the supplied state
      */
     public boolean isInState(S state) {
-        return getCurrentRepresentation().isIncludedIn(state);
+        if (getCurrentRepresentation().isIncludedIn(state)) {
+            return true;
+        }
+        if (activeRegions != null) {
+            for (List<StateMachine<S, T, C>> machines : activeRegions.values()) {
+                for (StateMachine<S, T, C> machine : machines) {
+                    if (machine.isInState(state)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -231,6 +806,30 @@ public class StateMachine<S, T, C> {
         this.trace = trace;
     }
 
+    /**
+     * Set a hook observing every fire, or null to remove it
+     *
+     * @param hook The hook
+     */
+    public void setHook(StateMachineHook<S, T, C> hook) {
+        this.hook = hook;
+    }
+
+    /**
+     * The listeners notified of the transitions of this state machine only; listeners for all state
+     * machines of a configuration are registered on {@link StateMachineConfig#getListeners()}.
+     * Unlike the single {@link #setTrace(Trace) trace}, any number of listeners can be added, each
+     * with a filter, and they can be called asynchronously.
+     *
+     * @return The listener bus
+     */
+    public TransitionListenerBus<S, T, C> getListeners() {
+        if (listeners == null) {
+            listeners = new TransitionListenerBus<>();
+        }
+        return listeners;
+    }
+
     /**
      * A human-readable representation of the state machine
      *
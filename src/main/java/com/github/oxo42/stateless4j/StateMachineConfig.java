@@ -1,24 +1,64 @@
 package com.github.oxo42.stateless4j;
 
+import com.github.oxo42.stateless4j.listeners.TransitionListenerBus;
 import com.github.oxo42.stateless4j.transitions.SelectorCondition;
 import com.github.oxo42.stateless4j.transitions.TransitioningTriggerBehaviour;
 import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+import com.github.oxo42.stateless4j.triggers.TypedTrigger;
+import com.github.oxo42.stateless4j.validation.ConfigurationValidator;
+import com.github.oxo42.stateless4j.validation.ReachabilityIndex;
+import com.github.oxo42.stateless4j.validation.ValidationResult;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The state machine configuration. Reusable.
+ * <p>
+ * A configuration that is shared between threads must be {@link #freeze() frozen} first. Freezing
+ * ends with volatile writes of the registered trigger context types and of the state map, and every
+ * lookup starts by reading one of them, so a thread that reads the configuration after {@code freeze()} has returned sees all of it, however the
+ * reference reached that thread. Reading a configuration while another thread still modifies or
+ * freezes it is not supported.
+ * <p>
+ * A frozen configuration does not change, except for state that is thread-safe by design:
+ * the {@link #getListeners() listeners}, the hit counts and order of
+ * {@link #setAdaptiveGuardOrder(boolean) adaptive guards}, the caches of memoized selectors and
+ * the lazily built {@link #getReachabilityIndex() reachability index}.
  */
 public class StateMachineConfig<S, T, C> {
 
-    private final Map<S, StateRepresentation<S, T, C>> stateConfiguration = new HashMap<>();
+    /**
+     * The number of completion transitions a single fire takes by default before giving up
+     */
+    public static final int DEFAULT_MAX_COMPLETION_CHAIN = 64;
+
+    /**
+     * Volatile and written last by {@link #freeze()}: reading it first publishes the frozen configuration
+     */
+    private volatile Map<S, StateRepresentation<S, T, C>> stateConfiguration = new HashMap<>();
+    /**
+     * Volatile and replaced by an immutable copy in {@link #freeze()}, before the state map is published
+     */
+    private volatile Map<T, Class<?>> triggerContexts = new HashMap<>();
+    private final TransitionListenerBus<S, T, C> listeners = new TransitionListenerBus<>();
+    private final AtomicInteger hierarchyVersion = new AtomicInteger();
+    private boolean firstMatch;
+    private boolean adaptiveGuardOrder;
+    private int historySlots;
+    private int maxCompletionChain = DEFAULT_MAX_COMPLETION_CHAIN;
+    private volatile boolean frozen;
+    private volatile ReachabilityIndex<S, T> reachabilityIndex;
 
     /**
      * Return StateRepresentation for the specified state. May return null.
@@ -39,7 +79,10 @@ public class StateMachineConfig<S, T, C> {
     private StateRepresentation<S, T, C> getOrCreateRepresentation(S state) {
         StateRepresentation<S, T, C> result = stateConfiguration.get(state);
         if (result == null) {
-            result = new StateRepresentation<>(state);
+            assertMutable();
+            result = new StateRepresentation<>(state, hierarchyVersion);
+            result.setFirstMatch(firstMatch);
+            result.setAdaptiveGuardOrder(adaptiveGuardOrder);
             stateConfiguration.put(state, result);
         }
 
@@ -54,9 +97,267 @@ public class StateMachineConfig<S, T, C> {
      * @return A configuration object through which the state can be configured
      */
     public StateConfiguration<S, T, C> configure(S state) {
+        assertMutable();
         return new StateConfiguration<>(getOrCreateRepresentation(state), this::getOrCreateRepresentation);
     }
 
+    /**
+     * Declare the context type of a trigger. Each trigger can only be declared with one context type,
+     * so that a {@link TypedTrigger} always describes the trigger it wraps consistently.
+     *
+     * @param trigger The typed trigger
+     * @return The typed trigger
+     */
+    public <X extends C> TypedTrigger<T, X> register(TypedTrigger<T, X> trigger) {
+        assertMutable();
+        Class<?> registered = triggerContexts.putIfAbsent(trigger.getTrigger(), trigger.getContextClass());
+        if (registered != null && registered != trigger.getContextClass()) {
+            throw new IllegalStateException(String.format(
+                    "Trigger '%s' is already registered with context type %s, cannot register it with %s",
+                    trigger.getTrigger(), registered, trigger.getContextClass()));
+        }
+        return trigger;
+    }
+
+    /**
+     * Declare the context type of a trigger
+     *
+     * @param trigger      The trigger
+     * @param contextClass The type of the context it is fired with
+     * @return The typed trigger
+     * @see #register(TypedTrigger)
+     */
+    public <X extends C> TypedTrigger<T, X> register(T trigger, Class<X> contextClass) {
+        return register(TypedTrigger.of(trigger, contextClass));
+    }
+
+    /**
+     * The context type declared for a trigger
+     *
+     * @param trigger The trigger
+     * @return The context type, or null if the trigger has not been registered
+     */
+    public Class<?> getContextClass(T trigger) {
+        return triggerContexts.get(trigger);
+    }
+
+    /**
+     * All configured state representations
+     *
+     * @return An unmodifiable view of the representations
+     */
+    public Collection<StateRepresentation<S, T, C>> getRepresentations() {
+        return Collections.unmodifiableCollection(stateConfiguration.values());
+    }
+
+    /**
+     * Select how a handler is chosen when several behaviours are configured for the same trigger.
+     * <p>
+     * By default all guards are evaluated on every fire and an {@link IllegalStateException} is thrown
+     * if more than one accepts. In first-match mode the first accepting behaviour, in declaration order,
+     * is taken and the remaining guards are skipped. Use {@link #validate()} to check the configuration
+     * for overlapping guards before enabling it.
+     *
+     * @param firstMatch True to take the first accepting behaviour
+     */
+    public void setFirstMatch(boolean firstMatch) {
+        assertMutable();
+        if (!firstMatch && adaptiveGuardOrder) {
+            throw new IllegalStateException("Adaptive guard ordering requires first-match mode");
+        }
+        this.firstMatch = firstMatch;
+        for (StateRepresentation<S, T, C> representation : stateConfiguration.values()) {
+            representation.setFirstMatch(firstMatch);
+        }
+    }
+
+    public boolean isFirstMatch() {
+        return firstMatch;
+    }
+
+    /**
+     * Try the behaviours configured for the same trigger in the order of how often their guards accepted,
+     * instead of in declaration order. Every state machine using the configuration counts accepted guards
+     * on striped counters, and the order is recomputed periodically, so that the most likely guard is
+     * evaluated first.
+     * <p>
+     * Requires first-match mode. As the order changes at runtime the guards must be mutually exclusive;
+     * use {@link #validate()} to check for overlaps. {@link StateRepresentation#getGuardOrder} shows the
+     * learned order.
+     *
+     * @param adaptiveGuardOrder True to order guards by their hit rates
+     * @throws IllegalStateException if first-match mode is not enabled
+     */
+    public void setAdaptiveGuardOrder(boolean adaptiveGuardOrder) {
+        assertMutable();
+        if (adaptiveGuardOrder && !firstMatch) {
+            throw new IllegalStateException("Adaptive guard ordering requires first-match mode");
+        }
+        this.adaptiveGuardOrder = adaptiveGuardOrder;
+        for (StateRepresentation<S, T, C> representation : stateConfiguration.values()) {
+            representation.setAdaptiveGuardOrder(adaptiveGuardOrder);
+        }
+    }
+
+    public boolean isAdaptiveGuardOrder() {
+        return adaptiveGuardOrder;
+    }
+
+    /**
+     * Recompute the adaptive guard order of every state now, for example after a warm-up phase
+     */
+    public void reorderGuards() {
+        for (StateRepresentation<S, T, C> representation : stateConfiguration.values()) {
+            representation.reorderGuards();
+        }
+    }
+
+    /**
+     * Limit the number of completion transitions taken one after another. A chain that would be longer,
+     * for example because completion transitions form a loop, throws an {@link IllegalStateException}.
+     *
+     * @param maxCompletionChain The maximum number of completion transitions per fire
+     */
+    public void setMaxCompletionChain(int maxCompletionChain) {
+        assertMutable();
+        if (maxCompletionChain < 0) {
+            throw new IllegalArgumentException("maxCompletionChain must not be negative: " + maxCompletionChain);
+        }
+        this.maxCompletionChain = maxCompletionChain;
+    }
+
+    public int getMaxCompletionChain() {
+        return maxCompletionChain;
+    }
+
+    /**
+     * The index at which state machines record the history of a state. Indexes are assigned on first
+     * use, or for all states with a history when the configuration is frozen.
+     *
+     * @param representation A state with a history
+     * @return The index
+     */
+    int historySlot(StateRepresentation<S, T, C> representation) {
+        int slot = representation.getHistorySlot();
+        if (slot < 0) {
+            slot = historySlots++;
+            representation.setHistorySlot(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * The number of history indexes assigned so far
+     *
+     * @return The size a history array needs to record every state with a history
+     */
+    int getHistorySlotCount() {
+        return historySlots;
+    }
+
+    /**
+     * End the configuration phase. All state representations are converted into immutable, trimmed
+     * copies, and any later attempt to modify the configuration throws an {@link IllegalStateException}.
+     * Freezing a frozen configuration has no effect.
+     *
+     * @return The receiver
+     */
+    public StateMachineConfig<S, T, C> freeze() {
+        if (!frozen) {
+            for (StateRepresentation<S, T, C> representation : stateConfiguration.values()) {
+                if (representation.getHistoryType() != null) {
+                    historySlot(representation);
+                }
+                representation.freeze();
+            }
+            Map<S, StateRepresentation<S, T, C>> frozenStates = StateRepresentation.immutableCopy(stateConfiguration);
+            triggerContexts = StateRepresentation.immutableCopy(triggerContexts);
+            frozen = true;
+            stateConfiguration = frozenStates;
+        }
+        return this;
+    }
+
+    /**
+     * Estimate the heap retained by this configuration, assuming a 64-bit HotSpot JVM. Freezing
+     * shrinks the estimate, as it replaces every collection by a compact copy. Objects supplied by
+     * the application, such as states, triggers and listeners, are not counted; guards and actions
+     * are counted with the lambdas they capture.
+     *
+     * @return The estimate, in total and per state
+     */
+    public FootprintReport<S> estimateFootprint() {
+        return estimateFootprint(new FootprintEstimator());
+    }
+
+    FootprintReport<S> estimateFootprint(FootprintEstimator estimator) {
+        long configBytes = estimator.object(this)
+                + FootprintEstimator.map(stateConfiguration, frozen)
+                + FootprintEstimator.map(triggerContexts, frozen)
+                + estimator.object(listeners);
+        Map<S, Long> stateBytes = new LinkedHashMap<>();
+        for (StateRepresentation<S, T, C> representation : stateConfiguration.values()) {
+            stateBytes.put(representation.getUnderlyingState(), representation.estimateFootprint(estimator));
+        }
+        return new FootprintReport<>(configBytes, stateBytes);
+    }
+
+    /**
+     * The listeners notified of the transitions of every state machine using this configuration.
+     * Listeners are not part of the configuration and can be added after it is frozen.
+     *
+     * @return The listener bus
+     */
+    public TransitionListenerBus<S, T, C> getListeners() {
+        return listeners;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void assertMutable() {
+        if (frozen) {
+            throw new IllegalStateException("State machine configuration is frozen");
+        }
+    }
+
+    /**
+     * Analyse the configuration for superstate cycles, overlapping guards, dead-end states
+     * and triggers shadowed by a substate.
+     *
+     * @return The diagnostics found
+     */
+    public ValidationResult<S, T> validate() {
+        return validate(null);
+    }
+
+    /**
+     * Analyse the configuration like {@link #validate()} and additionally report states that
+     * cannot be reached from the given initial state.
+     *
+     * @param initialState The initial state, or null to skip the reachability check
+     * @return The diagnostics found
+     */
+    public ValidationResult<S, T> validate(S initialState) {
+        return new ConfigurationValidator<>(stateConfiguration.values()).validate(initialState);
+    }
+
+    /**
+     * The reachability index of this configuration, built on first use
+     *
+     * @return The index
+     * @throws IllegalStateException if the configuration is not frozen
+     */
+    public ReachabilityIndex<S, T> getReachabilityIndex() {
+        ReachabilityIndex<S, T> index = reachabilityIndex;
+        if (index == null) {
+            index = ReachabilityIndex.of(this);
+            reachabilityIndex = index;
+        }
+        return index;
+    }
+
     public void generateDotFileInto(final OutputStream dotFile) throws IOException {
         generateDotFileInto(dotFile, false);
     }
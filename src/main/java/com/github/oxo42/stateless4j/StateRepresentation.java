@@ -1,11 +1,14 @@
 package com.github.oxo42.stateless4j;
 
 import com.github.oxo42.stateless4j.delegates.Action;
+import com.github.oxo42.stateless4j.delegates.StateMachineHook;
 import com.github.oxo42.stateless4j.transitions.SelectorCondition;
 import com.github.oxo42.stateless4j.transitions.Transition;
 import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author yuchaoyang
@@ -14,20 +17,54 @@ public class StateRepresentation<S, T, C> {
 
     private static final String ACTION_IS_NULL = "action is null";
     private static final String TRANSITION_IS_NULL = "transition is null";
-    private final S state;
 
-    private final Map<T, List<TriggerBehaviour<S, T, C>>> triggerBehaviours = new HashMap<>();
-    private final List<Action<S, T, C>> entryActions = new ArrayList<>();
-    private final List<Action<S, T, C>> exitActions = new ArrayList<>();
-    private final List<StateRepresentation<S, T, C>> subStates = new ArrayList<>();
+    private static final String FROZEN = "State representation is frozen";
+    private static final int CYCLE_CHECK_DEPTH = 64;
+
+    /**
+     * The hierarchy version shared by representations created outside of a configuration
+     */
+    private static final AtomicInteger STANDALONE_HIERARCHY_VERSION = new AtomicInteger();
+    private final S state;
+    /**
+     * Shared by the representations of one configuration and bumped whenever one of their superstate
+     * or substate links or histories changes, invalidating their cached lineages unless frozen
+     */
+    private final AtomicInteger hierarchyVersion;
+
+    private Map<T, List<TriggerBehaviour<S, T, C>>> triggerBehaviours = new HashMap<>();
+    private List<TriggerBehaviour<S, T, C>> completions = new ArrayList<>();
+    private final ActionList<S, T, C> entryActions = new ActionList<>();
+    private final ActionList<S, T, C> exitActions = new ActionList<>();
+    private List<StateRepresentation<S, T, C>> subStates = new ArrayList<>();
+    private List<Region<S, T, C>> regions = new ArrayList<>();
     private StateRepresentation<S, T, C> superState;
+    private boolean firstMatch;
+    private boolean adaptiveGuardOrder;
+    private Map<T, GuardOrder<S, T, C>> guardOrders = new HashMap<>();
+    private ForkJoinPool regionPool;
+    private HistoryType historyType;
+    private int historySlot = -1;
+    private boolean frozen;
+    private volatile Lineage<S, T, C> lineage;
 
     public StateRepresentation(S state) {
+        this(state, STANDALONE_HIERARCHY_VERSION);
+    }
+
+    /**
+     * Construct a representation of a configuration
+     *
+     * @param state            The state
+     * @param hierarchyVersion The hierarchy version shared by all representations of the configuration
+     */
+    StateRepresentation(S state, AtomicInteger hierarchyVersion) {
         this.state = state;
+        this.hierarchyVersion = hierarchyVersion;
     }
 
-    protected Map<T, List<TriggerBehaviour<S, T, C>>> getTriggerBehaviours() {
-        return triggerBehaviours;
+    public Map<T, List<TriggerBehaviour<S, T, C>>> getTriggerBehaviours() {
+        return Collections.unmodifiableMap(triggerBehaviours);
     }
 
     public Boolean canHandle(T trigger, SelectorCondition<S, T, C> condition) {
@@ -35,101 +72,350 @@ public class StateRepresentation<S, T, C> {
     }
 
     public TriggerBehaviour<S, T, C> tryFindHandler(T trigger, SelectorCondition<S, T, C> condition) {
-        TriggerBehaviour<S, T, C> result = tryFindLocalHandler(trigger, condition);
-        if (result == null && superState != null) {
-            result = superState.tryFindHandler(trigger, condition);
+        return tryFindHandler(trigger, condition, null);
+    }
+
+    /**
+     * Find the behaviour handling a trigger without recording it in the adaptive guard statistics, for
+     * analyses that must not skew the order in which live machines evaluate guards. Under an adaptive
+     * guard order the first accepting behaviour in declaration order is returned.
+     *
+     * @return The behaviour, or null if none accepts the trigger
+     */
+    public TriggerBehaviour<S, T, C> peekHandler(T trigger, SelectorCondition<S, T, C> condition) {
+        return tryFindHandler(trigger, condition, null, false);
+    }
+
+    /**
+     * Find the behaviour handling a trigger, reporting guard evaluations to a hook
+     *
+     * @param hook The hook, or null
+     */
+    TriggerBehaviour<S, T, C> tryFindHandler(T trigger, SelectorCondition<S, T, C> condition, StateMachineHook<S, T, C> hook) {
+        return tryFindHandler(trigger, condition, hook, true);
+    }
+
+    private TriggerBehaviour<S, T, C> tryFindHandler(T trigger, SelectorCondition<S, T, C> condition,
+                                                     StateMachineHook<S, T, C> hook, boolean counted) {
+        TriggerBehaviour<S, T, C> result = tryFindLocalHandler(trigger, condition, hook, counted);
+        if (result != null || superState == null) {
+            return result;
         }
-        return result;
+        StateRepresentation<S, T, C>[] ancestors = ancestors();
+        for (int i = 1; i < ancestors.length; i++) {
+            result = ancestors[i].tryFindLocalHandler(trigger, condition, hook, counted);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
     }
 
     TriggerBehaviour<S, T, C> tryFindLocalHandler(T trigger, SelectorCondition<S, T, C> condition) {
+        return tryFindLocalHandler(trigger, condition, null, true);
+    }
+
+    private TriggerBehaviour<S, T, C> tryFindLocalHandler(T trigger, SelectorCondition<S, T, C> condition,
+                                                          StateMachineHook<S, T, C> hook, boolean counted) {
         List<TriggerBehaviour<S, T, C>> possible = triggerBehaviours.get(trigger);
         if (possible == null) {
             return null;
         }
+        boolean ranked = adaptiveGuardOrder && possible.size() > 1;
+        if (ranked && counted) {
+            return tryFindRankedHandler(trigger, possible, condition, hook);
+        }
 
-        List<TriggerBehaviour<S, T, C>> actual = new ArrayList<>();
+        TriggerBehaviour<S, T, C> result = null;
         for (TriggerBehaviour<S, T, C> triggerBehaviour : possible) {
-            if (triggerBehaviour.isMatch(condition)) {
-                actual.add(triggerBehaviour);
+            if (isMatch(triggerBehaviour, condition, hook)) {
+                if (firstMatch || ranked) {
+                    return triggerBehaviour;
+                }
+                if (result != null) {
+                    throw new IllegalStateException("Multiple permitted exit transitions are configured from state '" + state + "' for trigger '" + trigger + "'. Guard clauses must be mutually exclusive.");
+                }
+                result = triggerBehaviour;
+            }
+        }
+
+        return result;
+    }
+
+    private TriggerBehaviour<S, T, C> tryFindRankedHandler(T trigger, List<TriggerBehaviour<S, T, C>> possible,
+                                                           SelectorCondition<S, T, C> condition,
+                                                           StateMachineHook<S, T, C> hook) {
+        GuardOrder<S, T, C> guardOrder = guardOrders.get(trigger);
+        if (guardOrder == null) {
+            // only while the configuration is mutable; freezing creates all orders
+            guardOrder = new GuardOrder<>(possible);
+            guardOrders.put(trigger, guardOrder);
+        }
+        GuardOrder.Ranking<S, T, C> ranking = guardOrder.ranking();
+        TriggerBehaviour<S, T, C>[] behaviours = ranking.behaviours;
+        for (int i = 0; i < behaviours.length; i++) {
+            if (isMatch(behaviours[i], condition, hook)) {
+                ranking.hits[i].increment();
+                return behaviours[i];
             }
         }
+        return null;
+    }
 
-        if (actual.size() > 1) {
-            throw new IllegalStateException("Multiple permitted exit transitions are configured from state '" + state + "' for trigger '" + trigger + "'. Guard clauses must be mutually exclusive.");
+    private boolean isMatch(TriggerBehaviour<S, T, C> behaviour, SelectorCondition<S, T, C> condition,
+                            StateMachineHook<S, T, C> hook) {
+        if (hook == null || !behaviour.isGuarded()) {
+            return behaviour.isMatch(condition);
         }
+        Object token = hook.guardStarted(state, behaviour.getTrigger());
+        boolean met = behaviour.isMatch(condition);
+        hook.guardCompleted(token, state, behaviour.getTrigger(), met);
+        return met;
+    }
+
+    /**
+     * In first-match mode the first behaviour whose guard accepts is taken, and the remaining
+     * guards are not evaluated to check that they are mutually exclusive.
+     *
+     * @param firstMatch True to enable first-match mode
+     */
+    void setFirstMatch(boolean firstMatch) {
+        assertMutable();
+        this.firstMatch = firstMatch;
+    }
 
-        return actual.isEmpty() ? null : actual.get(0);
+    /**
+     * In adaptive mode the behaviours for a trigger are tried in the order of how often their guards
+     * accepted so far, instead of in declaration order. Only valid in first-match mode.
+     *
+     * @param adaptiveGuardOrder True to enable adaptive mode
+     */
+    void setAdaptiveGuardOrder(boolean adaptiveGuardOrder) {
+        assertMutable();
+        this.adaptiveGuardOrder = adaptiveGuardOrder;
+        guardOrders.clear();
     }
 
+    /**
+     * The order in which the behaviours for a trigger are tried
+     *
+     * @param trigger The trigger
+     * @return The behaviours, in the learned order in adaptive mode and in declaration order otherwise
+     */
+    public List<TriggerBehaviour<S, T, C>> getGuardOrder(T trigger) {
+        GuardOrder<S, T, C> guardOrder = guardOrders.get(trigger);
+        if (guardOrder != null) {
+            return guardOrder.getOrder();
+        }
+        List<TriggerBehaviour<S, T, C>> behaviours = triggerBehaviours.get(trigger);
+        return behaviours == null ? Collections.emptyList() : Collections.unmodifiableList(behaviours);
+    }
+
+    /**
+     * How often the guard of each behaviour for a trigger accepted, counted in adaptive mode only
+     *
+     * @param trigger The trigger
+     * @return The counts in declaration order; all zero if nothing has been counted
+     */
+    public long[] getGuardHits(T trigger) {
+        GuardOrder<S, T, C> guardOrder = guardOrders.get(trigger);
+        if (guardOrder != null) {
+            return guardOrder.getHits();
+        }
+        List<TriggerBehaviour<S, T, C>> behaviours = triggerBehaviours.get(trigger);
+        return new long[behaviours == null ? 0 : behaviours.size()];
+    }
+
+    /**
+     * Reorder the behaviours of all triggers now instead of waiting for the next periodic reorder
+     */
+    void reorderGuards() {
+        for (GuardOrder<S, T, C> guardOrder : guardOrders.values()) {
+            guardOrder.reorder();
+        }
+    }
+
+    /**
+     * Add an entry action that only runs when the state is entered by the given trigger
+     *
+     * @param trigger The trigger
+     * @param action  The action
+     */
     public void addEntryAction(final T trigger, final Action<S, T, C> action) {
+        assertMutable();
         assert action != null : ACTION_IS_NULL;
-
-        entryActions.add(transition -> {
-            T transTrigger = transition.getTrigger();
-            if (transTrigger != null && transTrigger.equals(trigger)) {//todo  应该有个提示？
-                action.doIt(transition);
-            }
-        });
+        entryActions.add(trigger, action);
     }
 
     public void addEntryAction(Action<S, T, C> action) {
+        assertMutable();
         assert action != null : ACTION_IS_NULL;
         entryActions.add(action);
     }
 
     public void insertEntryAction(Action<S, T, C> action) {
+        assertMutable();
         assert action != null : ACTION_IS_NULL;
-        entryActions.add(0, action);
+        entryActions.insert(action);
     }
 
     public void addExitAction(Action<S, T, C> action) {
+        assertMutable();
         assert action != null : ACTION_IS_NULL;
         exitActions.add(action);
     }
 
+    /**
+     * Add an exit action that only runs when the state is exited by the given trigger
+     *
+     * @param trigger The trigger
+     * @param action  The action
+     */
+    public void addExitAction(T trigger, Action<S, T, C> action) {
+        assertMutable();
+        assert action != null : ACTION_IS_NULL;
+        exitActions.add(trigger, action);
+    }
+
     public void enter(Transition<S, T, C> transition) {
+        enter(transition, null);
+    }
+
+    /**
+     * Enter this state and the superstates that do not include the source of the transition,
+     * reporting action execution to a hook
+     *
+     * @param hook The hook, or null
+     */
+    void enter(Transition<S, T, C> transition, StateMachineHook<S, T, C> hook) {
         assert transition != null : TRANSITION_IS_NULL;
 
         if (transition.isReentry()) {
-            executeEntryActions(transition);
-        } else if (!includes(transition.getSource())) {
-            if (superState != null) {
-                superState.enter(transition);
-            }
+            executeEntryActions(transition, hook);
+            return;
+        }
+        StateRepresentation<S, T, C>[] ancestors = ancestors();
+        int entered = 0;
+        while (entered < ancestors.length && !ancestors[entered].includes(transition.getSource())) {
+            entered++;
+        }
+        enter(transition, ancestors, entered, hook);
+    }
 
-            executeEntryActions(transition);
+    /**
+     * Like {@link #enter(Transition, StateMachineHook)}, with the representation of the source state
+     * known, so that the states to enter follow from the lineages without searching substates
+     *
+     * @param source The representation of the source state, or null if it has none
+     */
+    void enter(Transition<S, T, C> transition, StateRepresentation<S, T, C> source, StateMachineHook<S, T, C> hook) {
+        assert transition != null : TRANSITION_IS_NULL;
+
+        if (transition.isReentry()) {
+            executeEntryActions(transition, hook);
+            return;
+        }
+        StateRepresentation<S, T, C>[] ancestors = ancestors();
+        enter(transition, ancestors, ancestors.length - commonAncestors(ancestors, source), hook);
+    }
+
+    private static <S, T, C> void enter(Transition<S, T, C> transition, StateRepresentation<S, T, C>[] ancestors,
+                                        int entered, StateMachineHook<S, T, C> hook) {
+        for (int i = entered - 1; i >= 0; i--) {
+            ancestors[i].executeEntryActions(transition, hook);
         }
     }
 
     public void exit(Transition<S, T, C> transition) {
+        exit(transition, null);
+    }
+
+    /**
+     * Exit this state and the superstates that do not include the destination of the transition,
+     * reporting action execution to a hook
+     *
+     * @param hook The hook, or null
+     */
+    void exit(Transition<S, T, C> transition, StateMachineHook<S, T, C> hook) {
         assert transition != null : TRANSITION_IS_NULL;
 
         if (transition.isReentry()) {
-            executeExitActions(transition);
-        } else if (!includes(transition.getDestination())) {
-            executeExitActions(transition);
-            if (superState != null) {
-                superState.exit(transition);
-            }
+            executeExitActions(transition, hook);
+            return;
+        }
+        StateRepresentation<S, T, C>[] ancestors = ancestors();
+        for (int i = 0; i < ancestors.length && !ancestors[i].includes(transition.getDestination()); i++) {
+            ancestors[i].executeExitActions(transition, hook);
         }
     }
 
-    void executeEntryActions(Transition<S, T, C> transition) {
+    /**
+     * Like {@link #exit(Transition, StateMachineHook)}, with the representation of the destination
+     * state known, so that the states to exit follow from the lineages without searching substates
+     *
+     * @param destination The representation of the destination state, or null if it has none
+     */
+    void exit(Transition<S, T, C> transition, StateRepresentation<S, T, C> destination, StateMachineHook<S, T, C> hook) {
         assert transition != null : TRANSITION_IS_NULL;
-        for (Action<S, T, C> action : entryActions) {
-            action.doIt(transition);
+
+        if (transition.isReentry()) {
+            executeExitActions(transition, hook);
+            return;
         }
+        StateRepresentation<S, T, C>[] ancestors = ancestors();
+        int exited = ancestors.length - commonAncestors(ancestors, destination);
+        for (int i = 0; i < exited; i++) {
+            ancestors[i].executeExitActions(transition, hook);
+        }
+    }
+
+    /**
+     * The number of representations two lineages share, counted from the root
+     */
+    static <S, T, C> int commonAncestors(StateRepresentation<S, T, C>[] ancestors, StateRepresentation<S, T, C> other) {
+        if (other == null) {
+            return 0;
+        }
+        StateRepresentation<S, T, C>[] others = other.ancestors();
+        int common = 0;
+        while (common < ancestors.length && common < others.length
+                && ancestors[ancestors.length - 1 - common] == others[others.length - 1 - common]) {
+            common++;
+        }
+        return common;
+    }
+
+    void executeEntryActions(Transition<S, T, C> transition) {
+        executeEntryActions(transition, null);
+    }
+
+    private void executeEntryActions(Transition<S, T, C> transition, StateMachineHook<S, T, C> hook) {
+        assert transition != null : TRANSITION_IS_NULL;
+        executeActions(entryActions, StateMachineHook.Phase.ENTRY, transition, hook);
     }
 
     void executeExitActions(Transition<S, T, C> transition) {
+        executeExitActions(transition, null);
+    }
+
+    private void executeExitActions(Transition<S, T, C> transition, StateMachineHook<S, T, C> hook) {
         assert transition != null : TRANSITION_IS_NULL;
-        for (Action<S, T, C> action : exitActions) {
-            action.doIt(transition);
+        executeActions(exitActions, StateMachineHook.Phase.EXIT, transition, hook);
+    }
+
+    private void executeActions(ActionList<S, T, C> actions, StateMachineHook.Phase phase,
+                                Transition<S, T, C> transition, StateMachineHook<S, T, C> hook) {
+        if (hook == null || actions.isEmpty()) {
+            actions.execute(transition);
+            return;
         }
+        Object token = hook.actionsStarted(state, phase, transition);
+        actions.execute(transition);
+        hook.actionsCompleted(token, state, phase, transition);
     }
 
     public void addTriggerBehaviour(TriggerBehaviour<S, T, C> triggerBehaviour) {
+        assertMutable();
         List<TriggerBehaviour<S, T, C>> allowed;
         if (!triggerBehaviours.containsKey(triggerBehaviour.getTrigger())) {
             allowed = new ArrayList<>();
@@ -137,6 +423,41 @@ public class StateRepresentation<S, T, C> {
         }
         allowed = triggerBehaviours.get(triggerBehaviour.getTrigger());
         allowed.add(triggerBehaviour);
+        guardOrders.remove(triggerBehaviour.getTrigger());
+    }
+
+    /**
+     * Add a completion transition, taken as soon as this state has been entered if its guard accepts
+     *
+     * @param completion The behaviour; its trigger is null
+     */
+    public void addCompletion(TriggerBehaviour<S, T, C> completion) {
+        assertMutable();
+        assert completion != null : "completion is null";
+        completions.add(completion);
+    }
+
+    public List<TriggerBehaviour<S, T, C>> getCompletions() {
+        return Collections.unmodifiableList(completions);
+    }
+
+    boolean hasCompletions() {
+        return !completions.isEmpty();
+    }
+
+    /**
+     * Find the first completion transition, in declaration order, whose guard accepts
+     *
+     * @param hook The hook guard evaluations are reported to, or null
+     * @return The completion transition, or null if none accepts
+     */
+    TriggerBehaviour<S, T, C> tryFindCompletion(SelectorCondition<S, T, C> condition, StateMachineHook<S, T, C> hook) {
+        for (TriggerBehaviour<S, T, C> completion : completions) {
+            if (isMatch(completion, condition, hook)) {
+                return completion;
+            }
+        }
+        return null;
     }
 
     public StateRepresentation<S, T, C> getSuperState() {
@@ -144,48 +465,340 @@ public class StateRepresentation<S, T, C> {
     }
 
     public void setSuperState(StateRepresentation<S, T, C> value) {
+        assertMutable();
         superState = value;
+        hierarchyVersion.incrementAndGet();
     }
 
     public S getUnderlyingState() {
         return state;
     }
 
+    public void addRegion(Region<S, T, C> region) {
+        assertMutable();
+        assert region != null : "region is null";
+        regions.add(region);
+    }
+
+    boolean hasRegions() {
+        return !regions.isEmpty();
+    }
+
+    public List<Region<S, T, C>> getRegions() {
+        return Collections.unmodifiableList(regions);
+    }
+
+    /**
+     * The pool on which the regions of this state are evaluated
+     *
+     * @return The pool, or null if regions are evaluated one after another on the firing thread
+     */
+    public ForkJoinPool getRegionPool() {
+        return regionPool;
+    }
+
+    public void setRegionPool(ForkJoinPool regionPool) {
+        assertMutable();
+        this.regionPool = regionPool;
+    }
+
+    /**
+     * The history of this state
+     *
+     * @return The history type, or null if transitions into this state always enter it
+     */
+    public HistoryType getHistoryType() {
+        return historyType;
+    }
+
+    public void setHistoryType(HistoryType historyType) {
+        assertMutable();
+        this.historyType = historyType;
+        hierarchyVersion.incrementAndGet();
+    }
+
+    /**
+     * The index of the entry recording the history of this state in the history array of a state machine
+     *
+     * @return The index, or -1 if none has been assigned yet
+     */
+    int getHistorySlot() {
+        return historySlot;
+    }
+
+    void setHistorySlot(int historySlot) {
+        this.historySlot = historySlot;
+    }
+
+    /**
+     * Replace all collections by immutable, compact copies and reject any further modification.
+     * Regions are frozen with their configurations.
+     */
+    void freeze() {
+        if (frozen) {
+            return;
+        }
+        Map<T, List<TriggerBehaviour<S, T, C>>> behaviours = new HashMap<>();
+        for (Map.Entry<T, List<TriggerBehaviour<S, T, C>>> entry : triggerBehaviours.entrySet()) {
+            behaviours.put(entry.getKey(), immutableCopy(entry.getValue()));
+        }
+        triggerBehaviours = immutableCopy(behaviours);
+        if (adaptiveGuardOrder) {
+            Map<T, GuardOrder<S, T, C>> orders = new HashMap<>();
+            for (Map.Entry<T, List<TriggerBehaviour<S, T, C>>> entry : behaviours.entrySet()) {
+                if (entry.getValue().size() > 1) {
+                    orders.put(entry.getKey(), new GuardOrder<>(entry.getValue()));
+                }
+            }
+            guardOrders = immutableCopy(orders);
+        } else {
+            guardOrders = Collections.emptyMap();
+        }
+        entryActions.freeze();
+        exitActions.freeze();
+        completions = immutableCopy(completions);
+        subStates = immutableCopy(subStates);
+        regions = immutableCopy(regions);
+        for (Region<S, T, C> region : regions) {
+            region.getConfig().freeze();
+        }
+        lineage = new Lineage<>(computeAncestors(), hierarchyVersion.get(), true);
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void assertMutable() {
+        if (frozen) {
+            throw new IllegalStateException(FROZEN + ": '" + state + "'");
+        }
+    }
+
+    /**
+     * An immutable copy of a list: shared when empty, a singleton when it has one element and
+     * backed by an exactly sized array otherwise
+     */
+    static <E> List<E> immutableCopy(List<E> list) {
+        switch (list.size()) {
+            case 0:
+                return Collections.emptyList();
+            case 1:
+                return Collections.singletonList(list.get(0));
+            default:
+                return Collections.unmodifiableList(new ArrayList<>(list));
+        }
+    }
+
+    /**
+     * An immutable copy of a map: shared when empty and a singleton when it has one entry
+     */
+    static <K, V> Map<K, V> immutableCopy(Map<K, V> map) {
+        switch (map.size()) {
+            case 0:
+                return Collections.emptyMap();
+            case 1:
+                Map.Entry<K, V> entry = map.entrySet().iterator().next();
+                return Collections.singletonMap(entry.getKey(), entry.getValue());
+            default:
+                return Collections.unmodifiableMap(new HashMap<>(map));
+        }
+    }
+
+    /**
+     * Estimate the bytes retained by this representation, its behaviours, actions and regions
+     */
+    long estimateFootprint(FootprintEstimator estimator) {
+        long bytes = estimator.object(this);
+        bytes += FootprintEstimator.map(triggerBehaviours, frozen);
+        for (List<TriggerBehaviour<S, T, C>> behaviours : triggerBehaviours.values()) {
+            bytes += FootprintEstimator.list(behaviours, frozen);
+            for (TriggerBehaviour<S, T, C> behaviour : behaviours) {
+                bytes += estimator.object(behaviour);
+            }
+        }
+        bytes += FootprintEstimator.list(completions, frozen);
+        for (TriggerBehaviour<S, T, C> completion : completions) {
+            bytes += estimator.object(completion);
+        }
+        bytes += entryActions.estimateFootprint(estimator, frozen);
+        bytes += exitActions.estimateFootprint(estimator, frozen);
+        bytes += FootprintEstimator.list(subStates, frozen);
+        bytes += FootprintEstimator.list(regions, frozen);
+        for (Region<S, T, C> region : regions) {
+            bytes += estimator.object(region) + region.getConfig().estimateFootprint(estimator).getTotalBytes();
+        }
+        bytes += FootprintEstimator.map(guardOrders, frozen);
+        for (GuardOrder<S, T, C> order : guardOrders.values()) {
+            bytes += order.estimateFootprint(estimator);
+        }
+        Lineage<S, T, C> cached = lineage;
+        if (cached != null) {
+            bytes += estimator.object(cached) + FootprintEstimator.referenceArray(cached.ancestors.length);
+        }
+        return bytes;
+    }
+
+    public List<StateRepresentation<S, T, C>> getSubStates() {
+        return Collections.unmodifiableList(subStates);
+    }
+
     public void addSubstate(StateRepresentation<S, T, C> substate) {
+        assertMutable();
         assert substate != null : "substate is null";
         subStates.add(substate);
+        hierarchyVersion.incrementAndGet();
     }
 
+    /**
+     * Determine if a state is this state or one of its substates
+     *
+     * @param stateToCheck The state to test for
+     * @return True if the state is this state or one of its substates, at any depth
+     */
     public boolean includes(S stateToCheck) {
-        for (StateRepresentation<S, T, C> s : subStates) {
-            if (s.includes(stateToCheck)) {
+        if (this.state.equals(stateToCheck)) {
+            return true;
+        }
+        if (subStates.isEmpty()) {
+            return false;
+        }
+        Deque<StateRepresentation<S, T, C>> pending = new ArrayDeque<>(subStates);
+        while (!pending.isEmpty()) {
+            StateRepresentation<S, T, C> s = pending.pop();
+            if (s.state.equals(stateToCheck)) {
+                return true;
+            }
+            for (StateRepresentation<S, T, C> sub : s.subStates) {
+                pending.push(sub);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determine if a representation is this one or one of its substates
+     *
+     * @param other The representation to test for, may be null
+     * @return True if this representation is in the lineage of the other one
+     */
+    boolean includes(StateRepresentation<S, T, C> other) {
+        if (other == null) {
+            return false;
+        }
+        for (StateRepresentation<S, T, C> ancestor : other.ancestors()) {
+            if (ancestor == this) {
                 return true;
             }
         }
-        return this.state.equals(stateToCheck);
+        return false;
     }
 
     public boolean isIncludedIn(S stateToCheck) {
-        return this.state.equals(stateToCheck) || (superState != null && superState.isIncludedIn(stateToCheck));
+        if (this.state.equals(stateToCheck)) {
+            return true;
+        }
+        if (superState == null) {
+            return false;
+        }
+        for (StateRepresentation<S, T, C> ancestor : ancestors()) {
+            if (ancestor.state.equals(stateToCheck)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public List<T> getPermittedTriggers() {
         Set<T> result = new HashSet<>();
 
-        for (T t : triggerBehaviours.keySet()) {
-            for (TriggerBehaviour<S, T, C> v : triggerBehaviours.get(t)) {
-                SelectorCondition<S, T, C> condition = new SelectorCondition<>(null, v.getTrigger(), null);//todo
-                if (v.isMatch(condition)) {
-                    result.add(t);
-                    break;
+        for (StateRepresentation<S, T, C> ancestor : ancestors()) {
+            for (Map.Entry<T, List<TriggerBehaviour<S, T, C>>> entry : ancestor.triggerBehaviours.entrySet()) {
+                if (result.contains(entry.getKey())) {
+                    continue;
+                }
+                for (TriggerBehaviour<S, T, C> v : entry.getValue()) {
+                    SelectorCondition<S, T, C> condition = new SelectorCondition<>(null, v.getTrigger(), null);//todo
+                    if (v.isMatch(condition)) {
+                        result.add(entry.getKey());
+                        break;
+                    }
                 }
             }
         }
 
-        if (getSuperState() != null) {
-            result.addAll(getSuperState().getPermittedTriggers());
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * This representation followed by its superstates, nearest first. The array must not be modified.
+     * It is computed once when this representation is frozen; before that it is cached until a
+     * superstate or substate link of any representation of the same configuration changes.
+     *
+     * @return The lineage of this representation
+     * @throws IllegalStateException if the superstates form a cycle
+     */
+    StateRepresentation<S, T, C>[] ancestors() {
+        return lineage().ancestors;
+    }
+
+    /**
+     * Determine if one of the superstates of this representation has a history
+     *
+     * @return True if leaving this state may need to be recorded
+     */
+    boolean hasHistoryAbove() {
+        return lineage().historyAbove;
+    }
+
+    private Lineage<S, T, C> lineage() {
+        Lineage<S, T, C> current = lineage;
+        if (current != null && current.frozen) {
+            return current;
+        }
+        int version = hierarchyVersion.get();
+        if (current == null || current.version != version) {
+            current = new Lineage<>(computeAncestors(), version, false);
+            lineage = current;
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private StateRepresentation<S, T, C>[] computeAncestors() {
+        List<StateRepresentation<S, T, C>> result = new ArrayList<>();
+        Set<StateRepresentation<S, T, C>> seen = null;
+        for (StateRepresentation<S, T, C> r = this; r != null; r = r.superState) {
+            if (result.size() == CYCLE_CHECK_DEPTH) {
+                seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                seen.addAll(result);
+            }
+            if (seen != null && !seen.add(r)) {
+                throw new IllegalStateException("Superstate cycle above state '" + state + "'");
+            }
+            result.add(r);
         }
+        return result.toArray((StateRepresentation<S, T, C>[]) new StateRepresentation<?, ?, ?>[0]);
+    }
 
-        return new ArrayList<>(result);
+    private static final class Lineage<S, T, C> {
+
+        final StateRepresentation<S, T, C>[] ancestors;
+        final int version;
+        // computed when the representation was frozen, so valid whatever the version
+        final boolean frozen;
+        final boolean historyAbove;
+
+        Lineage(StateRepresentation<S, T, C>[] ancestors, int version, boolean frozen) {
+            this.ancestors = ancestors;
+            this.version = version;
+            this.frozen = frozen;
+            boolean history = false;
+            for (int i = 1; i < ancestors.length && !history; i++) {
+                history = ancestors[i].historyType != null;
+            }
+            this.historyAbove = history;
+        }
     }
 }
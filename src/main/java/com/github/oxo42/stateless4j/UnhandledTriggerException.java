@@ -0,0 +1,73 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.delegates.UnHandleGuard;
+
+/**
+ * Thrown by default when a trigger is fired that the current state does not handle.
+ * <p>
+ * The message is only formatted when it is requested. For high rejection rates,
+ * {@link #throwStackless()} avoids capturing a stack trace, or
+ * {@link StateMachine#tryFire(Object, Object)} reports the rejection without any exception.
+ */
+public class UnhandledTriggerException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object state;
+    private final transient Object trigger;
+
+    public UnhandledTriggerException(Object state, Object trigger) {
+        this.state = state;
+        this.trigger = trigger;
+    }
+
+    /**
+     * An unhandled trigger action that throws an exception without a stack trace
+     *
+     * @return The unhandled trigger action
+     */
+    public static <S, T, C> UnHandleGuard<S, T, C> throwStackless() {
+        return condition -> {
+            throw new Stackless(condition.getFrom(), condition.getTrigger());
+        };
+    }
+
+    /**
+     * The state the trigger was fired in
+     *
+     * @return The state
+     */
+    public Object getState() {
+        return state;
+    }
+
+    /**
+     * The unhandled trigger
+     *
+     * @return The trigger
+     */
+    public Object getTrigger() {
+        return trigger;
+    }
+
+    @Override
+    public String getMessage() {
+        return String.format(
+                "No valid leaving transitions are permitted from state '%s' for trigger '%s'. Consider ignoring the trigger.",
+                state, trigger);
+    }
+
+    private static final class Stackless extends UnhandledTriggerException {
+
+        private static final long serialVersionUID = 1L;
+
+        private Stackless(Object state, Object trigger) {
+            super(state, trigger);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.oxo42.stateless4j;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A sequence of state machine configurations, of which the latest published one is current.
+ * <p>
+ * Publishing replaces the current configuration atomically. State machines constructed on a
+ * versioned configuration switch to the current configuration before each fire that is not
+ * nested in another fire, so a running machine never sees two configurations within one fire.
+ * Reading the current configuration takes no lock.
+ * <p>
+ * Configurations are {@link StateMachineConfig#freeze() frozen} when they are published.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class VersionedStateMachineConfig<S, T, C> {
+
+    private final AtomicReference<Version<S, T, C>> current;
+
+    public VersionedStateMachineConfig(StateMachineConfig<S, T, C> initial) {
+        assert initial != null : "initial is null";
+        current = new AtomicReference<>(new Version<>(initial.freeze(), 1));
+    }
+
+    /**
+     * Freeze a configuration and make it current
+     *
+     * @param config The new configuration
+     * @return The version number of the new configuration
+     */
+    public long publish(StateMachineConfig<S, T, C> config) {
+        assert config != null : "config is null";
+        config.freeze();
+        while (true) {
+            Version<S, T, C> previous = current.get();
+            Version<S, T, C> next = new Version<>(config, previous.number + 1);
+            if (current.compareAndSet(previous, next)) {
+                return next.number;
+            }
+        }
+    }
+
+    public StateMachineConfig<S, T, C> current() {
+        return current.get().config;
+    }
+
+    public long getVersion() {
+        return current.get().number;
+    }
+
+    private static final class Version<S, T, C> {
+        private final StateMachineConfig<S, T, C> config;
+        private final long number;
+
+        private Version(StateMachineConfig<S, T, C> config, long number) {
+            this.config = config;
+            this.number = number;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.oxo42.stateless4j.compiled;
+
+import java.util.Arrays;
+
+/**
+ * State column backed by a {@code byte[]}, for state machines with at most 256 states
+ */
+public class ByteStateColumn implements StateColumn {
+
+    public static final int MAX_STATES = 256;
+
+    private final byte[] states;
+
+    public ByteStateColumn(int size) {
+        this.states = new byte[size];
+    }
+
+    @Override
+    public int get(int id) {
+        return states[id] & 0xFF;
+    }
+
+    @Override
+    public void set(int id, int state) {
+        states[id] = (byte) state;
+    }
+
+    @Override
+    public int size() {
+        return states.length;
+    }
+
+    @Override
+    public void fill(int state) {
+        Arrays.fill(states, (byte) state);
+    }
+
+    byte[] array() {
+        return states;
+    }
+}
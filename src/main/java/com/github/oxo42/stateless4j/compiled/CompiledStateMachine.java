@@ -0,0 +1,305 @@
+package com.github.oxo42.stateless4j.compiled;
+
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.StateRepresentation;
+import com.github.oxo42.stateless4j.transitions.SelectorCondition;
+import com.github.oxo42.stateless4j.transitions.TransitioningTriggerBehaviour;
+import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A state machine engine working on {@code int} state and trigger codes.
+ * <p>
+ * The engine is compiled from a {@link StateMachineConfig} into a flat transition table and holds no
+ * per-machine data: the state of every machine lives in a {@link StateColumn} indexed by machine id,
+ * so one engine can drive any number of machines. Superstate inheritance is resolved at compile time.
+ * <p>
+ * Only the topology of the configuration is compiled. Guards, dynamic destinations, deferred triggers,
+ * completion transitions, regions and history need a context or per-machine data and are rejected by
+ * {@link #compile}; entry, exit and transition actions are not executed.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ */
+public class CompiledStateMachine<S, T> {
+
+    /**
+     * Returned when the current state does not handle a trigger
+     */
+    public static final int UNHANDLED = -1;
+
+    private static final int IGNORED = -2;
+
+    private final S[] states;
+    private final T[] triggers;
+    private final Map<S, Integer> stateCodes = new HashMap<>();
+    private final Map<T, Integer> triggerCodes = new HashMap<>();
+    private final int[] table;
+    private final int[] parents;
+
+    private CompiledStateMachine(S[] states, T[] triggers) {
+        this.states = states.clone();
+        this.triggers = triggers.clone();
+        for (int i = 0; i < states.length; i++) {
+            stateCodes.put(states[i], i);
+        }
+        for (int i = 0; i < triggers.length; i++) {
+            triggerCodes.put(triggers[i], i);
+        }
+        this.table = new int[states.length * triggers.length];
+        this.parents = new int[states.length];
+    }
+
+    /**
+     * Compile a configuration whose states and triggers are enums
+     *
+     * @param config      The configuration
+     * @param stateType   The state enum
+     * @param triggerType The trigger enum
+     * @return The compiled engine; state and trigger codes are the enum ordinals
+     */
+    public static <S extends Enum<S>, T extends Enum<T>, C> CompiledStateMachine<S, T> compile(
+            StateMachineConfig<S, T, C> config, Class<S> stateType, Class<T> triggerType) {
+        return compile(config, stateType.getEnumConstants(), triggerType.getEnumConstants());
+    }
+
+    /**
+     * Compile a configuration
+     *
+     * @param config   The configuration
+     * @param states   All states; the code of a state is its index in this array
+     * @param triggers All triggers; the code of a trigger is its index in this array
+     * @return The compiled engine
+     * @throws IllegalStateException if the configuration uses guards, dynamic transitions, deferred
+     *                               triggers, completion transitions, regions or history, or refers to
+     *                               a state or trigger not in the arrays
+     */
+    public static <S, T, C> CompiledStateMachine<S, T> compile(StateMachineConfig<S, T, C> config, S[] states, T[] triggers) {
+        CompiledStateMachine<S, T> result = new CompiledStateMachine<>(states, triggers);
+        for (int s = 0; s < states.length; s++) {
+            StateRepresentation<S, T, C> representation = config.getRepresentation(states[s]);
+            result.parents[s] = UNHANDLED;
+            if (representation != null && representation.getSuperState() != null) {
+                result.parents[s] = result.stateCode(representation.getSuperState().getUnderlyingState());
+            }
+            if (representation != null && !representation.getRegions().isEmpty()) {
+                throw new IllegalStateException("State '" + states[s] + "' has regions and cannot be compiled");
+            }
+            if (representation != null && representation.getHistoryType() != null) {
+                throw new IllegalStateException("State '" + states[s] + "' has a history and cannot be compiled");
+            }
+            if (representation != null && !representation.getCompletions().isEmpty()) {
+                throw new IllegalStateException("State '" + states[s] + "' has completion transitions and cannot be compiled");
+            }
+            for (int t = 0; t < triggers.length; t++) {
+                result.table[s * triggers.length + t] = result.compileEntry(representation, states[s], triggers[t]);
+            }
+        }
+        return result;
+    }
+
+    private <C> int compileEntry(StateRepresentation<S, T, C> representation, S state, T trigger) {
+        int depth = 0;
+        for (StateRepresentation<S, T, C> r = representation; r != null; r = r.getSuperState()) {
+            if (++depth > states.length) {
+                throw new IllegalStateException("Superstate cycle above state '" + state + "'");
+            }
+            List<TriggerBehaviour<S, T, C>> behaviours = r.getTriggerBehaviours().get(trigger);
+            if (behaviours == null) {
+                continue;
+            }
+            if (behaviours.size() > 1 || behaviours.get(0).isGuarded()) {
+                throw new IllegalStateException(String.format(
+                        "Trigger '%s' of state '%s' is guarded and cannot be compiled", trigger, r.getUnderlyingState()));
+            }
+            TriggerBehaviour<S, T, C> behaviour = behaviours.get(0);
+            if (behaviour.isDeferred()) {
+                throw new IllegalStateException(String.format(
+                        "Trigger '%s' of state '%s' is deferred and cannot be compiled", trigger, r.getUnderlyingState()));
+            }
+            if (behaviour.isInternal()) {
+                return IGNORED;
+            }
+            if (!(behaviour instanceof TransitioningTriggerBehaviour)) {
+                throw new IllegalStateException(String.format(
+                        "Trigger '%s' of state '%s' has a dynamic destination and cannot be compiled", trigger, r.getUnderlyingState()));
+            }
+            return stateCode(behaviour.transitionsTo(new SelectorCondition<>(state, trigger, null)));
+        }
+        return UNHANDLED;
+    }
+
+    /**
+     * The state a machine in {@code state} moves to when {@code trigger} is fired
+     *
+     * @param state   The current state code
+     * @param trigger The trigger code
+     * @return The next state code, which equals {@code state} for ignored and internal triggers,
+     * or {@link #UNHANDLED}
+     * @throws IllegalArgumentException if the trigger code is out of range
+     */
+    public int next(int state, int trigger) {
+        checkTrigger(trigger);
+        int next = table[state * triggers.length + trigger];
+        return next == IGNORED ? state : next;
+    }
+
+    /**
+     * Fire a trigger on one machine
+     *
+     * @param column  The state column
+     * @param id      The machine id
+     * @param trigger The trigger code
+     * @return The new state code, or {@link #UNHANDLED} in which case the state is unchanged
+     */
+    public int fire(StateColumn column, int id, int trigger) {
+        int next = next(column.get(id), trigger);
+        if (next >= 0) {
+            column.set(id, next);
+        }
+        return next;
+    }
+
+    /**
+     * Fire a trigger on every machine of a column
+     *
+     * @param column  The state column
+     * @param trigger The trigger code
+     * @return The number of machines that did not handle the trigger
+     * @throws IllegalArgumentException if the trigger code is out of range
+     */
+    public int fireAll(StateColumn column, int trigger) {
+        checkTrigger(trigger);
+        if (column instanceof IntStateColumn) {
+            return fireAll(((IntStateColumn) column).array(), trigger);
+        }
+        if (column instanceof ByteStateColumn) {
+            return fireAll(((ByteStateColumn) column).array(), trigger);
+        }
+        int unhandled = 0;
+        for (int id = 0; id < column.size(); id++) {
+            if (fire(column, id, trigger) == UNHANDLED) {
+                unhandled++;
+            }
+        }
+        return unhandled;
+    }
+
+    /**
+     * Fire a trigger on the given machines of a column
+     *
+     * @param column  The state column
+     * @param ids     The machine ids
+     * @param trigger The trigger code
+     * @return The number of machines that did not handle the trigger
+     */
+    public int fireAll(StateColumn column, int[] ids, int trigger) {
+        int unhandled = 0;
+        for (int id : ids) {
+            if (fire(column, id, trigger) == UNHANDLED) {
+                unhandled++;
+            }
+        }
+        return unhandled;
+    }
+
+    private void checkTrigger(int trigger) {
+        if (trigger < 0 || trigger >= triggers.length) {
+            throw new IllegalArgumentException("Trigger code " + trigger + " is out of range [0, " + triggers.length + ")");
+        }
+    }
+
+    private int fireAll(int[] column, int trigger) {
+        final int width = triggers.length;
+        int unhandled = 0;
+        for (int id = 0; id < column.length; id++) {
+            int state = column[id];
+            int next = table[state * width + trigger];
+            if (next >= 0) {
+                column[id] = next;
+            } else if (next == UNHANDLED) {
+                unhandled++;
+            }
+        }
+        return unhandled;
+    }
+
+    private int fireAll(byte[] column, int trigger) {
+        final int width = triggers.length;
+        int unhandled = 0;
+        for (int id = 0; id < column.length; id++) {
+            int state = column[id] & 0xFF;
+            int next = table[state * width + trigger];
+            if (next >= 0) {
+                column[id] = (byte) next;
+            } else if (next == UNHANDLED) {
+                unhandled++;
+            }
+        }
+        return unhandled;
+    }
+
+    /**
+     * Determine if a state is equal to, or a substate of, another state
+     *
+     * @param state    The state code to test
+     * @param ancestor The state code to test for
+     * @return True if {@code state} is {@code ancestor} or one of its substates
+     */
+    public boolean isInState(int state, int ancestor) {
+        for (int s = state; s >= 0; s = parents[s]) {
+            if (s == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Allocate the smallest on-heap column that can hold all state codes of this engine
+     *
+     * @param size         The number of machines
+     * @param initialState The state all machines start in
+     * @return A new column
+     */
+    public StateColumn newColumn(int size, S initialState) {
+        StateColumn column = states.length <= ByteStateColumn.MAX_STATES ? new ByteStateColumn(size) : new IntStateColumn(size);
+        column.fill(stateCode(initialState));
+        return column;
+    }
+
+    public int stateCode(S state) {
+        Integer code = stateCodes.get(state);
+        if (code == null) {
+            throw new IllegalStateException("State '" + state + "' is not known to the compiled state machine");
+        }
+        return code;
+    }
+
+    public int triggerCode(T trigger) {
+        Integer code = triggerCodes.get(trigger);
+        if (code == null) {
+            throw new IllegalStateException("Trigger '" + trigger + "' is not known to the compiled state machine");
+        }
+        return code;
+    }
+
+    public S state(int code) {
+        return states[code];
+    }
+
+    public T trigger(int code) {
+        return triggers[code];
+    }
+
+    public int getStateCount() {
+        return states.length;
+    }
+
+    public int getTriggerCount() {
+        return triggers.length;
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.oxo42.stateless4j.compiled;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * State column stored off-heap in a direct {@link ByteBuffer}, using one byte per machine for
+ * up to 256 states and four bytes per machine otherwise
+ */
+public class DirectStateColumn implements StateColumn {
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final boolean wide;
+
+    /**
+     * Allocate a column
+     *
+     * @param size       The number of machines
+     * @param stateCount The number of distinct state codes to store
+     * @throws IllegalArgumentException if the size is negative, or too large for one buffer
+     */
+    public DirectStateColumn(int size, int stateCount) {
+        this.wide = stateCount > ByteStateColumn.MAX_STATES;
+        if (size < 0 || (wide && size > Integer.MAX_VALUE / 4)) {
+            throw new IllegalArgumentException(String.format(
+                    "A direct column holds at most %d machines with %d states: %d",
+                    wide ? Integer.MAX_VALUE / 4 : Integer.MAX_VALUE, stateCount, size));
+        }
+        this.size = size;
+        this.buffer = ByteBuffer.allocateDirect(wide ? size * 4 : size).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public int get(int id) {
+        checkIndex(id);
+        return wide ? buffer.getInt(id << 2) : buffer.get(id) & 0xFF;
+    }
+
+    @Override
+    public void set(int id, int state) {
+        checkIndex(id);
+        if (wide) {
+            buffer.putInt(id << 2, state);
+        } else {
+            buffer.put(id, (byte) state);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("id " + id + " is outside of [0, " + size + ")");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.oxo42.stateless4j.compiled;
+
+import java.util.Arrays;
+
+/**
+ * State column backed by an {@code int[]}
+ */
+public class IntStateColumn implements StateColumn {
+
+    private final int[] states;
+
+    public IntStateColumn(int size) {
+        this.states = new int[size];
+    }
+
+    @Override
+    public int get(int id) {
+        return states[id];
+    }
+
+    @Override
+    public void set(int id, int state) {
+        states[id] = state;
+    }
+
+    @Override
+    public int size() {
+        return states.length;
+    }
+
+    @Override
+    public void fill(int state) {
+        Arrays.fill(states, state);
+    }
+
+    int[] array() {
+        return states;
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.oxo42.stateless4j.compiled;
+
+/**
+ * Dense storage of state codes, one slot per machine, indexed by machine id
+ */
+public interface StateColumn {
+
+    /**
+     * The state code of a machine
+     *
+     * @param id The machine id
+     * @return The state code
+     */
+    int get(int id);
+
+    /**
+     * Set the state code of a machine
+     *
+     * @param id    The machine id
+     * @param state The state code
+     */
+    void set(int id, int state);
+
+    /**
+     * The number of slots
+     *
+     * @return The number of machines the column holds
+     */
+    int size();
+
+    /**
+     * Set all slots to the same state code
+     *
+     * @param state The state code
+     */
+    default void fill(int state) {
+        for (int id = 0; id < size(); id++) {
+            set(id, state);
+        }
+    }
+}
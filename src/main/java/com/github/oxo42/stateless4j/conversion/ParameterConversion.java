@@ -6,7 +6,7 @@ public final class ParameterConversion {
     }
 
     public static void validate(Object arg, Class<?> expected) {
-        if (arg != null && !expected.isAssignableFrom(arg.getClass())) {
+        if (arg != null && arg.getClass() != expected && !expected.isAssignableFrom(arg.getClass())) {
             throw new IllegalStateException(
                     String.format("The argument is of type %s but must be of type %s.", arg.getClass(), expected));
         }
@@ -0,0 +1,19 @@
+package com.github.oxo42.stateless4j.delegates;
+
+/**
+ * Receives deferred triggers that do not fit into the deferral queue of a state machine
+ *
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+@FunctionalInterface
+public interface DeferredTriggerStore<T, C> {
+
+    /**
+     * Stores a deferred trigger outside of the state machine
+     *
+     * @param trigger The deferred trigger
+     * @param context The context it was fired with
+     */
+    void store(T trigger, C context);
+}
@@ -0,0 +1,20 @@
+package com.github.oxo42.stateless4j.delegates;
+
+import com.github.oxo42.stateless4j.transitions.SelectorCondition;
+
+/**
+ * Extracts the part of a selector condition that a memoized selector depends on
+ *
+ * @param <K> The key type
+ */
+@FunctionalInterface
+public interface KeyExtractor<S, T, C, K> {
+
+    /**
+     * Extracts the key
+     *
+     * @param condition The condition the selector is called with
+     * @return The key; equal keys must select the same destination
+     */
+    K call(SelectorCondition<S, T, C> condition);
+}
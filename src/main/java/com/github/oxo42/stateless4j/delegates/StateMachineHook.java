@@ -0,0 +1,119 @@
+package com.github.oxo42.stateless4j.delegates;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.transitions.Transition;
+
+/**
+ * Observes the fires of a state machine, including their outcome and duration.
+ * <p>
+ * Unlike {@link Trace}, a hook also sees triggers that were ignored, deferred or not handled, the
+ * evaluation of guards and the execution of entry and exit actions. It can be switched off at
+ * runtime through {@link #isEnabled()}, in which case the state machine does not call it at all.
+ * Every callback has a default that does nothing.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ * @see com.github.oxo42.stateless4j.StateMachine#setHook(StateMachineHook)
+ */
+public interface StateMachineHook<S, T, C> {
+
+    /**
+     * Checked before every fire; the other callbacks of the fire are skipped if it returns false
+     *
+     * @return True if the hook wants to observe the next fire
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Called before a trigger is evaluated
+     *
+     * @param state   The current state
+     * @param trigger The trigger
+     * @param context The context
+     * @return A token passed back to {@link #fireCompleted} or {@link #fireFailed}, may be null
+     */
+    default Object fireStarted(S state, T trigger, C context) {
+        return null;
+    }
+
+    /**
+     * Called after a fire, including its exit, transition and entry actions, has completed
+     *
+     * @param token         The token returned by {@link #fireStarted}
+     * @param source        The state before the fire
+     * @param trigger       The trigger
+     * @param destination   The state after the fire
+     * @param result        How the trigger was handled
+     * @param durationNanos The duration of the fire in nanoseconds
+     */
+    default void fireCompleted(Object token, S source, T trigger, S destination, FireResult result, long durationNanos) {
+    }
+
+    /**
+     * Called when a fire throws
+     *
+     * @param token     The token returned by {@link #fireStarted}
+     * @param source    The state before the fire
+     * @param trigger   The trigger
+     * @param exception The exception, which is rethrown after the hook returns
+     */
+    default void fireFailed(Object token, S source, T trigger, RuntimeException exception) {
+    }
+
+    /**
+     * Called before the guard of a trigger behaviour is evaluated; unguarded behaviours are not reported
+     *
+     * @param state   The state the behaviour is configured on
+     * @param trigger The trigger
+     * @return A token passed back to {@link #guardCompleted}, may be null
+     */
+    default Object guardStarted(S state, T trigger) {
+        return null;
+    }
+
+    /**
+     * Called after a guard has been evaluated
+     *
+     * @param token   The token returned by {@link #guardStarted}
+     * @param state   The state the behaviour is configured on
+     * @param trigger The trigger
+     * @param met     The result of the guard
+     */
+    default void guardCompleted(Object token, S state, T trigger, boolean met) {
+    }
+
+    /**
+     * Called before the entry or exit actions of one state are executed; states without actions
+     * of the phase are not reported
+     *
+     * @param state      The state entered or exited
+     * @param phase      Whether entry or exit actions are executed
+     * @param transition The transition
+     * @return A token passed back to {@link #actionsCompleted}, may be null
+     */
+    default Object actionsStarted(S state, Phase phase, Transition<S, T, C> transition) {
+        return null;
+    }
+
+    /**
+     * Called after the entry or exit actions of one state have been executed
+     *
+     * @param token      The token returned by {@link #actionsStarted}
+     * @param state      The state entered or exited
+     * @param phase      Whether entry or exit actions were executed
+     * @param transition The transition
+     */
+    default void actionsCompleted(Object token, S state, Phase phase, Transition<S, T, C> transition) {
+    }
+
+    /**
+     * The actions of a state reported to {@link #actionsStarted}
+     */
+    enum Phase {
+        ENTRY,
+        EXIT
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.oxo42.stateless4j.delegates;
+
+import com.github.oxo42.stateless4j.StateMachineConfig;
+
+/**
+ * Maps the current state of a state machine onto a newly published configuration
+ * that does not configure that state
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+@FunctionalInterface
+public interface StateMigration<S, T, C> {
+
+    /**
+     * Choose the state to continue in
+     *
+     * @param state     The current state, unknown to the new configuration
+     * @param newConfig The new configuration
+     * @return The state to continue in
+     */
+    S migrate(S state, StateMachineConfig<S, T, C> newConfig);
+}
@@ -0,0 +1,27 @@
+package com.github.oxo42.stateless4j.explore;
+
+import com.github.oxo42.stateless4j.transitions.Transition;
+
+/**
+ * How the abstract context of an explored state machine changes, standing in for the actions that
+ * change the real context. Actions of the configuration are never executed by the explorer.
+ */
+@FunctionalInterface
+public interface ContextModel<S, T, C> {
+
+    /**
+     * Leaves the context unchanged
+     */
+    static <S, T, C> ContextModel<S, T, C> unchanged() {
+        return Transition::getContext;
+    }
+
+    /**
+     * The abstract context after a transition
+     *
+     * @param transition The transition, carrying the abstract context before it; the trigger is null
+     *                   for a completion transition
+     * @return The abstract context after the transition; must come from a finite domain
+     */
+    C next(Transition<S, T, C> transition);
+}
@@ -0,0 +1,69 @@
+package com.github.oxo42.stateless4j.explore;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A property violation together with a sequence of triggers that leads to it
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the abstract context
+ */
+public class Counterexample<S, T, C> {
+
+    private final ViolationKind kind;
+    private final StateNode<S, C> initial;
+    private final List<T> trace;
+    private final StateNode<S, C> node;
+    private final String message;
+
+    public Counterexample(ViolationKind kind, StateNode<S, C> initial, List<T> trace, StateNode<S, C> node, String message) {
+        this.kind = kind;
+        this.initial = initial;
+        this.trace = Collections.unmodifiableList(trace);
+        this.node = node;
+        this.message = message;
+    }
+
+    public ViolationKind getKind() {
+        return kind;
+    }
+
+    /**
+     * The node the trace starts from
+     *
+     * @return One of the initial nodes
+     */
+    public StateNode<S, C> getInitial() {
+        return initial;
+    }
+
+    /**
+     * The triggers fired from the initial node. For {@link ViolationKind#UNHANDLED_TRIGGER} and
+     * {@link ViolationKind#FIRE_FAILED} the last trigger is the one that failed.
+     *
+     * @return The triggers
+     */
+    public List<T> getTrace() {
+        return trace;
+    }
+
+    /**
+     * The node at which the violation was found
+     *
+     * @return The node
+     */
+    public StateNode<S, C> getNode() {
+        return node;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " at " + node + " after " + trace + " from " + initial + ": " + message;
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.oxo42.stateless4j.explore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of exploring a state space
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the abstract context
+ */
+public class ExplorationResult<S, T, C> {
+
+    private final long nodes;
+    private final long edges;
+    private final boolean complete;
+    private final long violations;
+    private final List<Counterexample<S, T, C>> counterexamples;
+
+    public ExplorationResult(long nodes, long edges, boolean complete, long violations,
+                             List<Counterexample<S, T, C>> counterexamples) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.complete = complete;
+        this.violations = violations;
+        this.counterexamples = Collections.unmodifiableList(new ArrayList<>(counterexamples));
+    }
+
+    /**
+     * The number of distinct nodes visited
+     *
+     * @return The node count
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * The number of transitions evaluated, including those leading to nodes visited before
+     *
+     * @return The edge count
+     */
+    public long getEdgeCount() {
+        return edges;
+    }
+
+    /**
+     * Determine if the whole reachable state space was explored
+     *
+     * @return False if exploration stopped at the node limit; properties of unexplored nodes are not checked
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * The number of violations found, which may exceed the number of counterexamples kept
+     *
+     * @return The violation count
+     */
+    public long getViolationCount() {
+        return violations;
+    }
+
+    public List<Counterexample<S, T, C>> getCounterexamples() {
+        return counterexamples;
+    }
+
+    /**
+     * The counterexamples of one kind
+     *
+     * @param kind The kind to select
+     * @return The matching counterexamples
+     */
+    public List<Counterexample<S, T, C>> getCounterexamples(ViolationKind kind) {
+        List<Counterexample<S, T, C>> result = new ArrayList<>();
+        for (Counterexample<S, T, C> counterexample : counterexamples) {
+            if (counterexample.getKind() == kind) {
+                result.add(counterexample);
+            }
+        }
+        return result;
+    }
+
+    public boolean hasViolations() {
+        return violations > 0;
+    }
+}
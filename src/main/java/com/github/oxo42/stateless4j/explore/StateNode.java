@@ -0,0 +1,52 @@
+package com.github.oxo42.stateless4j.explore;
+
+import java.util.Objects;
+
+/**
+ * A state paired with an abstract context: one node of the explored state space
+ *
+ * @param <S> The type used to represent the states
+ * @param <C> The type used to represent the abstract context
+ */
+public final class StateNode<S, C> {
+
+    private final S state;
+    private final C context;
+    private final int hash;
+
+    public StateNode(S state, C context) {
+        this.state = state;
+        this.context = context;
+        this.hash = 31 * Objects.hashCode(state) + Objects.hashCode(context);
+    }
+
+    public S getState() {
+        return state;
+    }
+
+    public C getContext() {
+        return context;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StateNode)) {
+            return false;
+        }
+        StateNode<?, ?> other = (StateNode<?, ?>) o;
+        return hash == other.hash && Objects.equals(state, other.state) && Objects.equals(context, other.context);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + state + ", " + context + ")";
+    }
+}
@@ -0,0 +1,385 @@
+package com.github.oxo42.stateless4j.explore;
+
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.StateRepresentation;
+import com.github.oxo42.stateless4j.transitions.SelectorCondition;
+import com.github.oxo42.stateless4j.transitions.Transition;
+import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Exhaustively explores the (state, abstract context) pairs a configuration can reach and checks
+ * properties on every node.
+ * <p>
+ * From every node each trigger of the alphabet is fired with the node's context: the guards and
+ * selectors of the configuration decide the destination, completion transitions are followed, and
+ * a {@link ContextModel} computes the next context. Actions are never executed. Deferred triggers
+ * leave the node unchanged; history and regions are not modelled, so a transition into a composite
+ * state enters the composite state itself.
+ * <p>
+ * Nodes are expanded by tasks on a work-stealing {@link ForkJoinPool}; a task splits off half of its
+ * pending nodes whenever it has more than {@link #SPLIT_THRESHOLD}. Visited nodes are deduplicated in
+ * a concurrent map that also records how each node was first reached, from which counterexample
+ * traces are rebuilt. Traces are valid but not necessarily shortest. Configurations must be frozen.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the abstract context
+ */
+public class StateSpaceExplorer<S, T, C> {
+
+    /**
+     * The number of pending nodes above which an exploration task hands half of them to a new task
+     */
+    public static final int SPLIT_THRESHOLD = 64;
+
+    private final StateMachineConfig<S, T, C> config;
+    private final List<T> triggers;
+    private ContextModel<S, T, C> contextModel = ContextModel.unchanged();
+    private Predicate<S> handledStates;
+    private final Map<String, BiPredicate<S, C>> invariants = new LinkedHashMap<>();
+    private Predicate<S> terminalStates;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private long maxNodes = Long.MAX_VALUE;
+    private int maxCounterexamples = 16;
+
+    /**
+     * Create an explorer
+     *
+     * @param config   The configuration to explore
+     * @param triggers The triggers fired from every node
+     * @throws IllegalStateException if the configuration is not frozen
+     */
+    public StateSpaceExplorer(StateMachineConfig<S, T, C> config, Collection<T> triggers) {
+        if (!config.isFrozen()) {
+            throw new IllegalStateException("The state space explorer requires a frozen configuration");
+        }
+        this.config = config;
+        this.triggers = new ArrayList<>(triggers);
+    }
+
+    public void setContextModel(ContextModel<S, T, C> contextModel) {
+        assert contextModel != null : "contextModel is null";
+        this.contextModel = contextModel;
+    }
+
+    /**
+     * Require that every trigger of the alphabet is handled in the matching states
+     *
+     * @param states Selects the states that must handle every trigger
+     */
+    public void requireHandled(Predicate<S> states) {
+        this.handledStates = states;
+    }
+
+    /**
+     * Require that a condition holds on every reachable node
+     *
+     * @param name      The name reported with violations
+     * @param invariant The condition
+     */
+    public void requireInvariant(String name, BiPredicate<S, C> invariant) {
+        invariants.put(name, invariant);
+    }
+
+    /**
+     * Require that a terminal state can be reached from every reachable node. Checked after the
+     * exploration, which then keeps the edges of the explored graph in memory.
+     *
+     * @param terminal Selects the terminal states
+     */
+    public void requireTerminalReachable(Predicate<S> terminal) {
+        this.terminalStates = terminal;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        assert pool != null : "pool is null";
+        this.pool = pool;
+    }
+
+    /**
+     * Stop exploring once this many nodes have been visited
+     *
+     * @param maxNodes The node limit
+     */
+    public void setMaxNodes(long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Limit the counterexamples kept; further violations are only counted
+     *
+     * @param maxCounterexamples The number of counterexamples to keep
+     */
+    public void setMaxCounterexamples(int maxCounterexamples) {
+        this.maxCounterexamples = maxCounterexamples;
+    }
+
+    /**
+     * Explore the state space reachable from an initial state
+     *
+     * @param initialState    The initial state
+     * @param initialContexts The abstract contexts the state machine may start with
+     * @return The result
+     */
+    public ExplorationResult<S, T, C> explore(S initialState, Collection<C> initialContexts) {
+        Run run = new Run();
+        List<StateNode<S, C>> initial = new ArrayList<>();
+        for (C context : initialContexts) {
+            StateNode<S, C> node = new StateNode<>(initialState, context);
+            if (run.visit(node, null, null)) {
+                initial.add(node);
+            }
+        }
+        pool.invoke(new Expand(null, run, initial));
+        if (terminalStates != null && run.complete()) {
+            run.checkTerminalReachable();
+        }
+        return new ExplorationResult<>(run.nodes.get(), run.edges.sum(), run.complete(), run.violations.sum(),
+                new ArrayList<>(run.counterexamples));
+    }
+
+    /**
+     * How a node was first reached, and where it leads once expanded
+     */
+    private static final class Visit<S, T, C> {
+
+        final StateNode<S, C> parent;
+        final T trigger;
+        volatile List<StateNode<S, C>> successors;
+
+        Visit(StateNode<S, C> parent, T trigger) {
+            this.parent = parent;
+            this.trigger = trigger;
+        }
+    }
+
+    /**
+     * The shared data of one exploration
+     */
+    private final class Run {
+
+        final ConcurrentHashMap<StateNode<S, C>, Visit<S, T, C>> visited = new ConcurrentHashMap<>();
+        final AtomicLong nodes = new AtomicLong();
+        final LongAdder edges = new LongAdder();
+        final LongAdder violations = new LongAdder();
+        final Queue<Counterexample<S, T, C>> counterexamples = new ConcurrentLinkedQueue<>();
+        final AtomicLong kept = new AtomicLong();
+        volatile boolean truncated;
+
+        boolean complete() {
+            return !truncated;
+        }
+
+        /**
+         * Record a node
+         *
+         * @return True if the node had not been visited before and must be expanded
+         */
+        boolean visit(StateNode<S, C> node, StateNode<S, C> parent, T trigger) {
+            if (visited.containsKey(node)) {
+                return false;
+            }
+            if (nodes.get() >= maxNodes) {
+                truncated = true;
+                return false;
+            }
+            if (visited.putIfAbsent(node, new Visit<>(parent, trigger)) != null) {
+                return false;
+            }
+            nodes.incrementAndGet();
+            for (Map.Entry<String, BiPredicate<S, C>> invariant : invariants.entrySet()) {
+                if (!invariant.getValue().test(node.getState(), node.getContext())) {
+                    report(ViolationKind.INVARIANT, node, null, "Invariant '" + invariant.getKey() + "' does not hold");
+                }
+            }
+            return true;
+        }
+
+        void report(ViolationKind kind, StateNode<S, C> node, T trigger, String message) {
+            violations.increment();
+            if (kept.incrementAndGet() > maxCounterexamples) {
+                return;
+            }
+            LinkedList<T> trace = new LinkedList<>();
+            if (kind == ViolationKind.UNHANDLED_TRIGGER || kind == ViolationKind.FIRE_FAILED
+                    || kind == ViolationKind.COMPLETION_CHAIN) {
+                trace.add(trigger);
+            }
+            StateNode<S, C> current = node;
+            for (Visit<S, T, C> visit = visited.get(current); visit != null && visit.parent != null; visit = visited.get(current)) {
+                trace.addFirst(visit.trigger);
+                current = visit.parent;
+            }
+            counterexamples.add(new Counterexample<>(kind, current, trace, node, message));
+        }
+
+        /**
+         * Expand a node, adding its newly visited successors to the pending nodes
+         */
+        void expand(StateNode<S, C> node, Deque<StateNode<S, C>> pending) {
+            S state = node.getState();
+            C context = node.getContext();
+            StateRepresentation<S, T, C> representation = config.getRepresentation(state);
+            List<StateNode<S, C>> successors = terminalStates == null ? null : new ArrayList<>();
+            for (T trigger : triggers) {
+                StateNode<S, C> next;
+                try {
+                    next = fire(representation, node, trigger);
+                } catch (RuntimeException e) {
+                    report(ViolationKind.FIRE_FAILED, node, trigger, String.valueOf(e.getMessage()));
+                    continue;
+                }
+                if (next == null) {
+                    if (handledStates != null && handledStates.test(state)) {
+                        report(ViolationKind.UNHANDLED_TRIGGER, node, trigger,
+                                "Trigger '" + trigger + "' is not handled in state '" + state + "' with context " + context);
+                    }
+                    continue;
+                }
+                edges.increment();
+                if (successors != null) {
+                    successors.add(next);
+                }
+                if (visit(next, node, trigger)) {
+                    pending.push(next);
+                }
+            }
+            Visit<S, T, C> visit = visited.get(node);
+            if (visit != null && successors != null) {
+                visit.successors = successors;
+            }
+        }
+
+        /**
+         * The node reached by firing a trigger, or null if it is not handled
+         */
+        private StateNode<S, C> fire(StateRepresentation<S, T, C> representation, StateNode<S, C> node, T trigger) {
+            if (representation == null) {
+                return null;
+            }
+            S state = node.getState();
+            C context = node.getContext();
+            SelectorCondition<S, T, C> condition = new SelectorCondition<>(state, trigger, context);
+            TriggerBehaviour<S, T, C> behaviour = representation.peekHandler(trigger, condition);
+            if (behaviour == null) {
+                return null;
+            }
+            if (behaviour.isDeferred()) {
+                return node;
+            }
+            S destination = behaviour.isInternal() ? state : behaviour.transitionsTo(condition);
+            C nextContext = contextModel.next(new Transition<>(state, destination, trigger, context));
+            return complete(node, trigger, destination, nextContext);
+        }
+
+        /**
+         * Follow the completion transitions of a destination
+         */
+        private StateNode<S, C> complete(StateNode<S, C> node, T trigger, S destination, C context) {
+            int remaining = config.getMaxCompletionChain();
+            for (StateRepresentation<S, T, C> current = config.getRepresentation(destination);
+                 current != null && !current.getCompletions().isEmpty();
+                 current = config.getRepresentation(destination)) {
+                SelectorCondition<S, T, C> condition = new SelectorCondition<>(destination, null, context);
+                TriggerBehaviour<S, T, C> completion = null;
+                for (TriggerBehaviour<S, T, C> candidate : current.getCompletions()) {
+                    if (candidate.isMatch(condition)) {
+                        completion = candidate;
+                        break;
+                    }
+                }
+                if (completion == null) {
+                    break;
+                }
+                if (remaining-- == 0) {
+                    report(ViolationKind.COMPLETION_CHAIN, node, trigger,
+                            "Completion transitions from state '" + destination + "' exceed the maximum chain length");
+                    break;
+                }
+                S next = completion.transitionsTo(condition);
+                context = contextModel.next(new Transition<>(destination, next, null, context));
+                destination = next;
+            }
+            return new StateNode<>(destination, context);
+        }
+
+        /**
+         * Mark every node from which a terminal node is reachable by walking the explored edges backwards,
+         * and report the others
+         */
+        void checkTerminalReachable() {
+            Map<StateNode<S, C>, List<StateNode<S, C>>> predecessors = new HashMap<>();
+            Deque<StateNode<S, C>> queue = new ArrayDeque<>();
+            Set<StateNode<S, C>> reaches = new HashSet<>();
+            for (Map.Entry<StateNode<S, C>, Visit<S, T, C>> entry : visited.entrySet()) {
+                StateNode<S, C> node = entry.getKey();
+                if (terminalStates.test(node.getState()) && reaches.add(node)) {
+                    queue.add(node);
+                }
+                List<StateNode<S, C>> successors = entry.getValue().successors;
+                if (successors != null) {
+                    for (StateNode<S, C> successor : successors) {
+                        predecessors.computeIfAbsent(successor, n -> new ArrayList<>()).add(node);
+                    }
+                }
+            }
+            while (!queue.isEmpty()) {
+                for (StateNode<S, C> predecessor : predecessors.getOrDefault(queue.poll(), Collections.emptyList())) {
+                    if (reaches.add(predecessor)) {
+                        queue.add(predecessor);
+                    }
+                }
+            }
+            for (StateNode<S, C> node : visited.keySet()) {
+                if (!reaches.contains(node)) {
+                    report(ViolationKind.NO_TERMINAL_REACHABLE, node, null, "No terminal state can be reached from " + node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Expands its nodes and the nodes discovered from them, handing off half of its pending nodes to
+     * a new task whenever it has too many
+     */
+    private final class Expand extends CountedCompleter<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Run run;
+        private final List<StateNode<S, C>> nodes;
+
+        Expand(CountedCompleter<?> parent, Run run, List<StateNode<S, C>> nodes) {
+            super(parent);
+            this.run = run;
+            this.nodes = nodes;
+        }
+
+        @Override
+        public void compute() {
+            Deque<StateNode<S, C>> pending = new ArrayDeque<>(nodes);
+            while (!pending.isEmpty()) {
+                run.expand(pending.pop(), pending);
+                if (pending.size() > SPLIT_THRESHOLD) {
+                    List<StateNode<S, C>> half = new ArrayList<>(pending.size() / 2);
+                    for (int i = pending.size() / 2; i > 0; i--) {
+                        half.add(pending.pollLast());
+                    }
+                    addToPendingCount(1);
+                    new Expand(this, run, half).fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.oxo42.stateless4j.explore;
+
+/**
+ * The property a {@link Counterexample} violates
+ */
+public enum ViolationKind {
+
+    /**
+     * A trigger is not handled in a state that is required to handle all triggers
+     */
+    UNHANDLED_TRIGGER,
+
+    /**
+     * A reachable node does not satisfy an invariant
+     */
+    INVARIANT,
+
+    /**
+     * A guard or selector threw, for example because several guards accepted
+     */
+    FIRE_FAILED,
+
+    /**
+     * Completion transitions exceed the maximum chain length of the configuration
+     */
+    COMPLETION_CHAIN,
+
+    /**
+     * No terminal state can be reached from a reachable node
+     */
+    NO_TERMINAL_REACHABLE
+}
@@ -0,0 +1,38 @@
+package com.github.oxo42.stateless4j.flow;
+
+/**
+ * A trigger addressed to one keyed machine, the input of a {@link StateMachineProcessor}
+ *
+ * @param <K> The type used to identify machines
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public final class KeyedTrigger<K, T, C> {
+
+    private final K key;
+    private final T trigger;
+    private final C context;
+
+    public KeyedTrigger(K key, T trigger, C context) {
+        this.key = key;
+        this.trigger = trigger;
+        this.context = context;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public T getTrigger() {
+        return trigger;
+    }
+
+    public C getContext() {
+        return context;
+    }
+
+    @Override
+    public String toString() {
+        return key + ": " + trigger;
+    }
+}
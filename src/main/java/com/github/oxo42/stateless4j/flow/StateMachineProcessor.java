@@ -0,0 +1,234 @@
+package com.github.oxo42.stateless4j.flow;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.KeyedStateMachine;
+import com.github.oxo42.stateless4j.transitions.Transition;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Flow.Processor} that fires {@link KeyedTrigger keyed triggers} into a
+ * {@link KeyedStateMachine} and publishes the resulting transitions.
+ * <p>
+ * Triggers are only fired while the subscriber has outstanding demand, so a slow subscriber holds
+ * back the upstream publisher. Upstream is asked for {@code prefetch} items up front and then
+ * replenished in batches of three quarters of that, rather than one item at a time. A trigger the
+ * current state does not handle, or that causes no state change, publishes nothing; an exception
+ * thrown by an action cancels upstream and is passed to the subscriber.
+ * <p>
+ * The machine is only touched by the processor while it drains, one thread at a time. This class
+ * needs Java 9 or later at runtime; the rest of the library does not depend on it.
+ *
+ * @param <K> The type used to identify machines
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class StateMachineProcessor<K, S, T, C>
+        implements Flow.Processor<KeyedTrigger<K, T, C>, Transition<S, T, C>> {
+
+    /**
+     * The default number of items requested from upstream ahead of processing
+     */
+    public static final int DEFAULT_PREFETCH = 256;
+
+    private final KeyedStateMachine<K, S, T, C> machine;
+    private final int prefetch;
+    private final int limit;
+    private final Queue<KeyedTrigger<K, T, C>> inputs = new ConcurrentLinkedQueue<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super Transition<S, T, C>> downstream;
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+    private volatile Throwable protocolError;
+    private boolean terminated;
+    private int consumed;
+
+    public StateMachineProcessor(KeyedStateMachine<K, S, T, C> machine) {
+        this(machine, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Construct a processor
+     *
+     * @param machine  The machines to fire triggers into
+     * @param prefetch The number of items requested from upstream ahead of processing
+     */
+    public StateMachineProcessor(KeyedStateMachine<K, S, T, C> machine, int prefetch) {
+        assert machine != null : "machine is null";
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("prefetch must be positive");
+        }
+        this.machine = machine;
+        this.prefetch = prefetch;
+        this.limit = Math.max(1, prefetch - (prefetch >> 2));
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(KeyedTrigger<K, T, C> item) {
+        inputs.offer(item);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Transition<S, T, C>> subscriber) {
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Processor supports a single subscriber"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    Flow.Subscription subscription = upstream;
+                    if (subscription != null) {
+                        subscription.cancel();
+                    }
+                    protocolError = new IllegalArgumentException("Non-positive request: " + n);
+                    drain();
+                    return;
+                }
+                addRequest(n);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                Flow.Subscription subscription = upstream;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+        });
+        drain();
+    }
+
+    private void addRequest(long n) {
+        while (true) {
+            long current = requested.get();
+            long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            if (requested.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        while (true) {
+            Flow.Subscriber<? super Transition<S, T, C>> subscriber = downstream;
+            if (subscriber != null && !terminated) {
+                emit(subscriber);
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void emit(Flow.Subscriber<? super Transition<S, T, C>> subscriber) {
+        if (protocolError != null) {
+            inputs.clear();
+            terminated = true;
+            subscriber.onError(protocolError);
+            return;
+        }
+        long demand = requested.get();
+        long emitted = 0;
+        while (emitted != demand) {
+            if (cancelled) {
+                inputs.clear();
+                return;
+            }
+            KeyedTrigger<K, T, C> item = inputs.poll();
+            if (item == null) {
+                break;
+            }
+            if (++consumed == limit) {
+                consumed = 0;
+                upstream.request(limit);
+            }
+            Transition<S, T, C> transition;
+            try {
+                transition = fire(item);
+            } catch (RuntimeException e) {
+                upstream.cancel();
+                inputs.clear();
+                terminated = true;
+                subscriber.onError(e);
+                return;
+            }
+            if (transition != null) {
+                subscriber.onNext(transition);
+                emitted++;
+            }
+        }
+        if (emitted != 0 && demand != Long.MAX_VALUE) {
+            requested.addAndGet(-emitted);
+        }
+        if (done && inputs.isEmpty() && !cancelled) {
+            terminated = true;
+            Throwable throwable = error;
+            if (throwable != null) {
+                subscriber.onError(throwable);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+    }
+
+    private Transition<S, T, C> fire(KeyedTrigger<K, T, C> item) {
+        S source = machine.getState(item.getKey());
+        if (machine.tryFire(item.getKey(), item.getTrigger(), item.getContext()) != FireResult.TRANSITIONED) {
+            return null;
+        }
+        return new Transition<>(source, machine.getState(item.getKey()), item.getTrigger(), item.getContext());
+    }
+}
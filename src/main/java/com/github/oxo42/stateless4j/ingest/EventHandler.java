@@ -0,0 +1,45 @@
+package com.github.oxo42.stateless4j.ingest;
+
+import com.github.oxo42.stateless4j.KeyedStateMachine;
+import com.github.oxo42.stateless4j.StateMachine;
+
+/**
+ * Consumes the events drained from a {@link RingBuffer}
+ *
+ * @param <K> The type used to identify machines
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+@FunctionalInterface
+public interface EventHandler<K, T, C> {
+
+    /**
+     * Handle one event
+     *
+     * @param key        The machine key
+     * @param trigger    The trigger
+     * @param context    The context
+     * @param endOfBatch True for the last event of the batch currently available
+     */
+    void onEvent(K key, T trigger, C context, boolean endOfBatch);
+
+    /**
+     * A handler firing every event on the machine identified by its key
+     *
+     * @param machine The engine
+     * @return The handler
+     */
+    static <K, T, C> EventHandler<K, T, C> firing(KeyedStateMachine<K, ?, T, C> machine) {
+        return (key, trigger, context, endOfBatch) -> machine.fire(key, trigger, context);
+    }
+
+    /**
+     * A handler firing every event on one machine, ignoring the key
+     *
+     * @param machine The machine
+     * @return The handler
+     */
+    static <K, T, C> EventHandler<K, T, C> firing(StateMachine<?, T, C> machine) {
+        return (key, trigger, context, endOfBatch) -> machine.fire(trigger, context);
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.oxo42.stateless4j.ingest;
+
+/**
+ * A reusable entry of a {@link RingBuffer}: the machine key, trigger and context of one event
+ *
+ * @param <K> The type used to identify machines
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public final class EventSlot<K, T, C> {
+
+    private K key;
+    private T trigger;
+    private C context;
+
+    EventSlot() {
+    }
+
+    public void set(K key, T trigger, C context) {
+        this.key = key;
+        this.trigger = trigger;
+        this.context = context;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public T getTrigger() {
+        return trigger;
+    }
+
+    public C getContext() {
+        return context;
+    }
+
+    void clear() {
+        key = null;
+        trigger = null;
+        context = null;
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.oxo42.stateless4j.ingest;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Drains a {@link RingBuffer} on a dedicated thread, handing every batch of published events to an
+ * {@link EventHandler}, typically one {@link EventHandler#firing firing} them into a state machine.
+ * <p>
+ * The consumer takes everything published since its last batch in one go and releases the slots
+ * after the batch, so under load it fires in bursts without touching shared state per event.
+ * Exceptions thrown by the handler are counted and passed to the {@link #setErrorHandler error
+ * handler}; the consumer carries on with the next event, also if the error handler itself throws.
+ *
+ * @param <K> The type used to identify machines
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class IngestionPipeline<K, T, C> implements AutoCloseable {
+
+    private final RingBuffer<K, T, C> ringBuffer;
+    private final EventHandler<K, T, C> handler;
+    private final WaitStrategy waitStrategy;
+    private final Thread thread;
+    private volatile Consumer<RuntimeException> errorHandler = e -> { };
+    private volatile boolean running = true;
+    // written by the consumer thread only
+    private volatile long eventCount;
+    private volatile long batchCount;
+    private volatile long failedCount;
+    private volatile int maxBatchSize;
+
+    /**
+     * Construct a pipeline and start its consumer on a daemon thread
+     *
+     * @param ringBuffer   The ring buffer producers publish to
+     * @param handler      Receives the events
+     * @param waitStrategy How the consumer waits for events
+     */
+    public IngestionPipeline(RingBuffer<K, T, C> ringBuffer, EventHandler<K, T, C> handler, WaitStrategy waitStrategy) {
+        this(ringBuffer, handler, waitStrategy, runnable -> {
+            Thread thread = new Thread(runnable, "stateless4j-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Construct a pipeline and start its consumer
+     *
+     * @param ringBuffer    The ring buffer producers publish to
+     * @param handler       Receives the events
+     * @param waitStrategy  How the consumer waits for events
+     * @param threadFactory Creates the consumer thread
+     */
+    public IngestionPipeline(RingBuffer<K, T, C> ringBuffer, EventHandler<K, T, C> handler, WaitStrategy waitStrategy,
+                             ThreadFactory threadFactory) {
+        assert ringBuffer != null : "ringBuffer is null";
+        assert handler != null : "handler is null";
+        assert waitStrategy != null : "waitStrategy is null";
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+        this.waitStrategy = waitStrategy;
+        this.thread = threadFactory.newThread(this::consume);
+        this.thread.start();
+    }
+
+    private void consume() {
+        long next = ringBuffer.getConsumed() + 1;
+        int attempt = 0;
+        while (true) {
+            long available = ringBuffer.highestPublished(next, ringBuffer.getClaimed());
+            if (available < next) {
+                if (!running && ringBuffer.getClaimed() < next) {
+                    return;
+                }
+                waitStrategy.idle(attempt++);
+                continue;
+            }
+            attempt = 0;
+            for (long sequence = next; sequence <= available; sequence++) {
+                EventSlot<K, T, C> slot = ringBuffer.get(sequence);
+                try {
+                    handler.onEvent(slot.getKey(), slot.getTrigger(), slot.getContext(), sequence == available);
+                } catch (RuntimeException e) {
+                    failedCount++;
+                    try {
+                        errorHandler.accept(e);
+                    } catch (RuntimeException ignored) {
+                        // the failure is counted; a failing handler must not stop the consumer
+                    }
+                } finally {
+                    slot.clear();
+                }
+            }
+            int batchSize = (int) (available - next + 1);
+            eventCount += batchSize;
+            batchCount++;
+            if (batchSize > maxBatchSize) {
+                maxBatchSize = batchSize;
+            }
+            ringBuffer.setConsumed(available);
+            next = available + 1;
+        }
+    }
+
+    /**
+     * Wait until every event published before this call has been handled
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        long target = ringBuffer.getClaimed();
+        while (ringBuffer.getConsumed() < target) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (!thread.isAlive()) {
+                throw new IllegalStateException("Pipeline is closed");
+            }
+            LockSupport.parkNanos(WaitStrategy.PARK_NANOS);
+        }
+    }
+
+    /**
+     * Receives exceptions thrown by the handler, on the consumer thread
+     *
+     * @param errorHandler The handler
+     */
+    public void setErrorHandler(Consumer<RuntimeException> errorHandler) {
+        assert errorHandler != null : "errorHandler is null";
+        this.errorHandler = errorHandler;
+    }
+
+    public RingBuffer<K, T, C> getRingBuffer() {
+        return ringBuffer;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Handle the events already published and stop the consumer. Producers must have stopped
+     * publishing. If the calling thread is interrupted while waiting for the consumer, it stops
+     * waiting and keeps its interrupt status; the consumer still handles the published events.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.oxo42.stateless4j.ingest;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated ring of {@link EventSlot event slots} shared by many producers and a single consumer.
+ * <p>
+ * A producer claims a sequence with {@link #next()}, fills the slot returned by {@link #get(long)} and
+ * makes it visible with {@link #publish(long)}; {@link #publish(Object, Object, Object)} does all three.
+ * Slots are reused, so publishing allocates nothing. A producer that laps the consumer waits with the
+ * buffer's {@link WaitStrategy}.
+ *
+ * @param <K> The type used to identify machines
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class RingBuffer<K, T, C> {
+
+    private final EventSlot<K, T, C>[] slots;
+    private final int mask;
+    private final int shift;
+    // the lap in which each slot was last published
+    private final AtomicIntegerArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final WaitStrategy waitStrategy;
+    private volatile long consumed = -1;
+
+    /**
+     * Construct a ring buffer
+     *
+     * @param capacity     The number of slots, a power of two
+     * @param waitStrategy How producers wait for a free slot
+     */
+    @SuppressWarnings("unchecked")
+    public RingBuffer(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two");
+        }
+        assert waitStrategy != null : "waitStrategy is null";
+        this.slots = (EventSlot<K, T, C>[]) new EventSlot<?, ?, ?>[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new EventSlot<>();
+        }
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfTrailingZeros(capacity);
+        this.published = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Claim the next sequence, waiting while the ring is full
+     *
+     * @return The claimed sequence, which must be published
+     */
+    public long next() {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        for (int attempt = 0; wrapPoint > consumed; attempt++) {
+            waitStrategy.idle(attempt);
+        }
+        return sequence;
+    }
+
+    /**
+     * Claim the next sequence if a slot is free
+     *
+     * @return The claimed sequence, which must be published, or -1 if the ring is full
+     */
+    public long tryNext() {
+        while (true) {
+            long current = claimed.get();
+            long sequence = current + 1;
+            if (sequence - slots.length > consumed) {
+                return -1;
+            }
+            if (claimed.compareAndSet(current, sequence)) {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * The slot of a claimed sequence
+     *
+     * @param sequence The sequence
+     * @return The slot to fill before publishing
+     */
+    public EventSlot<K, T, C> get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Make a filled slot visible to the consumer
+     *
+     * @param sequence The claimed sequence
+     */
+    public void publish(long sequence) {
+        published.lazySet((int) sequence & mask, (int) (sequence >>> shift));
+    }
+
+    /**
+     * Claim, fill and publish a slot, waiting while the ring is full
+     *
+     * @param key     The machine key
+     * @param trigger The trigger
+     * @param context The context
+     */
+    public void publish(K key, T trigger, C context) {
+        long sequence = next();
+        get(sequence).set(key, trigger, context);
+        publish(sequence);
+    }
+
+    /**
+     * Claim, fill and publish a slot if one is free
+     *
+     * @param key     The machine key
+     * @param trigger The trigger
+     * @param context The context
+     * @return False if the ring is full
+     */
+    public boolean tryPublish(K key, T trigger, C context) {
+        long sequence = tryNext();
+        if (sequence < 0) {
+            return false;
+        }
+        get(sequence).set(key, trigger, context);
+        publish(sequence);
+        return true;
+    }
+
+    boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == (int) (sequence >>> shift);
+    }
+
+    /**
+     * The highest sequence up to which all slots from {@code from} are published
+     */
+    long highestPublished(long from, long to) {
+        for (long sequence = from; sequence <= to; sequence++) {
+            if (!isPublished(sequence)) {
+                return sequence - 1;
+            }
+        }
+        return to;
+    }
+
+    long getClaimed() {
+        return claimed.get();
+    }
+
+    long getConsumed() {
+        return consumed;
+    }
+
+    void setConsumed(long sequence) {
+        consumed = sequence;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return The number of claimed slots the consumer has not finished with
+     */
+    public int getPending() {
+        return (int) (claimed.get() - consumed);
+    }
+}
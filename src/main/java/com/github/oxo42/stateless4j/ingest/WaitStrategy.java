@@ -0,0 +1,57 @@
+package com.github.oxo42.stateless4j.ingest;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits on a {@link RingBuffer}: a consumer for events to be published, a producer for
+ * a free slot. Trades latency against CPU use.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spin without yielding; lowest latency, keeps a core busy
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int attempt) {
+            // spin
+        }
+    },
+
+    /**
+     * Spin for a while, then yield the processor to other threads
+     */
+    YIELD {
+        @Override
+        public void idle(int attempt) {
+            if (attempt >= SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    },
+
+    /**
+     * Spin, yield, then park for {@link #PARK_NANOS} at a time; lowest CPU use, highest latency
+     */
+    PARK {
+        @Override
+        public void idle(int attempt) {
+            if (attempt >= SPIN_TRIES + YIELD_TRIES) {
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (attempt >= SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    };
+
+    static final int SPIN_TRIES = 100;
+    static final int YIELD_TRIES = 100;
+    public static final long PARK_NANOS = 50_000;
+
+    /**
+     * Wait once
+     *
+     * @param attempt The number of times the caller has waited for the same condition, starting at 0
+     */
+    public abstract void idle(int attempt);
+}
@@ -0,0 +1,26 @@
+package com.github.oxo42.stateless4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.github.oxo42.stateless4j.Action")
+@Label("State Machine Actions")
+@Category("State Machine")
+@Description("Execution of the entry or exit actions of a state")
+@StackTrace(false)
+public class ActionEvent extends Event {
+
+    @Label("State")
+    String state;
+
+    @Label("Phase")
+    @Description("ENTRY or EXIT")
+    String phase;
+
+    @Label("Trigger")
+    String trigger;
+}
@@ -0,0 +1,27 @@
+package com.github.oxo42.stateless4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.oxo42.stateless4j.Fire")
+@Label("State Machine Fire")
+@Category("State Machine")
+@Description("A trigger fired on a state machine, including its guards and actions")
+public class FireEvent extends Event {
+
+    @Label("State")
+    String state;
+
+    @Label("Trigger")
+    String trigger;
+
+    @Label("Destination")
+    String destination;
+
+    @Label("Result")
+    @Description("The FireResult, or the class of the exception the fire threw")
+    String result;
+}
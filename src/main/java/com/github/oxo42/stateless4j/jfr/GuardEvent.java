@@ -0,0 +1,25 @@
+package com.github.oxo42.stateless4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.github.oxo42.stateless4j.Guard")
+@Label("State Machine Guard")
+@Category("State Machine")
+@Description("Evaluation of the guard of a trigger behaviour")
+@StackTrace(false)
+public class GuardEvent extends Event {
+
+    @Label("State")
+    String state;
+
+    @Label("Trigger")
+    String trigger;
+
+    @Label("Met")
+    boolean met;
+}
@@ -0,0 +1,135 @@
+package com.github.oxo42.stateless4j.jfr;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.delegates.StateMachineHook;
+import com.github.oxo42.stateless4j.transitions.Transition;
+import jdk.jfr.EventType;
+
+/**
+ * A {@link StateMachineHook} emitting Java Flight Recorder events for fires, transitions, guard
+ * evaluations, entry and exit actions and unhandled triggers.
+ * <p>
+ * Events are only created for event types enabled in a running recording; while none is, the hook
+ * reports itself disabled and the state machine skips it entirely. The hook holds no state and one
+ * instance can be shared by all state machines. Needs a JDK with the {@code jdk.jfr} module.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class JfrHook<S, T, C> implements StateMachineHook<S, T, C> {
+
+    private static final EventType FIRE = EventType.getEventType(FireEvent.class);
+    private static final EventType TRANSITION = EventType.getEventType(TransitionEvent.class);
+    private static final EventType GUARD = EventType.getEventType(GuardEvent.class);
+    private static final EventType ACTION = EventType.getEventType(ActionEvent.class);
+    private static final EventType UNHANDLED = EventType.getEventType(UnhandledTriggerEvent.class);
+
+    @Override
+    public boolean isEnabled() {
+        return FIRE.isEnabled() || TRANSITION.isEnabled() || GUARD.isEnabled() || ACTION.isEnabled()
+                || UNHANDLED.isEnabled();
+    }
+
+    @Override
+    public Object fireStarted(S state, T trigger, C context) {
+        if (!FIRE.isEnabled()) {
+            return null;
+        }
+        FireEvent event = new FireEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void fireCompleted(Object token, S source, T trigger, S destination, FireResult result, long durationNanos) {
+        if (token != null) {
+            FireEvent event = (FireEvent) token;
+            event.end();
+            if (event.shouldCommit()) {
+                event.state = String.valueOf(source);
+                event.trigger = String.valueOf(trigger);
+                event.destination = String.valueOf(destination);
+                event.result = result.name();
+                event.commit();
+            }
+        }
+        if (result == FireResult.TRANSITIONED && TRANSITION.isEnabled()) {
+            TransitionEvent event = new TransitionEvent();
+            event.source = String.valueOf(source);
+            event.trigger = String.valueOf(trigger);
+            event.destination = String.valueOf(destination);
+            event.commit();
+        } else if (result == FireResult.UNHANDLED && UNHANDLED.isEnabled()) {
+            UnhandledTriggerEvent event = new UnhandledTriggerEvent();
+            event.state = String.valueOf(source);
+            event.trigger = String.valueOf(trigger);
+            event.commit();
+        }
+    }
+
+    @Override
+    public void fireFailed(Object token, S source, T trigger, RuntimeException exception) {
+        if (token == null) {
+            return;
+        }
+        FireEvent event = (FireEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.state = String.valueOf(source);
+            event.trigger = String.valueOf(trigger);
+            event.result = exception.getClass().getName();
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object guardStarted(S state, T trigger) {
+        if (!GUARD.isEnabled()) {
+            return null;
+        }
+        GuardEvent event = new GuardEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void guardCompleted(Object token, S state, T trigger, boolean met) {
+        if (token == null) {
+            return;
+        }
+        GuardEvent event = (GuardEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.state = String.valueOf(state);
+            event.trigger = String.valueOf(trigger);
+            event.met = met;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object actionsStarted(S state, Phase phase, Transition<S, T, C> transition) {
+        if (!ACTION.isEnabled()) {
+            return null;
+        }
+        ActionEvent event = new ActionEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void actionsCompleted(Object token, S state, Phase phase, Transition<S, T, C> transition) {
+        if (token == null) {
+            return;
+        }
+        ActionEvent event = (ActionEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.state = String.valueOf(state);
+            event.phase = phase.name();
+            event.trigger = String.valueOf(transition.getTrigger());
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.oxo42.stateless4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.oxo42.stateless4j.Transition")
+@Label("State Machine Transition")
+@Category("State Machine")
+@Description("A state machine moved from one state to another")
+public class TransitionEvent extends Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Trigger")
+    String trigger;
+
+    @Label("Destination")
+    String destination;
+}
@@ -0,0 +1,20 @@
+package com.github.oxo42.stateless4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.oxo42.stateless4j.UnhandledTrigger")
+@Label("State Machine Unhandled Trigger")
+@Category("State Machine")
+@Description("A trigger the current state of a state machine does not handle")
+public class UnhandledTriggerEvent extends Event {
+
+    @Label("State")
+    String state;
+
+    @Label("Trigger")
+    String trigger;
+}
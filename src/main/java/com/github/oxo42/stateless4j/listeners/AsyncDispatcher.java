@@ -0,0 +1,222 @@
+package com.github.oxo42.stateless4j.listeners;
+
+import com.github.oxo42.stateless4j.transitions.Transition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Delivers transitions to asynchronous listeners on a single background thread.
+ * <p>
+ * Firing threads only append to a bounded queue; the dispatcher drains it in batches of up to
+ * {@code batchSize} transitions and delivers them in the order they were queued. When the queue is
+ * full the transition is dropped and counted rather than slowing down the firing thread. Exceptions
+ * thrown by listeners are counted and passed to the {@link #setErrorHandler error handler}; errors
+ * thrown by listeners are only counted. Neither stops the dispatcher, nor does an error handler that
+ * throws.
+ */
+public class AsyncDispatcher implements AutoCloseable {
+
+    /**
+     * The default number of transitions that can wait for delivery
+     */
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    /**
+     * The default maximum number of transitions delivered per batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final long POLL_MILLIS = 100;
+
+    private static volatile AsyncDispatcher shared;
+
+    private final BlockingQueue<Delivery> queue;
+    private final int batchSize;
+    private final Thread thread;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger enqueuing = new AtomicInteger();
+    private volatile Consumer<RuntimeException> errorHandler = e -> { };
+    private volatile boolean running = true;
+    // set by close() once no enqueue is in flight any more; the dispatcher stops when it is set and the queue is empty
+    private volatile boolean stopped;
+    // written by the dispatcher thread only
+    private volatile long delivered;
+    private volatile long batches;
+    private volatile long failed;
+
+    public AsyncDispatcher() {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Construct a dispatcher and start its daemon thread
+     *
+     * @param capacity  The number of transitions that can wait for delivery
+     * @param batchSize The maximum number of transitions delivered per batch
+     */
+    public AsyncDispatcher(int capacity, int batchSize) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("capacity and batchSize must be positive");
+        }
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.thread = new Thread(this::dispatch, "stateless4j-listeners");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * The dispatcher used by buses that have none set, started on first use. It lives as long as the
+     * JVM and must not be closed.
+     *
+     * @return The shared dispatcher
+     */
+    public static AsyncDispatcher shared() {
+        AsyncDispatcher result = shared;
+        if (result == null) {
+            synchronized (AsyncDispatcher.class) {
+                result = shared;
+                if (result == null) {
+                    result = new AsyncDispatcher();
+                    shared = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    void enqueue(TransitionListenerBus<?, ?, ?> bus, Transition<?, ?, ?> transition) {
+        // counted before running is checked, so that close() waits for this enqueue to finish
+        enqueuing.incrementAndGet();
+        try {
+            if (running && queue.offer(new Delivery(bus, transition))) {
+                enqueued.incrementAndGet();
+            } else {
+                dropped.incrementAndGet();
+            }
+        } finally {
+            enqueuing.decrementAndGet();
+        }
+    }
+
+    private void dispatch() {
+        List<Delivery> batch = new ArrayList<>(batchSize);
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                Delivery first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            for (Delivery delivery : batch) {
+                try {
+                    delivery.bus.deliverAsync(delivery.transition);
+                } catch (RuntimeException e) {
+                    failed++;
+                    try {
+                        errorHandler.accept(e);
+                    } catch (RuntimeException ignored) {
+                        // the failure is counted; a failing handler must not stop the dispatcher
+                    }
+                } catch (Throwable e) {
+                    // an Error thrown by a listener must not stop the dispatcher shared by every bus
+                    failed++;
+                }
+            }
+            delivered += batch.size();
+            batches++;
+            batch.clear();
+        }
+    }
+
+    /**
+     * Wait until every transition queued before this call has been delivered
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        long target = enqueued.get();
+        while (delivered < target) {
+            if (!thread.isAlive()) {
+                throw new IllegalStateException("Dispatcher is closed");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Receives exceptions thrown by listeners, on the dispatcher thread
+     *
+     * @param errorHandler The handler
+     */
+    public void setErrorHandler(Consumer<RuntimeException> errorHandler) {
+        assert errorHandler != null : "errorHandler is null";
+        this.errorHandler = errorHandler;
+    }
+
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    public long getBatchCount() {
+        return batches;
+    }
+
+    /**
+     * @return Transitions not queued because the queue was full or the dispatcher closed
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Deliver the transitions already queued and stop the dispatcher thread. Transitions queued
+     * concurrently are either dropped and counted or delivered. If the calling thread is interrupted
+     * while waiting for the dispatcher, it stops waiting and keeps its interrupt status; the
+     * dispatcher still delivers the queued transitions.
+     */
+    @Override
+    public void close() {
+        running = false;
+        while (enqueuing.get() != 0) {
+            Thread.yield();
+        }
+        stopped = true;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Delivery {
+
+        final TransitionListenerBus<?, ?, ?> bus;
+        final Transition<?, ?, ?> transition;
+
+        Delivery(TransitionListenerBus<?, ?, ?> bus, Transition<?, ?, ?> transition) {
+            this.bus = bus;
+            this.transition = transition;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.oxo42.stateless4j.listeners;
+
+/**
+ * When a {@link TransitionListener} is called
+ */
+public enum DispatchMode {
+
+    /**
+     * On the firing thread, before fire returns
+     */
+    SYNC,
+
+    /**
+     * Later, on the thread of an {@link AsyncDispatcher}
+     */
+    ASYNC
+}
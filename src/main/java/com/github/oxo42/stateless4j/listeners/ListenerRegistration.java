@@ -0,0 +1,12 @@
+package com.github.oxo42.stateless4j.listeners;
+
+/**
+ * Handle of a listener added to a {@link TransitionListenerBus}
+ */
+public interface ListenerRegistration {
+
+    /**
+     * Remove the listener. Asynchronous transitions already queued for it may still be delivered.
+     */
+    void remove();
+}
@@ -0,0 +1,40 @@
+package com.github.oxo42.stateless4j.listeners;
+
+import com.github.oxo42.stateless4j.transitions.Transition;
+
+/**
+ * Selects the transitions a {@link TransitionListener} is interested in
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+@FunctionalInterface
+public interface TransitionFilter<S, T, C> {
+
+    boolean matches(Transition<S, T, C> transition);
+
+    default TransitionFilter<S, T, C> and(TransitionFilter<S, T, C> other) {
+        return transition -> matches(transition) && other.matches(transition);
+    }
+
+    default TransitionFilter<S, T, C> or(TransitionFilter<S, T, C> other) {
+        return transition -> matches(transition) || other.matches(transition);
+    }
+
+    static <S, T, C> TransitionFilter<S, T, C> any() {
+        return transition -> true;
+    }
+
+    static <S, T, C> TransitionFilter<S, T, C> trigger(T trigger) {
+        return transition -> trigger.equals(transition.getTrigger());
+    }
+
+    static <S, T, C> TransitionFilter<S, T, C> entering(S state) {
+        return transition -> state.equals(transition.getDestination());
+    }
+
+    static <S, T, C> TransitionFilter<S, T, C> leaving(S state) {
+        return transition -> state.equals(transition.getSource());
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.oxo42.stateless4j.listeners;
+
+import com.github.oxo42.stateless4j.transitions.Transition;
+
+/**
+ * Receives the transitions performed by state machines
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+@FunctionalInterface
+public interface TransitionListener<S, T, C> {
+
+    /**
+     * Called after a transition, once the destination state has been entered
+     *
+     * @param transition The transition
+     */
+    void onTransition(Transition<S, T, C> transition);
+}
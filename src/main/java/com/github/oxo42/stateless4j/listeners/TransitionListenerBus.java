@@ -0,0 +1,117 @@
+package com.github.oxo42.stateless4j.listeners;
+
+import com.github.oxo42.stateless4j.transitions.Transition;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A registry of transition listeners, each with a filter and a {@link DispatchMode}.
+ * <p>
+ * Synchronous listeners are called on the firing thread and their exceptions propagate out of fire.
+ * Transitions for asynchronous listeners are queued on an {@link AsyncDispatcher}, which delivers them
+ * in publication order on its own thread, so they add only a queue insertion to the fire latency.
+ * Listeners can be added and removed from any thread.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class TransitionListenerBus<S, T, C> {
+
+    private final CopyOnWriteArrayList<Entry> syncListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<Entry> asyncListeners = new CopyOnWriteArrayList<>();
+    private volatile AsyncDispatcher dispatcher;
+
+    /**
+     * Add a synchronous listener for all transitions
+     *
+     * @param listener The listener
+     * @return A handle to remove the listener
+     */
+    public ListenerRegistration addListener(TransitionListener<S, T, C> listener) {
+        return addListener(listener, TransitionFilter.any(), DispatchMode.SYNC);
+    }
+
+    /**
+     * Add a listener
+     *
+     * @param listener The listener
+     * @param filter   Selects the transitions passed to the listener
+     * @param mode     Whether the listener is called on the firing thread or on the dispatcher
+     * @return A handle to remove the listener
+     */
+    public ListenerRegistration addListener(TransitionListener<S, T, C> listener, TransitionFilter<S, T, C> filter,
+                                            DispatchMode mode) {
+        assert listener != null : "listener is null";
+        assert filter != null : "filter is null";
+        assert mode != null : "mode is null";
+        CopyOnWriteArrayList<Entry> listeners = mode == DispatchMode.SYNC ? syncListeners : asyncListeners;
+        Entry entry = new Entry(listener, filter, listeners);
+        listeners.add(entry);
+        return entry;
+    }
+
+    /**
+     * Set the dispatcher of the asynchronous listeners. Defaults to {@link AsyncDispatcher#shared()}.
+     *
+     * @param dispatcher The dispatcher
+     */
+    public void setDispatcher(AsyncDispatcher dispatcher) {
+        assert dispatcher != null : "dispatcher is null";
+        this.dispatcher = dispatcher;
+    }
+
+    public AsyncDispatcher getDispatcher() {
+        AsyncDispatcher result = dispatcher;
+        return result == null ? AsyncDispatcher.shared() : result;
+    }
+
+    public boolean isEmpty() {
+        return syncListeners.isEmpty() && asyncListeners.isEmpty();
+    }
+
+    /**
+     * Pass a transition to the matching listeners
+     *
+     * @param transition The transition
+     */
+    public void publish(Transition<S, T, C> transition) {
+        for (Entry entry : syncListeners) {
+            entry.deliver(transition);
+        }
+        if (!asyncListeners.isEmpty()) {
+            getDispatcher().enqueue(this, transition);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void deliverAsync(Transition<?, ?, ?> transition) {
+        for (Entry entry : asyncListeners) {
+            entry.deliver((Transition<S, T, C>) transition);
+        }
+    }
+
+    private class Entry implements ListenerRegistration {
+
+        private final TransitionListener<S, T, C> listener;
+        private final TransitionFilter<S, T, C> filter;
+        private final CopyOnWriteArrayList<Entry> owner;
+
+        Entry(TransitionListener<S, T, C> listener, TransitionFilter<S, T, C> filter, CopyOnWriteArrayList<Entry> owner) {
+            this.listener = listener;
+            this.filter = filter;
+            this.owner = owner;
+        }
+
+        void deliver(Transition<S, T, C> transition) {
+            if (filter.matches(transition)) {
+                listener.onTransition(transition);
+            }
+        }
+
+        @Override
+        public void remove() {
+            owner.remove(this);
+        }
+    }
+}
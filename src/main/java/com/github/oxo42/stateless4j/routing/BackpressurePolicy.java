@@ -0,0 +1,17 @@
+package com.github.oxo42.stateless4j.routing;
+
+/**
+ * What a {@link PartitionedStateMachineRouter} does when a partition queue is full
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * The submitting thread waits until the partition has room
+     */
+    BLOCK,
+
+    /**
+     * The event is not queued and {@link PartitionedStateMachineRouter#submit} returns false
+     */
+    REJECT
+}
@@ -0,0 +1,95 @@
+package com.github.oxo42.stateless4j.routing;
+
+/**
+ * A snapshot of the counters of one partition of a {@link PartitionedStateMachineRouter}
+ */
+public class PartitionMetrics {
+
+    private final int partition;
+    private final long processed;
+    private final long unhandled;
+    private final long failed;
+    private final long rejected;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long timestamp;
+
+    public PartitionMetrics(int partition, long processed, long unhandled, long failed, long rejected,
+                            int queueDepth, int queueCapacity, long timestamp) {
+        this.partition = partition;
+        this.processed = processed;
+        this.unhandled = unhandled;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.timestamp = timestamp;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    /**
+     * @return Events taken off the queue, including unhandled and failed ones
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * @return Events whose trigger the current state of the machine did not handle
+     */
+    public long getUnhandled() {
+        return unhandled;
+    }
+
+    /**
+     * @return Events whose processing threw an exception
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return Events refused because the queue was full
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return Events waiting in the queue when the snapshot was taken
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} at which the snapshot was taken
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * The number of events per second processed between an earlier snapshot and this one
+     *
+     * @param earlier An earlier snapshot of the same partition
+     * @return Events per second, or 0 if no time has passed
+     */
+    public double throughputSince(PartitionMetrics earlier) {
+        long elapsed = timestamp - earlier.timestamp;
+        return elapsed <= 0 ? 0 : (processed - earlier.processed) * 1e9 / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Partition %d: processed=%d unhandled=%d failed=%d rejected=%d queue=%d/%d",
+                partition, processed, unhandled, failed, rejected, queueDepth, queueCapacity);
+    }
+}
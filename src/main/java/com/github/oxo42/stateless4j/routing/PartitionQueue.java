@@ -0,0 +1,106 @@
+package com.github.oxo42.stateless4j.routing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of events for many producers and a single consumer.
+ * <p>
+ * Slots are preallocated; each has a sequence number that tells producers and the consumer whose
+ * turn it is, so offering and polling allocate nothing.
+ */
+class PartitionQueue<K, T, C> {
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final Object[] keys;
+    private final Object[] triggers;
+    private final Object[] contexts;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    PartitionQueue(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two");
+        }
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.keys = new Object[capacity];
+        this.triggers = new Object[capacity];
+        this.contexts = new Object[capacity];
+    }
+
+    /**
+     * Add an event, safe to call from any thread
+     *
+     * @return False if the queue is full
+     */
+    boolean offer(K key, T trigger, C context) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+        keys[index] = key;
+        triggers[index] = trigger;
+        contexts[index] = context;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Remove the oldest event and hand it to a handler; only the consumer thread may call this
+     *
+     * @return False if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    boolean poll(EventHandler<K, T, C> handler) {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return false;
+        }
+        K key = (K) keys[index];
+        T trigger = (T) triggers[index];
+        C context = (C) contexts[index];
+        keys[index] = null;
+        triggers[index] = null;
+        contexts[index] = null;
+        sequences.lazySet(index, position + mask + 1);
+        head = position + 1;
+        handler.handle(key, trigger, context);
+        return true;
+    }
+
+    /**
+     * @return The number of events ever accepted
+     */
+    long accepted() {
+        return tail.get();
+    }
+
+    int size() {
+        long size = tail.get() - head;
+        return size < 0 ? 0 : (int) Math.min(size, mask + 1);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    interface EventHandler<K, T, C> {
+        void handle(K key, T trigger, C context);
+    }
+}
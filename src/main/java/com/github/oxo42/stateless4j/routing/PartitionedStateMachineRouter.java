@@ -0,0 +1,301 @@
+package com.github.oxo42.stateless4j.routing;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.KeyedStateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.store.MapStateStore;
+import com.github.oxo42.stateless4j.store.StateStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Routes events for many keyed state machines onto a fixed number of single-writer partitions.
+ * <p>
+ * Every key is pinned to one partition by its hash, so the events of one machine are processed in
+ * submission order by one thread. Each partition owns a bounded lock-free queue, a worker thread and
+ * a {@link KeyedStateMachine} over its own {@link StateStore}; all partitions share one frozen
+ * configuration. Submitting is safe from any number of threads.
+ * <p>
+ * Triggers are fired with {@link KeyedStateMachine#tryFire}: a trigger the current state does not
+ * handle is counted in the {@link PartitionMetrics metrics} instead of throwing. Exceptions thrown
+ * by actions are counted and passed to the {@link #setErrorHandler error handler}; the worker
+ * carries on with the next event, also if the error handler itself throws.
+ *
+ * @param <K> The type used to identify machines
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class PartitionedStateMachineRouter<K, S, T, C> implements AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final long BLOCKED_PARK_NANOS = 10_000;
+
+    private final List<Partition> partitions = new ArrayList<>();
+    private final BackpressurePolicy policy;
+    private final S initialState;
+    private volatile Consumer<RuntimeException> errorHandler = e -> { };
+    private volatile boolean running = true;
+    // set by close() once no submit is in flight any more; workers stop when it is set and their queue is empty
+    private volatile boolean stopped;
+
+    /**
+     * Construct a router with on-heap state stores and daemon worker threads
+     *
+     * @param config        State machine configuration; frozen if it is not already
+     * @param initialState  The state of machines that have no stored state yet
+     * @param partitions    The number of partitions and worker threads
+     * @param queueCapacity The capacity of each partition queue, a power of two
+     * @param policy        What to do when a partition queue is full
+     */
+    public PartitionedStateMachineRouter(StateMachineConfig<S, T, C> config, S initialState, int partitions,
+                                         int queueCapacity, BackpressurePolicy policy) {
+        this(config, initialState, partitions, queueCapacity, policy, p -> new MapStateStore<>(), daemonThreads());
+    }
+
+    /**
+     * Construct a router
+     *
+     * @param config        State machine configuration; frozen if it is not already
+     * @param initialState  The state of machines that have no stored state yet
+     * @param partitions    The number of partitions and worker threads
+     * @param queueCapacity The capacity of each partition queue, a power of two
+     * @param policy        What to do when a partition queue is full
+     * @param stores        Creates the state store of a partition from its index
+     * @param threadFactory Creates the worker thread of each partition
+     */
+    public PartitionedStateMachineRouter(StateMachineConfig<S, T, C> config, S initialState, int partitions,
+                                         int queueCapacity, BackpressurePolicy policy,
+                                         IntFunction<StateStore<K, S>> stores, ThreadFactory threadFactory) {
+        assert config != null : "config is null";
+        assert policy != null : "policy is null";
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be positive");
+        }
+        config.freeze();
+        this.policy = policy;
+        this.initialState = initialState;
+        for (int i = 0; i < partitions; i++) {
+            this.partitions.add(new Partition(i, config, stores.apply(i), queueCapacity));
+        }
+        for (Partition partition : this.partitions) {
+            partition.thread = threadFactory.newThread(partition);
+            partition.thread.start();
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "stateless4j-partition-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Queue a trigger for a machine
+     *
+     * @param key     The machine id
+     * @param trigger The trigger to fire
+     * @param context The context
+     * @return False if the partition queue is full and the policy is {@link BackpressurePolicy#REJECT}
+     * @throws IllegalStateException if the router is closed
+     */
+    public boolean submit(K key, T trigger, C context) {
+        Partition partition = partitionFor(key);
+        // counted before running is checked, so that close() waits for this submit to finish
+        partition.submitting.incrementAndGet();
+        try {
+            while (true) {
+                if (!running) {
+                    throw new IllegalStateException("Router is closed");
+                }
+                if (partition.queue.offer(key, trigger, context)) {
+                    if (partition.sleeping) {
+                        LockSupport.unpark(partition.thread);
+                    }
+                    return true;
+                }
+                if (policy == BackpressurePolicy.REJECT) {
+                    partition.rejected.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+            }
+        } finally {
+            partition.submitting.decrementAndGet();
+        }
+    }
+
+    /**
+     * The partition a machine is pinned to
+     *
+     * @param key The machine id
+     * @return The partition index
+     */
+    public int partitionOf(K key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), partitions.size());
+    }
+
+    private Partition partitionFor(K key) {
+        return partitions.get(partitionOf(key));
+    }
+
+    /**
+     * The current state of a machine. Safe to call from any thread if the state stores are thread-safe,
+     * as the default ones are; events still queued for the machine are not reflected.
+     *
+     * @param key The machine id
+     * @return The stored state, or the initial state if none is stored
+     */
+    public S getState(K key) {
+        S state = partitionFor(key).engine.getStore().get(key);
+        return state == null ? initialState : state;
+    }
+
+    /**
+     * Wait until every event submitted before this call has been processed
+     *
+     * @throws InterruptedException  if the calling thread is interrupted while waiting
+     * @throws IllegalStateException if a worker thread has stopped with events still queued
+     */
+    public void flush() throws InterruptedException {
+        for (Partition partition : partitions) {
+            long target = partition.queue.accepted();
+            while (partition.processed < target) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (!partition.thread.isAlive()) {
+                    throw new IllegalStateException("Worker of partition " + partition.index + " has stopped");
+                }
+                LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Take a snapshot of the counters of every partition
+     *
+     * @return One snapshot per partition, in partition order
+     */
+    public List<PartitionMetrics> getMetrics() {
+        List<PartitionMetrics> result = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions) {
+            result.add(partition.metrics());
+        }
+        return result;
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * Receives exceptions thrown while processing events, on the worker thread
+     *
+     * @param errorHandler The handler
+     */
+    public void setErrorHandler(Consumer<RuntimeException> errorHandler) {
+        assert errorHandler != null : "errorHandler is null";
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Stop accepting events, process the events already queued and stop the worker threads. Events
+     * submitted concurrently are either rejected or processed, never dropped. If the calling thread
+     * is interrupted while waiting for the workers, it stops waiting and keeps its interrupt status;
+     * the workers still process the queued events.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Partition partition : partitions) {
+            while (partition.submitting.get() != 0) {
+                Thread.yield();
+            }
+        }
+        stopped = true;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.thread);
+        }
+        try {
+            for (Partition partition : partitions) {
+                partition.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class Partition implements Runnable, PartitionQueue.EventHandler<K, T, C> {
+
+        private final int index;
+        private final KeyedStateMachine<K, S, T, C> engine;
+        private final PartitionQueue<K, T, C> queue;
+        private final LongAdder rejected = new LongAdder();
+        private final AtomicInteger submitting = new AtomicInteger();
+        private Thread thread;
+        private volatile boolean sleeping;
+        // written by the worker thread only
+        private volatile long processed;
+        private volatile long unhandled;
+        private volatile long failed;
+
+        Partition(int index, StateMachineConfig<S, T, C> config, StateStore<K, S> store, int queueCapacity) {
+            this.index = index;
+            this.engine = new KeyedStateMachine<>(config, store, initialState);
+            this.queue = new PartitionQueue<>(queueCapacity);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                if (queue.poll(this)) {
+                    continue;
+                }
+                if (stopped && queue.size() == 0) {
+                    return;
+                }
+                sleeping = true;
+                // re-check after publishing the flag so a producer that missed it has already enqueued
+                if (queue.size() == 0 && !stopped) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+
+        @Override
+        public void handle(K key, T trigger, C context) {
+            try {
+                if (engine.tryFire(key, trigger, context) == FireResult.UNHANDLED) {
+                    unhandled++;
+                }
+            } catch (RuntimeException e) {
+                failed++;
+                try {
+                    errorHandler.accept(e);
+                } catch (RuntimeException ignored) {
+                    // the failure is counted; a failing handler must not stop the partition
+                }
+            } finally {
+                processed++;
+            }
+        }
+
+        PartitionMetrics metrics() {
+            return new PartitionMetrics(index, processed, unhandled, failed, rejected.sum(),
+                    queue.size(), queue.capacity(), System.nanoTime());
+        }
+    }
+}
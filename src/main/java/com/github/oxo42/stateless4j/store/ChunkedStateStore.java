@@ -0,0 +1,145 @@
+package com.github.oxo42.stateless4j.store;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * State store that keeps state ordinals in fixed-size {@link ByteBuffer} chunks, allocated on first use.
+ * <p>
+ * Keys are mapped to non-negative slot indexes by an indexer, states to ordinals by their position in
+ * the state array given at construction. A slot takes one byte for fewer than 255 states and four bytes
+ * otherwise; zero marks an empty slot. Not thread-safe.
+ *
+ * @param <K> The type used to identify machines
+ * @param <S> The type used to represent the states
+ */
+public abstract class ChunkedStateStore<K, S> implements StateStore<K, S> {
+
+    /**
+     * Default number of slots per chunk
+     */
+    public static final int DEFAULT_CHUNK_SLOTS = 1 << 20;
+
+    private final ToIntFunction<? super K> indexer;
+    private final S[] states;
+    private final Map<S, Integer> ordinals = new HashMap<>();
+    private final int chunkSlots;
+    private final int slotBytes;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+
+    protected ChunkedStateStore(ToIntFunction<? super K> indexer, S[] states, int chunkSlots) {
+        if (chunkSlots < 1) {
+            throw new IllegalArgumentException("chunkSlots must be positive");
+        }
+        this.indexer = indexer;
+        this.states = states.clone();
+        for (int i = 0; i < states.length; i++) {
+            ordinals.put(states[i], i);
+        }
+        this.chunkSlots = chunkSlots;
+        this.slotBytes = states.length < 255 ? 1 : 4;
+    }
+
+    /**
+     * Provide the storage of a chunk
+     *
+     * @param index The chunk index
+     * @param bytes The chunk size in bytes
+     * @return A buffer of {@code bytes} bytes
+     */
+    protected abstract ByteBuffer allocateChunk(int index, int bytes);
+
+    @Override
+    public S get(K key) {
+        int slot = slotOf(key);
+        ByteBuffer chunk = existingChunk(slot / chunkSlots);
+        if (chunk == null) {
+            return null;
+        }
+        int value = read(chunk, slot % chunkSlots);
+        return value == 0 ? null : states[value - 1];
+    }
+
+    @Override
+    public void put(K key, S state) {
+        Integer ordinal = ordinals.get(state);
+        if (ordinal == null) {
+            throw new IllegalStateException("State '" + state + "' is not known to the state store");
+        }
+        int slot = slotOf(key);
+        write(chunk(slot / chunkSlots), slot % chunkSlots, ordinal + 1);
+    }
+
+    @Override
+    public void remove(K key) {
+        int slot = slotOf(key);
+        ByteBuffer chunk = existingChunk(slot / chunkSlots);
+        if (chunk != null) {
+            write(chunk, slot % chunkSlots, 0);
+        }
+    }
+
+    /**
+     * Whether the storage of a chunk that has not been allocated in this instance already exists,
+     * e.g. because it was written before a restart
+     *
+     * @param index The chunk index
+     * @return True if the chunk holds previously stored states
+     */
+    protected boolean isPersisted(int index) {
+        return false;
+    }
+
+    /**
+     * The chunks allocated so far, in index order. Unallocated chunks are null.
+     *
+     * @return The chunk buffers
+     */
+    protected ByteBuffer[] chunks() {
+        return chunks;
+    }
+
+    protected int chunkBytes() {
+        return chunkSlots * slotBytes;
+    }
+
+    private ByteBuffer chunk(int index) {
+        if (index >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, index + 1);
+        }
+        if (chunks[index] == null) {
+            chunks[index] = allocateChunk(index, chunkBytes());
+        }
+        return chunks[index];
+    }
+
+    private ByteBuffer existingChunk(int index) {
+        if (index < chunks.length && chunks[index] != null) {
+            return chunks[index];
+        }
+        return isPersisted(index) ? chunk(index) : null;
+    }
+
+    private int slotOf(K key) {
+        int slot = indexer.applyAsInt(key);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Key '" + key + "' maps to negative slot " + slot);
+        }
+        return slot;
+    }
+
+    private int read(ByteBuffer chunk, int offset) {
+        return slotBytes == 1 ? chunk.get(offset) & 0xFF : chunk.getInt(offset * 4);
+    }
+
+    private void write(ByteBuffer chunk, int offset, int value) {
+        if (slotBytes == 1) {
+            chunk.put(offset, (byte) value);
+        } else {
+            chunk.putInt(offset * 4, value);
+        }
+    }
+}
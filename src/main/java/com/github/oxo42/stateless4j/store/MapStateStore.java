@@ -0,0 +1,35 @@
+package com.github.oxo42.stateless4j.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * On-heap state store backed by a {@link ConcurrentHashMap}
+ *
+ * @param <K> The type used to identify machines
+ * @param <S> The type used to represent the states
+ */
+public class MapStateStore<K, S> implements StateStore<K, S> {
+
+    private final ConcurrentMap<K, S> states = new ConcurrentHashMap<>();
+
+    @Override
+    public S get(K key) {
+        return states.get(key);
+    }
+
+    @Override
+    public void put(K key, S state) {
+        assert state != null : "state is null";
+        states.put(key, state);
+    }
+
+    @Override
+    public void remove(K key) {
+        states.remove(key);
+    }
+
+    public int size() {
+        return states.size();
+    }
+}
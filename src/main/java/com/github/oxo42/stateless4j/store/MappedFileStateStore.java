@@ -0,0 +1,78 @@
+package com.github.oxo42.stateless4j.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ToIntFunction;
+
+/**
+ * State store keeping state ordinals in a memory-mapped file, so that states survive a restart.
+ * <p>
+ * The file grows one chunk at a time. Reopening a file requires the same state array and chunk size
+ * it was written with.
+ *
+ * @param <K> The type used to identify machines
+ * @param <S> The type used to represent the states
+ */
+public class MappedFileStateStore<K, S> extends ChunkedStateStore<K, S> implements Closeable {
+
+    private final FileChannel channel;
+
+    /**
+     * Open or create a store
+     *
+     * @param file    The backing file
+     * @param indexer Maps a key to its non-negative slot
+     * @param states  All states; a state is stored as its index in this array
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedFileStateStore(Path file, ToIntFunction<? super K> indexer, S[] states) throws IOException {
+        this(file, indexer, states, DEFAULT_CHUNK_SLOTS);
+    }
+
+    public MappedFileStateStore(Path file, ToIntFunction<? super K> indexer, S[] states, int chunkSlots) throws IOException {
+        super(indexer, states, chunkSlots);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    protected ByteBuffer allocateChunk(int index, int bytes) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) index * bytes, bytes).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected boolean isPersisted(int index) {
+        try {
+            return channel.size() >= (long) (index + 1) * chunkBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write all changes through to the file
+     */
+    public void force() {
+        for (ByteBuffer chunk : chunks()) {
+            if (chunk != null) {
+                ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.oxo42.stateless4j.store;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.ToIntFunction;
+
+/**
+ * State store keeping state ordinals off-heap in direct buffers
+ *
+ * @param <K> The type used to identify machines
+ * @param <S> The type used to represent the states
+ */
+public class OffHeapStateStore<K, S> extends ChunkedStateStore<K, S> {
+
+    /**
+     * Construct a store
+     *
+     * @param indexer Maps a key to its non-negative slot
+     * @param states  All states; a state is stored as its index in this array
+     */
+    public OffHeapStateStore(ToIntFunction<? super K> indexer, S[] states) {
+        this(indexer, states, DEFAULT_CHUNK_SLOTS);
+    }
+
+    public OffHeapStateStore(ToIntFunction<? super K> indexer, S[] states, int chunkSlots) {
+        super(indexer, states, chunkSlots);
+    }
+
+    @Override
+    protected ByteBuffer allocateChunk(int index, int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
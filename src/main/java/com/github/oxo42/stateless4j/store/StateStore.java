@@ -0,0 +1,33 @@
+package com.github.oxo42.stateless4j.store;
+
+/**
+ * Stores the current state of many state machines, keyed by machine id
+ *
+ * @param <K> The type used to identify machines
+ * @param <S> The type used to represent the states
+ */
+public interface StateStore<K, S> {
+
+    /**
+     * The state of a machine
+     *
+     * @param key The machine id
+     * @return The stored state, or null if none is stored for the key
+     */
+    S get(K key);
+
+    /**
+     * Store the state of a machine
+     *
+     * @param key   The machine id
+     * @param state The state, not null
+     */
+    void put(K key, S state);
+
+    /**
+     * Forget the state of a machine
+     *
+     * @param key The machine id
+     */
+    void remove(K key);
+}
@@ -0,0 +1,151 @@
+package com.github.oxo42.stateless4j.tracing;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.delegates.StateMachineHook;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link StateMachineHook} that records a sample of fires into a {@link TraceBuffer}.
+ * <p>
+ * A fire is recorded if it is picked by fixed-rate sampling ({@link #setSampleEvery}) or if it took
+ * at least the slow-fire threshold ({@link #setSlowThreshold}). Recorded fires are then rate-limited
+ * per (source state, trigger) pair ({@link #setRateLimit}), so one hot transition cannot flush the
+ * others out of the buffer. A disabled tracer costs one volatile read per fire. One tracer can be
+ * shared by any number of state machines and threads.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class SamplingTracer<S, T, C> implements StateMachineHook<S, T, C> {
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TraceBuffer<S, T> buffer;
+    private final ConcurrentMap<S, ConcurrentMap<T, AtomicLong>> windows = new ConcurrentHashMap<>();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private volatile boolean enabled = true;
+    private volatile int sampleEvery;
+    private volatile long slowThresholdNanos;
+    private volatile int rateLimit;
+
+    /**
+     * Construct an enabled tracer that records nothing until a sampling rate or slow-fire threshold is set
+     *
+     * @param capacity The number of records kept, a power of two
+     */
+    public SamplingTracer(int capacity) {
+        this.buffer = new TraceBuffer<>(capacity);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Record on average one in {@code n} fires
+     *
+     * @param n The sampling interval; 1 records every fire, 0 disables fixed-rate sampling
+     */
+    public void setSampleEvery(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative");
+        }
+        this.sampleEvery = n;
+    }
+
+    /**
+     * Record every fire that takes at least the given time
+     *
+     * @param threshold The threshold; 0 disables tail sampling
+     * @param unit      The unit of the threshold
+     */
+    public void setSlowThreshold(long threshold, TimeUnit unit) {
+        this.slowThresholdNanos = unit.toNanos(threshold);
+    }
+
+    /**
+     * Record at most {@code perSecond} fires per second for each (source state, trigger) pair
+     *
+     * @param perSecond The limit; 0 means unlimited
+     */
+    public void setRateLimit(int perSecond) {
+        if (perSecond < 0) {
+            throw new IllegalArgumentException("perSecond must not be negative");
+        }
+        this.rateLimit = perSecond;
+    }
+
+    @Override
+    public void fireCompleted(Object token, S source, T trigger, S destination, FireResult result, long durationNanos) {
+        if (!sampled(durationNanos)) {
+            return;
+        }
+        int limit = rateLimit;
+        if (limit > 0 && !tryAcquire(source, trigger, limit)) {
+            rateLimited.incrementAndGet();
+            return;
+        }
+        buffer.add(source, trigger, destination, result, durationNanos, System.currentTimeMillis());
+    }
+
+    private boolean sampled(long durationNanos) {
+        long threshold = slowThresholdNanos;
+        if (threshold > 0 && durationNanos >= threshold) {
+            return true;
+        }
+        int every = sampleEvery;
+        return every == 1 || (every > 1 && ThreadLocalRandom.current().nextInt(every) == 0);
+    }
+
+    /**
+     * Take a permit from the one-second window of a (state, trigger) pair. A window packs the
+     * second it belongs to into the high and the permits taken into the low 32 bits.
+     */
+    private boolean tryAcquire(S source, T trigger, int limit) {
+        AtomicLong window = windows.computeIfAbsent(source, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(trigger, t -> new AtomicLong());
+        long second = System.nanoTime() / SECOND_NANOS;
+        while (true) {
+            long current = window.get();
+            long count = (current >>> 32) == (second & 0xFFFFFFFFL) ? current & 0xFFFFFFFFL : 0;
+            if (count >= limit) {
+                return false;
+            }
+            if (window.compareAndSet(current, (second << 32) | (count + 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Copy the recorded fires
+     *
+     * @return The most recent records, oldest first
+     */
+    public List<TraceRecord<S, T>> getRecords() {
+        return buffer.snapshot();
+    }
+
+    public TraceBuffer<S, T> getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return The number of sampled fires not recorded because of the rate limit
+     */
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+}
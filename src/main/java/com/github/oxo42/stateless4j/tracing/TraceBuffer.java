@@ -0,0 +1,119 @@
+package com.github.oxo42.stateless4j.tracing;
+
+import com.github.oxo42.stateless4j.FireResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring of the most recent trace records.
+ * <p>
+ * Writers claim a slot by sequence and lock it with a compare-and-set on its sequence number, so a
+ * writer never waits: if the slot is still being written by a writer one lap behind, the record is
+ * dropped. Readers copy a slot and keep the copy only if its sequence number did not change meanwhile.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ */
+public class TraceBuffer<S, T> {
+
+    private static final long WRITING = -2;
+
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<Object> sources;
+    private final AtomicReferenceArray<Object> triggers;
+    private final AtomicReferenceArray<Object> destinations;
+    private final AtomicReferenceArray<FireResult> results;
+    private final AtomicLongArray durations;
+    private final AtomicLongArray timestamps;
+
+    /**
+     * Construct a buffer
+     *
+     * @param capacity The number of records kept, a power of two
+     */
+    public TraceBuffer(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two");
+        }
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, -1);
+        }
+        this.sources = new AtomicReferenceArray<>(capacity);
+        this.triggers = new AtomicReferenceArray<>(capacity);
+        this.destinations = new AtomicReferenceArray<>(capacity);
+        this.results = new AtomicReferenceArray<>(capacity);
+        this.durations = new AtomicLongArray(capacity);
+        this.timestamps = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Append a record, overwriting the oldest one once the buffer is full
+     */
+    public void add(S source, T trigger, S destination, FireResult result, long durationNanos, long timestamp) {
+        long sequence = cursor.getAndIncrement();
+        int index = (int) sequence & mask;
+        long previous = sequences.get(index);
+        if (previous == WRITING || previous > sequence || !sequences.compareAndSet(index, previous, WRITING)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        sources.set(index, source);
+        triggers.set(index, trigger);
+        destinations.set(index, destination);
+        results.set(index, result);
+        durations.set(index, durationNanos);
+        timestamps.set(index, timestamp);
+        sequences.set(index, sequence);
+    }
+
+    /**
+     * Copy the records currently in the buffer
+     *
+     * @return The records, oldest first
+     */
+    @SuppressWarnings("unchecked")
+    public List<TraceRecord<S, T>> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - (mask + 1));
+        List<TraceRecord<S, T>> result = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            int index = (int) sequence & mask;
+            if (sequences.get(index) != sequence) {
+                continue;
+            }
+            TraceRecord<S, T> record = new TraceRecord<>((S) sources.get(index), (T) triggers.get(index),
+                    (S) destinations.get(index), results.get(index), durations.get(index), timestamps.get(index));
+            if (sequences.get(index) == sequence) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of records ever added, including overwritten and dropped ones
+     */
+    public long getWrittenCount() {
+        return cursor.get();
+    }
+
+    /**
+     * @return The number of records dropped because their slot was being written
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.oxo42.stateless4j.tracing;
+
+import com.github.oxo42.stateless4j.FireResult;
+
+/**
+ * One sampled fire
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ */
+public final class TraceRecord<S, T> {
+
+    private final S source;
+    private final T trigger;
+    private final S destination;
+    private final FireResult result;
+    private final long durationNanos;
+    private final long timestamp;
+
+    public TraceRecord(S source, T trigger, S destination, FireResult result, long durationNanos, long timestamp) {
+        this.source = source;
+        this.trigger = trigger;
+        this.destination = destination;
+        this.result = result;
+        this.durationNanos = durationNanos;
+        this.timestamp = timestamp;
+    }
+
+    public S getSource() {
+        return source;
+    }
+
+    public T getTrigger() {
+        return trigger;
+    }
+
+    public S getDestination() {
+        return destination;
+    }
+
+    public FireResult getResult() {
+        return result;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return The wall-clock time the fire completed, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s --%s--> %s (%s, %d ns)", source, trigger, destination, result, durationNanos);
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.oxo42.stateless4j.triggers;
+
+import com.github.oxo42.stateless4j.delegates.Guard;
+import com.github.oxo42.stateless4j.transitions.SelectorCondition;
+import com.github.oxo42.stateless4j.transitions.Transition;
+
+/**
+ * Postpones a trigger until the state machine is in a state that can handle it
+ */
+public class DeferredTriggerBehaviour<S, T, C> extends TriggerBehaviour<S, T, C> {
+
+    public DeferredTriggerBehaviour(T trigger, Guard<S, T, C> guard) {
+        super(trigger, guard);
+    }
+
+    @Override
+    public void performAction(Transition<S, T, C> transition) {
+    }
+
+    @Override
+    public boolean isInternal() {
+        return true;
+    }
+
+    @Override
+    public boolean isDeferred() {
+        return true;
+    }
+
+    @Override
+    public S transitionsTo(SelectorCondition<S, T, C> selectorCondition) {
+        return selectorCondition.getFrom();
+    }
+}
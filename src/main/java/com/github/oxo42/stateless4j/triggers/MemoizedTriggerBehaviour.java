@@ -0,0 +1,37 @@
+package com.github.oxo42.stateless4j.triggers;
+
+import com.github.oxo42.stateless4j.delegates.Action;
+import com.github.oxo42.stateless4j.delegates.Guard;
+import com.github.oxo42.stateless4j.delegates.KeyExtractor;
+import com.github.oxo42.stateless4j.delegates.Selector;
+import com.github.oxo42.stateless4j.transitions.SelectorCondition;
+
+/**
+ * A dynamic transition whose selector depends only on a key extracted from the selector condition,
+ * so that it is called once per key and its results are cached
+ *
+ * @param <K> The key type
+ */
+public class MemoizedTriggerBehaviour<S, T, C, K> extends DynamicTriggerBehaviour<S, T, C> {
+
+    private final KeyExtractor<S, T, C, K> key;
+    private final SelectorCache<K, S> cache;
+
+    public MemoizedTriggerBehaviour(T trigger, KeyExtractor<S, T, C, K> key, Selector<S, T, C> destination,
+                                    SelectorCache<K, S> cache, Guard<S, T, C> guard, Action<S, T, C> action) {
+        super(trigger, destination, guard, action);
+        assert key != null : "key is null";
+        assert cache != null : "cache is null";
+        this.key = key;
+        this.cache = cache;
+    }
+
+    @Override
+    public S transitionsTo(SelectorCondition<S, T, C> selectorCondition) {
+        return cache.get(key.call(selectorCondition), () -> super.transitionsTo(selectorCondition));
+    }
+
+    public SelectorCache<K, S> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.oxo42.stateless4j.triggers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, thread-safe cache of the destinations selected for each key, evicting the least recently
+ * used key when full.
+ * <p>
+ * Large caches spread their keys over independently locked segments, each holding an equal share of the
+ * capacity and evicting its own least recently used key, so lookups on different keys rarely contend.
+ * <p>
+ * A destination is selected outside of any lock: two threads missing the same key at the same time both
+ * call the selector and the second result is kept.
+ *
+ * @param <K> The key type
+ * @param <S> The type used to represent the states
+ */
+public class SelectorCache<K, S> {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 32;
+
+    private final Segment<K, S>[] segments;
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create a cache
+     *
+     * @param capacity The maximum number of keys held
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public SelectorCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int count = 1;
+        while (count < MAX_SEGMENTS && count * 2 * MIN_SEGMENT_CAPACITY <= capacity) {
+            count *= 2;
+        }
+        this.capacity = capacity;
+        this.segments = (Segment<K, S>[]) new Segment<?, ?>[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(capacity / count + (i < capacity % count ? 1 : 0), evictions);
+        }
+    }
+
+    /**
+     * The destination cached for a key, selecting and caching it on a miss
+     *
+     * @param key      The key
+     * @param selector Selects the destination on a miss
+     * @return The destination
+     */
+    public S get(K key, Supplier<S> selector) {
+        Segment<K, S> segment = segmentFor(key);
+        S result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        result = selector.get();
+        if (result != null) {
+            synchronized (segment) {
+                segment.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    private Segment<K, S> segmentFor(K key) {
+        int h = Objects.hashCode(key);
+        h ^= h >>> 16;
+        return segments[h & (segments.length - 1)];
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * The fraction of lookups answered from the cache
+     *
+     * @return The hit rate, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * The number of keys currently cached
+     *
+     * @return The size
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, S> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Forget all cached destinations, for example after the data the selector reads has changed.
+     * The metrics are kept.
+     */
+    public void clear() {
+        for (Segment<K, S> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private static final class Segment<K, S> extends LinkedHashMap<K, S> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, S> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
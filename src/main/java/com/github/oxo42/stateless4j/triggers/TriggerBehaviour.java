@@ -6,6 +6,9 @@ import com.github.oxo42.stateless4j.transitions.Transition;
 
 public abstract class TriggerBehaviour<S, T, C> {
 
+    @SuppressWarnings("rawtypes")
+    private static final Guard UNGUARDED = condition -> true;
+
     private final T trigger;
 
     /**
@@ -19,6 +22,17 @@ public abstract class TriggerBehaviour<S, T, C> {
         this.guard = guard;
     }
 
+    /**
+     * Guard shared by all behaviours configured without a condition. Behaviours using it
+     * report {@link #isGuarded()} as false.
+     *
+     * @return The guard that always accepts
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, T, C> Guard<S, T, C> unguarded() {
+        return UNGUARDED;
+    }
+
     public T getTrigger() {
         return trigger;
     }
@@ -29,6 +43,14 @@ public abstract class TriggerBehaviour<S, T, C> {
         return false;
     }
 
+    public boolean isDeferred() {
+        return false;
+    }
+
+    public boolean isGuarded() {
+        return guard != UNGUARDED;
+    }
+
     public boolean isMatch(SelectorCondition<S, T, C> condition) {
         return guard.call(condition);
     }
@@ -0,0 +1,51 @@
+package com.github.oxo42.stateless4j.triggers;
+
+/**
+ * A trigger together with the type of the context it is fired with.
+ * <p>
+ * Firing a typed trigger through {@link com.github.oxo42.stateless4j.StateMachine#fire(TypedTrigger, Object)}
+ * lets the compiler check the context type. The trigger must be registered with the configuration
+ * through {@link com.github.oxo42.stateless4j.StateMachineConfig#register(TypedTrigger)}, which
+ * rejects a second context type for the same trigger; firing checks the registration.
+ *
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type of the context
+ */
+public final class TypedTrigger<T, C> implements Event<T, C> {
+
+    private final T trigger;
+    private final Class<C> contextClass;
+
+    private TypedTrigger(T trigger, Class<C> contextClass) {
+        assert trigger != null : "trigger is null";
+        assert contextClass != null : "contextClass is null";
+        this.trigger = trigger;
+        this.contextClass = contextClass;
+    }
+
+    /**
+     * Describe a trigger fired with a context of the given type
+     *
+     * @param trigger      The trigger
+     * @param contextClass The type of the context
+     * @return The typed trigger
+     */
+    public static <T, C> TypedTrigger<T, C> of(T trigger, Class<C> contextClass) {
+        return new TypedTrigger<>(trigger, contextClass);
+    }
+
+    @Override
+    public T getTrigger() {
+        return trigger;
+    }
+
+    @Override
+    public Class<C> getContextClass() {
+        return contextClass;
+    }
+
+    @Override
+    public String toString() {
+        return trigger + "(" + contextClass.getSimpleName() + ")";
+    }
+}
@@ -0,0 +1,216 @@
+package com.github.oxo42.stateless4j.validation;
+
+import com.github.oxo42.stateless4j.StateRepresentation;
+import com.github.oxo42.stateless4j.transitions.SelectorCondition;
+import com.github.oxo42.stateless4j.transitions.TransitioningTriggerBehaviour;
+import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Static analysis of a state machine configuration.
+ * <p>
+ * Detects superstate cycles, overlapping guards, unreachable states, dead-end states and triggers
+ * that are configured on both a state and one of its superstates. The per-state checks run in
+ * parallel once the configuration has at least {@link #PARALLEL_THRESHOLD} states.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ * @param <C> The type used to represent the context
+ */
+public class ConfigurationValidator<S, T, C> {
+
+    /**
+     * Number of states from which the per-state checks are evaluated in parallel
+     */
+    public static final int PARALLEL_THRESHOLD = 1024;
+
+    private final Map<S, StateRepresentation<S, T, C>> representations = new HashMap<>();
+
+    public ConfigurationValidator(Collection<StateRepresentation<S, T, C>> representations) {
+        for (StateRepresentation<S, T, C> representation : representations) {
+            this.representations.put(representation.getUnderlyingState(), representation);
+        }
+    }
+
+    /**
+     * Validate the configuration
+     *
+     * @param initialState The initial state used for the reachability check, or null to skip it
+     * @return The diagnostics found
+     */
+    public ValidationResult<S, T> validate(S initialState) {
+        List<Diagnostic<S, T>> diagnostics = new ArrayList<>(findSuperstateCycles());
+
+        Stream<StateRepresentation<S, T, C>> stream = representations.size() >= PARALLEL_THRESHOLD
+                ? representations.values().parallelStream()
+                : representations.values().stream();
+        diagnostics.addAll(stream.flatMap(r -> checkState(r).stream()).collect(Collectors.toList()));
+
+        if (initialState != null) {
+            diagnostics.addAll(findUnreachableStates(initialState));
+        }
+        return new ValidationResult<>(diagnostics);
+    }
+
+    private List<Diagnostic<S, T>> findSuperstateCycles() {
+        List<Diagnostic<S, T>> result = new ArrayList<>();
+        Set<StateRepresentation<S, T, C>> done = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (StateRepresentation<S, T, C> start : representations.values()) {
+            List<StateRepresentation<S, T, C>> path = new ArrayList<>();
+            Map<StateRepresentation<S, T, C>, Integer> onPath = new IdentityHashMap<>();
+            StateRepresentation<S, T, C> current = start;
+            while (current != null && !done.contains(current) && !onPath.containsKey(current)) {
+                onPath.put(current, path.size());
+                path.add(current);
+                current = current.getSuperState();
+            }
+
+            if (current != null && onPath.containsKey(current)) {
+                List<S> cycle = new ArrayList<>();
+                for (StateRepresentation<S, T, C> member : path.subList(onPath.get(current), path.size())) {
+                    cycle.add(member.getUnderlyingState());
+                }
+                cycle.add(current.getUnderlyingState());
+                result.add(new Diagnostic<>(DiagnosticKind.SUPERSTATE_CYCLE, current.getUnderlyingState(), null,
+                        "Superstate cycle " + cycle));
+            }
+            done.addAll(path);
+        }
+        return result;
+    }
+
+    private List<Diagnostic<S, T>> checkState(StateRepresentation<S, T, C> representation) {
+        List<Diagnostic<S, T>> result = new ArrayList<>();
+        S state = representation.getUnderlyingState();
+        List<StateRepresentation<S, T, C>> ancestors = ancestorsOf(representation);
+
+        for (Map.Entry<T, List<TriggerBehaviour<S, T, C>>> entry : representation.getTriggerBehaviours().entrySet()) {
+            T trigger = entry.getKey();
+            List<TriggerBehaviour<S, T, C>> behaviours = entry.getValue();
+            if (behaviours.size() > 1) {
+                int unguarded = 0;
+                for (TriggerBehaviour<S, T, C> behaviour : behaviours) {
+                    if (!behaviour.isGuarded()) {
+                        unguarded++;
+                    }
+                }
+                if (unguarded > 0) {
+                    result.add(new Diagnostic<>(DiagnosticKind.OVERLAPPING_GUARDS, state, trigger, String.format(
+                            "State '%s' has %d behaviours for trigger '%s', %d of them unguarded",
+                            state, behaviours.size(), trigger, unguarded)));
+                } else {
+                    result.add(new Diagnostic<>(DiagnosticKind.POSSIBLY_OVERLAPPING_GUARDS, state, trigger, String.format(
+                            "State '%s' has %d guarded behaviours for trigger '%s'; guards must be mutually exclusive",
+                            state, behaviours.size(), trigger)));
+                }
+            }
+
+            for (StateRepresentation<S, T, C> ancestor : ancestors) {
+                if (ancestor.getTriggerBehaviours().containsKey(trigger)) {
+                    result.add(new Diagnostic<>(DiagnosticKind.SHADOWED_TRIGGER, state, trigger, String.format(
+                            "Trigger '%s' is configured on state '%s' and on its superstate '%s'",
+                            trigger, state, ancestor.getUnderlyingState())));
+                    break;
+                }
+            }
+        }
+
+        if (!hasExit(representation) && !anyHasExit(ancestors)) {
+            result.add(new Diagnostic<>(DiagnosticKind.DEAD_END_STATE, state, null,
+                    "No transition leaves state '" + state + "'"));
+        }
+        return result;
+    }
+
+    private List<Diagnostic<S, T>> findUnreachableStates(S initialState) {
+        Set<S> reachable = new HashSet<>();
+        Deque<S> queue = new ArrayDeque<>();
+        reachable.add(initialState);
+        queue.add(initialState);
+
+        while (!queue.isEmpty()) {
+            S state = queue.poll();
+            StateRepresentation<S, T, C> representation = representations.get(state);
+            if (representation == null) {
+                continue;
+            }
+            List<StateRepresentation<S, T, C>> lineage = ancestorsOf(representation);
+            lineage.add(0, representation);
+            for (TriggerBehaviour<S, T, C> completion : representation.getCompletions()) {
+                S destination = completion.transitionsTo(new SelectorCondition<>(state, null, null));
+                if (reachable.add(destination)) {
+                    queue.add(destination);
+                }
+            }
+            for (StateRepresentation<S, T, C> source : lineage) {
+                reachable.add(source.getUnderlyingState());
+                for (List<TriggerBehaviour<S, T, C>> behaviours : source.getTriggerBehaviours().values()) {
+                    for (TriggerBehaviour<S, T, C> behaviour : behaviours) {
+                        if (behaviour.isInternal()) {
+                            continue;
+                        }
+                        if (!(behaviour instanceof TransitioningTriggerBehaviour)) {
+                            // destinations of dynamic transitions are unknown, so nothing can be proven unreachable
+                            return Collections.emptyList();
+                        }
+                        S destination = behaviour.transitionsTo(new SelectorCondition<>(state, behaviour.getTrigger(), null));
+                        if (reachable.add(destination)) {
+                            queue.add(destination);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Diagnostic<S, T>> result = new ArrayList<>();
+        for (S state : representations.keySet()) {
+            if (!reachable.contains(state)) {
+                result.add(new Diagnostic<>(DiagnosticKind.UNREACHABLE_STATE, state, null,
+                        "State '" + state + "' cannot be reached from initial state '" + initialState + "'"));
+            }
+        }
+        return result;
+    }
+
+    private boolean anyHasExit(List<StateRepresentation<S, T, C>> representations) {
+        for (StateRepresentation<S, T, C> representation : representations) {
+            if (hasExit(representation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasExit(StateRepresentation<S, T, C> representation) {
+        if (!representation.getCompletions().isEmpty()) {
+            return true;
+        }
+        for (List<TriggerBehaviour<S, T, C>> behaviours : representation.getTriggerBehaviours().values()) {
+            for (TriggerBehaviour<S, T, C> behaviour : behaviours) {
+                if (!behaviour.isInternal()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The superstates of a representation, nearest first. Stops at a superstate cycle.
+     */
+    private List<StateRepresentation<S, T, C>> ancestorsOf(StateRepresentation<S, T, C> representation) {
+        List<StateRepresentation<S, T, C>> result = new ArrayList<>();
+        Set<StateRepresentation<S, T, C>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        seen.add(representation);
+        StateRepresentation<S, T, C> current = representation.getSuperState();
+        while (current != null && seen.add(current)) {
+            result.add(current);
+            current = current.getSuperState();
+        }
+        return result;
+    }
+}
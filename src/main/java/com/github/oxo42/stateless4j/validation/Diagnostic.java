@@ -0,0 +1,60 @@
+package com.github.oxo42.stateless4j.validation;
+
+/**
+ * A single problem found in a state machine configuration
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ */
+public class Diagnostic<S, T> {
+
+    private final DiagnosticKind kind;
+    private final S state;
+    private final T trigger;
+    private final String message;
+
+    /**
+     * Construct a diagnostic
+     *
+     * @param kind    The kind of problem
+     * @param state   The state the problem was found in
+     * @param trigger The trigger involved, or null
+     * @param message A human-readable description
+     */
+    public Diagnostic(DiagnosticKind kind, S state, T trigger, String message) {
+        this.kind = kind;
+        this.state = state;
+        this.trigger = trigger;
+        this.message = message;
+    }
+
+    public DiagnosticKind getKind() {
+        return kind;
+    }
+
+    public Severity getSeverity() {
+        return kind.getSeverity();
+    }
+
+    public S getState() {
+        return state;
+    }
+
+    /**
+     * The trigger involved
+     *
+     * @return The trigger, or null if the problem is not related to a trigger
+     */
+    public T getTrigger() {
+        return trigger;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return getSeverity() + " " + kind + ": " + message;
+    }
+}
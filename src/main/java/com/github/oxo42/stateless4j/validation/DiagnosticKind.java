@@ -0,0 +1,49 @@
+package com.github.oxo42.stateless4j.validation;
+
+/**
+ * The kinds of problems detected by {@link ConfigurationValidator}
+ */
+public enum DiagnosticKind {
+
+    /**
+     * A state is its own (transitive) superstate
+     */
+    SUPERSTATE_CYCLE(Severity.ERROR),
+
+    /**
+     * Several unguarded behaviours, or an unguarded and a guarded behaviour,
+     * are configured for the same trigger in the same state
+     */
+    OVERLAPPING_GUARDS(Severity.ERROR),
+
+    /**
+     * Several guarded behaviours are configured for the same trigger in the same state,
+     * so their guards must be mutually exclusive
+     */
+    POSSIBLY_OVERLAPPING_GUARDS(Severity.WARNING),
+
+    /**
+     * A state cannot be reached from the initial state
+     */
+    UNREACHABLE_STATE(Severity.WARNING),
+
+    /**
+     * A trigger is configured on a state and on one of its superstates
+     */
+    SHADOWED_TRIGGER(Severity.INFO),
+
+    /**
+     * No transition leaves a state, neither its own nor an inherited one
+     */
+    DEAD_END_STATE(Severity.INFO);
+
+    private final Severity severity;
+
+    DiagnosticKind(Severity severity) {
+        this.severity = severity;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+}
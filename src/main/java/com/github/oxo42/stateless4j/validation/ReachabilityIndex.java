@@ -0,0 +1,387 @@
+package com.github.oxo42.stateless4j.validation;
+
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.StateRepresentation;
+import com.github.oxo42.stateless4j.transitions.SelectorCondition;
+import com.github.oxo42.stateless4j.transitions.TransitioningTriggerBehaviour;
+import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The transition graph of a frozen configuration, indexed for reachability and shortest path queries.
+ * <p>
+ * A state handles the triggers of its superstates unless it handles the same trigger itself without a
+ * guard. The index over-approximates the behaviour of state machines: guarded transitions are assumed
+ * to be possible, a dynamic transition may lead to any state, and a transition into a state with a
+ * {@link com.github.oxo42.stateless4j.HistoryType history} may lead to any of its substates.
+ * {@link #canReach} returning false therefore proves that a state is unreachable.
+ * <p>
+ * The transitive closure is computed once, on the condensation of the graph into strongly connected
+ * components, and stored as one bit set per component. Shortest paths only follow transitions with a
+ * known destination; the breadth-first search tree of each source state is computed on first use and cached.
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ */
+public class ReachabilityIndex<S, T> {
+
+    private final Map<S, Integer> ids = new HashMap<>();
+    private final List<S> states = new ArrayList<>();
+    /**
+     * Successors of each node, including the virtual nodes standing for "any state" and for the
+     * substates of a state with a history
+     */
+    private int[][] successors;
+    /**
+     * Transitions with a known destination, per state: destinations and triggers at the same index
+     */
+    private int[][] destinations;
+    private Object[][] triggers;
+    private int[] component;
+    private BitSet[] closure;
+    private final Map<Integer, int[]> searchTrees = new ConcurrentHashMap<>();
+
+    private ReachabilityIndex() {
+    }
+
+    /**
+     * Build the index of a configuration
+     *
+     * @param config The configuration
+     * @return The index
+     * @throws IllegalStateException if the configuration is not frozen
+     */
+    public static <S, T, C> ReachabilityIndex<S, T> of(StateMachineConfig<S, T, C> config) {
+        if (!config.isFrozen()) {
+            throw new IllegalStateException("The reachability index requires a frozen configuration");
+        }
+        ReachabilityIndex<S, T> index = new ReachabilityIndex<>();
+        index.build(config);
+        return index;
+    }
+
+    private <C> void build(StateMachineConfig<S, T, C> config) {
+        for (StateRepresentation<S, T, C> representation : config.getRepresentations()) {
+            id(representation.getUnderlyingState());
+        }
+
+        List<List<Integer>> next = new ArrayList<>();
+        List<List<Integer>> concrete = new ArrayList<>();
+        List<List<Object>> labels = new ArrayList<>();
+        Map<S, Integer> historyNodes = new HashMap<>();
+        int any = -1;
+        for (int s = 0; s < states.size(); s++) {
+            S state = states.get(s);
+            ensureNode(next, s);
+            StateRepresentation<S, T, C> representation = config.getRepresentation(state);
+            if (representation == null) {
+                continue;
+            }
+            List<Integer> stateConcrete = new ArrayList<>();
+            List<Object> stateLabels = new ArrayList<>();
+            boolean dynamic = false;
+
+            List<TriggerBehaviour<S, T, C>> outgoing = new ArrayList<>(representation.getCompletions());
+            Set<T> shadowed = new HashSet<>();
+            for (StateRepresentation<S, T, C> r = representation; r != null; r = r.getSuperState()) {
+                Set<T> handled = new HashSet<>();
+                for (Map.Entry<T, List<TriggerBehaviour<S, T, C>>> entry : r.getTriggerBehaviours().entrySet()) {
+                    if (shadowed.contains(entry.getKey())) {
+                        continue;
+                    }
+                    for (TriggerBehaviour<S, T, C> behaviour : entry.getValue()) {
+                        outgoing.add(behaviour);
+                        if (!behaviour.isGuarded()) {
+                            handled.add(entry.getKey());
+                        }
+                    }
+                }
+                shadowed.addAll(handled);
+            }
+
+            for (TriggerBehaviour<S, T, C> behaviour : outgoing) {
+                if (behaviour.isInternal() || behaviour.isDeferred()) {
+                    continue;
+                }
+                if (!(behaviour instanceof TransitioningTriggerBehaviour)) {
+                    dynamic = true;
+                    continue;
+                }
+                S destination = behaviour.transitionsTo(new SelectorCondition<>(state, behaviour.getTrigger(), null));
+                int d = id(destination);
+                ensureNode(next, d);
+                next.get(s).add(d);
+                stateConcrete.add(d);
+                stateLabels.add(behaviour.getTrigger());
+                StateRepresentation<S, T, C> target = config.getRepresentation(destination);
+                if (target != null && target.getHistoryType() != null && !target.getSubStates().isEmpty()) {
+                    Integer node = historyNodes.get(destination);
+                    if (node == null) {
+                        node = -2 - historyNodes.size();
+                        historyNodes.put(destination, node);
+                    }
+                    next.get(s).add(node);
+                }
+            }
+            if (dynamic) {
+                next.get(s).add(any);
+            }
+            while (concrete.size() <= s) {
+                concrete.add(new ArrayList<>());
+                labels.add(new ArrayList<>());
+            }
+            concrete.set(s, stateConcrete);
+            labels.set(s, stateLabels);
+        }
+
+        int stateCount = states.size();
+        // virtual nodes follow the states: "any state", then one per state with a history
+        int virtualAny = stateCount;
+        successors = new int[stateCount + 1 + historyNodes.size()][];
+        for (int s = 0; s < stateCount; s++) {
+            List<Integer> targets = s < next.size() ? next.get(s) : Collections.emptyList();
+            int[] resolved = new int[targets.size()];
+            for (int i = 0; i < resolved.length; i++) {
+                int target = targets.get(i);
+                resolved[i] = target == any ? virtualAny : target <= -2 ? stateCount + 1 + (-2 - target) : target;
+            }
+            successors[s] = resolved;
+        }
+        int[] all = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            all[s] = s;
+        }
+        successors[virtualAny] = all;
+        for (Map.Entry<S, Integer> entry : historyNodes.entrySet()) {
+            List<Integer> members = new ArrayList<>();
+            collectDescendants(config.getRepresentation(entry.getKey()), members);
+            int[] resolved = new int[members.size()];
+            for (int i = 0; i < resolved.length; i++) {
+                resolved[i] = members.get(i);
+            }
+            successors[stateCount + 1 + (-2 - entry.getValue())] = resolved;
+        }
+
+        destinations = new int[stateCount][];
+        triggers = new Object[stateCount][];
+        for (int s = 0; s < stateCount; s++) {
+            List<Integer> stateConcrete = s < concrete.size() ? concrete.get(s) : Collections.emptyList();
+            destinations[s] = new int[stateConcrete.size()];
+            for (int i = 0; i < destinations[s].length; i++) {
+                destinations[s][i] = stateConcrete.get(i);
+            }
+            triggers[s] = s < labels.size() ? labels.get(s).toArray() : new Object[0];
+        }
+
+        computeClosure();
+    }
+
+    private <C> void collectDescendants(StateRepresentation<S, T, C> representation, List<Integer> result) {
+        Deque<StateRepresentation<S, T, C>> pending = new ArrayDeque<>();
+        pending.push(representation);
+        while (!pending.isEmpty()) {
+            StateRepresentation<S, T, C> current = pending.pop();
+            result.add(ids.get(current.getUnderlyingState()));
+            for (StateRepresentation<S, T, C> substate : current.getSubStates()) {
+                pending.push(substate);
+            }
+        }
+    }
+
+    private static void ensureNode(List<List<Integer>> next, int node) {
+        while (next.size() <= node) {
+            next.add(new ArrayList<>());
+        }
+    }
+
+    private int id(S state) {
+        Integer id = ids.get(state);
+        if (id == null) {
+            id = states.size();
+            ids.put(state, id);
+            states.add(state);
+        }
+        return id;
+    }
+
+    /**
+     * Tarjan's algorithm without recursion. Components are completed sinks first, so the closure of
+     * every successor component is known when a component is completed.
+     */
+    private void computeClosure() {
+        int n = successors.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        component = new int[n];
+        List<BitSet> closures = new ArrayList<>();
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int counter = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = 0;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int v = callNode[depth];
+                if (callEdge[depth] < successors[v].length) {
+                    int w = successors[v][callEdge[depth]++];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        callNode[depth] = w;
+                        callEdge[depth] = 0;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                if (low[v] == index[v]) {
+                    int c = closures.size();
+                    BitSet reach = new BitSet(n);
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        component[w] = c;
+                        reach.set(w);
+                    } while (w != v);
+                    for (int i = reach.nextSetBit(0); i >= 0; i = reach.nextSetBit(i + 1)) {
+                        for (int successor : successors[i]) {
+                            if (component[successor] != c) {
+                                reach.or(closures.get(component[successor]));
+                            }
+                        }
+                    }
+                    closures.add(reach);
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        closure = closures.toArray(new BitSet[0]);
+    }
+
+    /**
+     * Determine if a state may be reachable from another by firing triggers. Constant time.
+     *
+     * @param from The state to start from
+     * @param to   The state to reach
+     * @return False if no sequence of triggers leads from {@code from} to {@code to}; true if one may.
+     * A state always reaches itself.
+     */
+    public boolean canReach(S from, S to) {
+        int source = require(from);
+        return source == require(to) || closure[component[source]].get(ids.get(to));
+    }
+
+    /**
+     * All states that may be reachable from a state
+     *
+     * @param from The state to start from
+     * @return The states, including {@code from}
+     */
+    public Set<S> reachableFrom(S from) {
+        int source = require(from);
+        Set<S> result = new LinkedHashSet<>();
+        result.add(from);
+        BitSet reach = closure[component[source]];
+        for (int i = reach.nextSetBit(0); i >= 0 && i < states.size(); i = reach.nextSetBit(i + 1)) {
+            result.add(states.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * A shortest sequence of triggers leading from one state to another, following only transitions with
+     * a known destination. Guards along the path may reject the triggers.
+     *
+     * @param from The state to start from
+     * @param to   The state to reach
+     * @return The triggers, with null for a completion transition; an empty list if {@code from} equals
+     * {@code to}; or null if no such path exists
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> shortestPath(S from, S to) {
+        int source = require(from);
+        int target = require(to);
+        if (source == target) {
+            return Collections.emptyList();
+        }
+        if (!closure[component[source]].get(target)) {
+            return null;
+        }
+        int[] tree = searchTrees.computeIfAbsent(source, this::searchTree);
+        if (tree[2 * target] < 0) {
+            return null;
+        }
+        List<T> path = new ArrayList<>();
+        for (int node = target; node != source; node = tree[2 * node]) {
+            int parent = tree[2 * node];
+            path.add((T) triggers[parent][tree[2 * node + 1]]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Breadth-first search over the transitions with a known destination
+     *
+     * @return For each state, its parent and the index of the transition from the parent, or -1
+     */
+    private int[] searchTree(int source) {
+        int[] tree = new int[2 * states.size()];
+        Arrays.fill(tree, -1);
+        int[] queue = new int[states.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        tree[2 * source] = source;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = 0; i < destinations[node].length; i++) {
+                int destination = destinations[node][i];
+                if (tree[2 * destination] < 0) {
+                    tree[2 * destination] = node;
+                    tree[2 * destination + 1] = i;
+                    queue[tail++] = destination;
+                }
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * The states known to the index: all configured states and all destinations of transitions
+     *
+     * @return The states
+     */
+    public List<S> getStates() {
+        return Collections.unmodifiableList(states);
+    }
+
+    private int require(S state) {
+        Integer id = ids.get(state);
+        if (id == null) {
+            throw new IllegalStateException("State '" + state + "' is not known to the reachability index");
+        }
+        return id;
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.oxo42.stateless4j.validation;
+
+/**
+ * How serious a configuration diagnostic is
+ */
+public enum Severity {
+
+    /**
+     * The configuration will fail at runtime, e.g. with a {@link StackOverflowError}
+     * or an {@link IllegalStateException}
+     */
+    ERROR,
+
+    /**
+     * The configuration is legal but very likely not what was intended
+     */
+    WARNING,
+
+    /**
+     * The configuration is legal; reported for information only
+     */
+    INFO
+}
@@ -0,0 +1,63 @@
+package com.github.oxo42.stateless4j.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The diagnostics reported by {@link ConfigurationValidator}
+ *
+ * @param <S> The type used to represent the states
+ * @param <T> The type used to represent the triggers
+ */
+public class ValidationResult<S, T> {
+
+    private final List<Diagnostic<S, T>> diagnostics;
+
+    public ValidationResult(List<Diagnostic<S, T>> diagnostics) {
+        this.diagnostics = Collections.unmodifiableList(new ArrayList<>(diagnostics));
+    }
+
+    public List<Diagnostic<S, T>> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * The diagnostics of the given kind
+     *
+     * @param kind The kind to select
+     * @return The matching diagnostics, in report order
+     */
+    public List<Diagnostic<S, T>> getDiagnostics(DiagnosticKind kind) {
+        List<Diagnostic<S, T>> result = new ArrayList<>();
+        for (Diagnostic<S, T> diagnostic : diagnostics) {
+            if (diagnostic.getKind() == kind) {
+                result.add(diagnostic);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * True if any diagnostic has {@link Severity#ERROR}
+     *
+     * @return True if the configuration will fail at runtime
+     */
+    public boolean hasErrors() {
+        for (Diagnostic<S, T> diagnostic : diagnostics) {
+            if (diagnostic.getSeverity() == Severity.ERROR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Diagnostic<S, T> diagnostic : diagnostics) {
+            builder.append(diagnostic).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.transitions.SelectorCondition;
+import com.github.oxo42.stateless4j.triggers.TriggerBehaviour;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveGuardOrderTests {
+
+    private static StateMachineConfig<State, Trigger, Integer> routing() {
+        StateMachineConfig<State, Trigger, Integer> config = new StateMachineConfig<>();
+        config.setFirstMatch(true);
+        config.setAdaptiveGuardOrder(true);
+        config.configure(State.A)
+                .permitIf(Trigger.X, State.B, c -> c.getContext() == 1)
+                .permitIf(Trigger.X, State.C, c -> c.getContext() == 2)
+                .ignore(Trigger.Z);
+        config.configure(State.B).permit(Trigger.Y, State.A);
+        config.configure(State.C).permit(Trigger.Y, State.A);
+        return config;
+    }
+
+    private static void roundTrips(StateMachine<State, Trigger, Integer> sm, int context, int count) {
+        for (int i = 0; i < count; i++) {
+            sm.fire(Trigger.X, context);
+            sm.fire(Trigger.Y, context);
+        }
+    }
+
+    private static State first(List<TriggerBehaviour<State, Trigger, Integer>> order) {
+        return order.get(0).transitionsTo(new SelectorCondition<>(State.A, Trigger.X, null));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void AdaptiveOrderRequiresFirstMatch() {
+        new StateMachineConfig<State, Trigger, Integer>().setAdaptiveGuardOrder(true);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void FirstMatchCannotBeDisabledWhileAdaptive() {
+        routing().setFirstMatch(false);
+    }
+
+    @Test
+    public void MostFrequentGuardMovesFirst() {
+        StateMachineConfig<State, Trigger, Integer> config = routing();
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.A, config);
+
+        roundTrips(sm, 2, GuardOrder.REORDER_INTERVAL + 1);
+
+        List<TriggerBehaviour<State, Trigger, Integer>> order = config.getRepresentation(State.A).getGuardOrder(Trigger.X);
+        assertEquals(State.C, first(order));
+        assertArrayEquals(new long[]{0, GuardOrder.REORDER_INTERVAL + 1}, config.getRepresentation(State.A).getGuardHits(Trigger.X));
+    }
+
+    @Test
+    public void ReorderingKeepsDestinations() {
+        StateMachineConfig<State, Trigger, Integer> config = routing();
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.A, config);
+        roundTrips(sm, 2, 10);
+        config.reorderGuards();
+
+        sm.fire(Trigger.X, 1);
+        assertEquals(State.B, sm.getState());
+        sm.fire(Trigger.Y, 0);
+        sm.fire(Trigger.X, 2);
+        assertEquals(State.C, sm.getState());
+    }
+
+    @Test
+    public void FrozenConfigurationLearnsFromAllMachines() {
+        StateMachineConfig<State, Trigger, Integer> config = routing().freeze();
+        StateMachine<State, Trigger, Integer> first = new StateMachine<>(State.A, config);
+        StateMachine<State, Trigger, Integer> second = new StateMachine<>(State.A, config);
+
+        roundTrips(first, 2, 3);
+        roundTrips(second, 2, 4);
+        roundTrips(second, 1, 2);
+        config.reorderGuards();
+
+        StateRepresentation<State, Trigger, Integer> a = config.getRepresentation(State.A);
+        assertArrayEquals(new long[]{2, 7}, a.getGuardHits(Trigger.X));
+        assertEquals(State.C, first(a.getGuardOrder(Trigger.X)));
+    }
+
+    @Test
+    public void DeclarationOrderIsReportedWithoutAdaptiveMode() {
+        StateMachineConfig<State, Trigger, Integer> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .permitIf(Trigger.X, State.B, c -> false)
+                .permitIf(Trigger.X, State.C, c -> true);
+
+        new StateMachine<>(State.A, config).fire(Trigger.X, 0);
+
+        assertEquals(State.B, first(config.getRepresentation(State.A).getGuardOrder(Trigger.X)));
+        assertArrayEquals(new long[2], config.getRepresentation(State.A).getGuardHits(Trigger.X));
+    }
+
+    @Test
+    public void PeekedHandlersAreNotCounted() {
+        StateMachineConfig<State, Trigger, Integer> config = routing().freeze();
+        StateRepresentation<State, Trigger, Integer> a = config.getRepresentation(State.A);
+
+        TriggerBehaviour<State, Trigger, Integer> handler = a.peekHandler(Trigger.X, new SelectorCondition<>(State.A, Trigger.X, 2));
+
+        assertEquals(State.C, handler.transitionsTo(new SelectorCondition<>(State.A, Trigger.X, 2)));
+        assertArrayEquals(new long[2], a.getGuardHits(Trigger.X));
+    }
+}
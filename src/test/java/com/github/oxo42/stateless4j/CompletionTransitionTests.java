@@ -0,0 +1,113 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.transitions.Transition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompletionTransitionTests {
+
+    private enum State { IDLE, DECIDING, ACCEPTED, REJECTED, DONE }
+
+    private enum Trigger { SUBMIT, RESET }
+
+    private final List<Transition<State, Trigger, Integer>> transitions = new ArrayList<>();
+
+    private StateMachineConfig<State, Trigger, Integer> review() {
+        StateMachineConfig<State, Trigger, Integer> config = new StateMachineConfig<>();
+        config.configure(State.IDLE).permit(Trigger.SUBMIT, State.DECIDING);
+        config.configure(State.DECIDING)
+                .permitCompletionIf(State.ACCEPTED, c -> c.getContext() > 0)
+                .permitCompletion(State.REJECTED);
+        config.configure(State.ACCEPTED).permitCompletion(State.DONE);
+        config.configure(State.REJECTED).permit(Trigger.RESET, State.IDLE);
+        config.configure(State.DONE).onEntry(transitions::add);
+        config.getListeners().addListener(transitions::add);
+        return config;
+    }
+
+    @Test
+    public void CompletionTransitionsAreTakenAfterEntry() {
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.IDLE, review());
+
+        sm.fire(Trigger.SUBMIT, 1);
+
+        assertEquals(State.DONE, sm.getState());
+    }
+
+    @Test
+    public void FirstAcceptingCompletionIsTaken() {
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.IDLE, review());
+
+        sm.fire(Trigger.SUBMIT, 0);
+
+        assertEquals(State.REJECTED, sm.getState());
+    }
+
+    @Test
+    public void CompletionTransitionsHaveNoTrigger() {
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.IDLE, review());
+
+        sm.fire(Trigger.SUBMIT, 1);
+
+        List<State> destinations = new ArrayList<>();
+        List<Trigger> triggers = new ArrayList<>();
+        for (Transition<State, Trigger, Integer> transition : transitions) {
+            destinations.add(transition.getDestination());
+            triggers.add(transition.getTrigger());
+        }
+        assertEquals(Arrays.asList(State.DECIDING, State.ACCEPTED, State.DONE, State.DONE), destinations);
+        assertEquals(Arrays.asList(Trigger.SUBMIT, null, null, null), triggers);
+    }
+
+    @Test
+    public void InitialTransitionTakesCompletionTransitions() {
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.ACCEPTED, review());
+
+        sm.fireInitialTransition();
+
+        assertEquals(State.DONE, sm.getState());
+    }
+
+    @Test
+    public void LongChainRunsWithoutRecursion() {
+        int length = 10_000;
+        StateMachineConfig<Integer, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(0).permit(Trigger.SUBMIT, 1);
+        for (int i = 1; i < length; i++) {
+            config.configure(i).permitCompletion(i + 1);
+        }
+        config.setMaxCompletionChain(length);
+        StateMachine<Integer, Trigger, Object> sm = new StateMachine<>(0, config);
+
+        Thread thread = new Thread(null, () -> sm.fire(Trigger.SUBMIT), "chain", 128 * 1024);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+
+        assertEquals(Integer.valueOf(length), sm.getState());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void CompletionLoopExceedsMaximumChain() {
+        StateMachineConfig<State, Trigger, Integer> config = new StateMachineConfig<>();
+        config.configure(State.IDLE).permit(Trigger.SUBMIT, State.ACCEPTED);
+        config.configure(State.ACCEPTED).permitCompletion(State.REJECTED);
+        config.configure(State.REJECTED).permitCompletion(State.ACCEPTED);
+        config.setMaxCompletionChain(8);
+
+        new StateMachine<>(State.IDLE, config).fire(Trigger.SUBMIT, 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void CompletionToSameStateIsRejected() {
+        new StateMachineConfig<State, Trigger, Integer>().configure(State.IDLE).permitCompletion(State.IDLE);
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.oxo42.stateless4j;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class DeepHierarchyTests {
+
+    private static final int DEPTH = 10_000;
+    private static final long SMALL_STACK = 128 * 1024;
+
+    private final AtomicInteger entered = new AtomicInteger();
+    private final AtomicInteger exited = new AtomicInteger();
+
+    /**
+     * Two chains of {@link #DEPTH} states each: 0 is the root of 0..DEPTH-1 and DEPTH the root of
+     * DEPTH..2*DEPTH-1. The root of each chain moves to the leaf of the other.
+     */
+    private StateMachineConfig<Integer, String, Object> config() {
+        StateMachineConfig<Integer, String, Object> config = new StateMachineConfig<>();
+        for (int chain = 0; chain < 2; chain++) {
+            int root = chain * DEPTH;
+            for (int state = root; state < root + DEPTH; state++) {
+                StateConfiguration<Integer, String, Object> configuration = config.configure(state)
+                        .onEntry(t -> entered.incrementAndGet())
+                        .onExit(t -> exited.incrementAndGet());
+                if (state > root) {
+                    configuration.subStateOf(state - 1);
+                }
+            }
+        }
+        config.configure(0).permit("X", 2 * DEPTH - 1);
+        config.configure(DEPTH).permit("X", DEPTH - 1);
+        return config;
+    }
+
+    private static void runWithSmallStack(Runnable body) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                body.run();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "small-stack", SMALL_STACK);
+        thread.start();
+        thread.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    @Test
+    public void TransitionBetweenDeepLeavesExitsAndEntersEveryLevel() throws Exception {
+        StateMachine<Integer, String, Object> sm = new StateMachine<>(DEPTH - 1, config());
+
+        runWithSmallStack(() -> sm.fire("X"));
+
+        assertEquals(Integer.valueOf(2 * DEPTH - 1), sm.getState());
+        assertEquals(DEPTH, exited.get());
+        assertEquals(DEPTH, entered.get());
+    }
+
+    @Test
+    public void QueriesWalkDeepHierarchy() throws Exception {
+        StateMachine<Integer, String, Object> sm = new StateMachine<>(DEPTH - 1, config().freeze());
+
+        runWithSmallStack(() -> {
+            assertTrue(sm.isInState(0));
+            assertFalse(sm.isInState(DEPTH));
+            assertEquals(Collections.singletonList("X"), sm.getPermittedTriggers());
+            assertTrue(sm.configuration().getRepresentation(0).includes(DEPTH - 1));
+            assertFalse(sm.configuration().getRepresentation(0).includes(DEPTH));
+        });
+    }
+
+    @Test
+    public void InitialTransitionEntersEveryLevel() throws Exception {
+        StateMachine<Integer, String, Object> sm = new StateMachine<>(DEPTH - 1, config());
+
+        runWithSmallStack(sm::fireInitialTransition);
+
+        assertEquals(DEPTH, entered.get());
+    }
+
+    @Test
+    public void TransitionToSuperstateOnlyExitsSubstates() {
+        StateMachineConfig<Integer, String, Object> config = new StateMachineConfig<>();
+        config.configure(1).subStateOf(0).onExit(t -> exited.incrementAndGet());
+        config.configure(2).subStateOf(1).onExit(t -> exited.incrementAndGet()).permit("UP", 0);
+        config.configure(0).onEntry(t -> entered.incrementAndGet()).onExit(t -> exited.incrementAndGet());
+        StateMachine<Integer, String, Object> sm = new StateMachine<>(2, config);
+
+        sm.fire("UP");
+
+        assertEquals(2, exited.get());
+        assertEquals(0, entered.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void SuperstateCycleIsDetected() {
+        StateMachineConfig<Integer, String, Object> config = new StateMachineConfig<>();
+        config.configure(0).subStateOf(1);
+        config.configure(1).subStateOf(0);
+
+        new StateMachine<>(0, config).fire("X");
+    }
+
+    @Test
+    public void FrozenLineageSurvivesChangesToOtherConfigurations() {
+        StateMachineConfig<Integer, String, Object> config = new StateMachineConfig<>();
+        config.configure(1).subStateOf(0);
+        config.freeze();
+        StateRepresentation<Integer, String, Object>[] lineage = config.getRepresentation(1).ancestors();
+
+        StateMachineConfig<Integer, String, Object> other = new StateMachineConfig<>();
+        other.configure(1).subStateOf(0);
+
+        assertSame(lineage, config.getRepresentation(1).ancestors());
+    }
+
+    @Test
+    public void MutableLineageSurvivesChangesToOtherConfigurations() {
+        StateMachineConfig<Integer, String, Object> config = new StateMachineConfig<>();
+        config.configure(1).subStateOf(0);
+        StateRepresentation<Integer, String, Object>[] lineage = config.getRepresentation(1).ancestors();
+
+        StateMachineConfig<Integer, String, Object> other = new StateMachineConfig<>();
+        other.configure(1).subStateOf(0);
+
+        assertSame(lineage, config.getRepresentation(1).ancestors());
+        config.configure(2).subStateOf(1);
+        config.configure(0).subStateOf(3);
+        assertArrayEquals(new Integer[]{1, 0, 3}, states(config.getRepresentation(1).ancestors()));
+    }
+
+    private static Integer[] states(StateRepresentation<Integer, String, Object>[] lineage) {
+        Integer[] states = new Integer[lineage.length];
+        for (int i = 0; i < lineage.length; i++) {
+            states[i] = lineage[i].getUnderlyingState();
+        }
+        return states;
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.oxo42.stateless4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DeferredTriggerTests {
+
+    private StateMachineConfig<State, Trigger, String> config() {
+        StateMachineConfig<State, Trigger, String> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .defer(Trigger.Y)
+                .permit(Trigger.X, State.B);
+        config.configure(State.B)
+                .permit(Trigger.Y, State.C);
+        return config;
+    }
+
+    @Test
+    public void DeferredTriggerIsFiredOnEntryOfHandlingState() {
+        StateMachine<State, Trigger, String> sm = new StateMachine<>(State.A, config());
+
+        sm.fire(Trigger.Y);
+        assertEquals(State.A, sm.getState());
+        assertEquals(1, sm.getDeferredTriggerCount());
+
+        sm.fire(Trigger.X);
+        assertEquals(State.C, sm.getState());
+        assertEquals(0, sm.getDeferredTriggerCount());
+    }
+
+    @Test
+    public void DeferredTriggerKeepsItsContext() {
+        StateMachineConfig<State, Trigger, String> config = config();
+        List<String> seen = new ArrayList<>();
+        config.configure(State.C).onEntry(t -> seen.add(t.getContext()));
+        StateMachine<State, Trigger, String> sm = new StateMachine<>(State.A, config);
+
+        sm.fire(Trigger.Y, "deferred");
+        sm.fire(Trigger.X, "now");
+
+        assertEquals(Arrays.asList("deferred"), seen);
+    }
+
+    @Test
+    public void DeferralIsInheritedFromSuperstate() {
+        StateMachineConfig<State, Trigger, String> config = new StateMachineConfig<>();
+        config.configure(State.A).subStateOf(State.B).permit(Trigger.X, State.C);
+        config.configure(State.B).defer(Trigger.Z);
+        config.configure(State.C).permit(Trigger.Z, State.A);
+        StateMachine<State, Trigger, String> sm = new StateMachine<>(State.A, config);
+
+        sm.fire(Trigger.Z);
+        sm.fire(Trigger.X);
+
+        assertEquals(State.A, sm.getState());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void FullQueueRejectsByDefault() {
+        StateMachine<State, Trigger, String> sm = new StateMachine<>(State.A, config());
+        sm.setDeferralQueue(1, DeferralOverflowPolicy.REJECT);
+
+        sm.fire(Trigger.Y);
+        sm.fire(Trigger.Y);
+    }
+
+    @Test
+    public void FullQueueDropsOldest() {
+        List<String> seen = new ArrayList<>();
+        StateMachineConfig<State, Trigger, String> config = config();
+        config.configure(State.C).onEntry(t -> seen.add(t.getContext()));
+        StateMachine<State, Trigger, String> sm = new StateMachine<>(State.A, config);
+        sm.setDeferralQueue(1, DeferralOverflowPolicy.DROP_OLDEST);
+
+        sm.fire(Trigger.Y, "first");
+        sm.fire(Trigger.Y, "second");
+        sm.fire(Trigger.X);
+
+        assertEquals(Arrays.asList("second"), seen);
+        assertEquals(1, sm.getDeferralOverflowCount());
+    }
+
+    @Test
+    public void FullQueueSpillsToStore() {
+        List<String> spilled = new ArrayList<>();
+        StateMachine<State, Trigger, String> sm = new StateMachine<>(State.A, config());
+        sm.setDeferralQueue(1, (trigger, context) -> spilled.add(trigger + ":" + context));
+
+        sm.fire(Trigger.Y, "first");
+        sm.fire(Trigger.Y, "second");
+
+        assertEquals(1, sm.getDeferredTriggerCount());
+        assertEquals(Arrays.asList("Y:second"), spilled);
+    }
+
+    @Test
+    public void DeferredTriggerGuardIsEvaluatedOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        StateMachineConfig<State, Trigger, String> config = new StateMachineConfig<>();
+        config.configure(State.A).defer(Trigger.Y).permit(Trigger.X, State.B);
+        config.configure(State.B).permitIf(Trigger.Y, State.C, c -> calls.incrementAndGet() == 1);
+        StateMachine<State, Trigger, String> sm = new StateMachine<>(State.A, config);
+
+        sm.fire(Trigger.Y);
+        sm.fire(Trigger.X);
+
+        assertEquals(State.C, sm.getState());
+        assertEquals(1, calls.get());
+        assertEquals(0, sm.getDeferredTriggerCount());
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.oxo42.stateless4j;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class FootprintTests {
+
+    private static StateMachineConfig<State, Trigger, Integer> config() {
+        StateMachineConfig<State, Trigger, Integer> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B).onEntry(t -> { });
+        config.configure(State.B)
+                .permitIf(Trigger.X, State.C, c -> c.getContext() > 0)
+                .permitIf(Trigger.X, State.A, c -> c.getContext() <= 0)
+                .permit(Trigger.Y, State.A);
+        config.configure(State.C).subStateOf(State.B);
+        return config;
+    }
+
+    @Test
+    public void EveryStateIsReported() {
+        FootprintReport<State> report = config().estimateFootprint();
+
+        assertEquals(3, report.getStateBytes().size());
+        long total = report.getConfigBytes();
+        for (long bytes : report.getStateBytes().values()) {
+            assertTrue(bytes > 0);
+            total += bytes;
+        }
+        assertEquals(total, report.getTotalBytes());
+        assertEquals(0, report.getStateBytes(null));
+    }
+
+    @Test
+    public void StateWithMoreBehavioursRetainsMore() {
+        FootprintReport<State> report = config().freeze().estimateFootprint();
+
+        assertTrue(report.getStateBytes(State.B) > report.getStateBytes(State.A));
+        assertTrue(report.getStateBytes(State.A) > report.getStateBytes(State.C));
+    }
+
+    @Test
+    public void FreezingCompactsConfiguration() {
+        StateMachineConfig<State, Trigger, Integer> config = config();
+        long mutable = config.estimateFootprint().getTotalBytes();
+
+        long frozen = config.freeze().estimateFootprint().getTotalBytes();
+
+        assertTrue(frozen < mutable);
+    }
+
+    @Test
+    public void CompactedConfigurationStillFires() {
+        StateMachineConfig<State, Trigger, Integer> config = config().freeze();
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.A, config);
+
+        sm.fire(Trigger.X, 0);
+        sm.fire(Trigger.X, 1);
+
+        assertEquals(State.C, sm.getState());
+        assertEquals(1, config.getRepresentation(State.A).getTriggerBehaviours().size());
+        assertEquals(Collections.emptyList(), config.getRepresentation(State.A).getSubStates());
+    }
+
+    @Test
+    public void CapturedGuardsAreCounted() {
+        Integer threshold = 3;
+        StateMachineConfig<State, Trigger, Integer> capturing = new StateMachineConfig<>();
+        capturing.configure(State.A).permitIf(Trigger.X, State.B, c -> c.getContext() > threshold);
+        StateMachineConfig<State, Trigger, Integer> plain = new StateMachineConfig<>();
+        plain.configure(State.A).permitIf(Trigger.X, State.B, c -> c.getContext() > 3);
+
+        assertTrue(capturing.freeze().estimateFootprint().getTotalBytes() > plain.freeze().estimateFootprint().getTotalBytes());
+    }
+
+    @Test
+    public void MachineExcludesSharedConfiguration() {
+        StateMachineConfig<State, Trigger, Integer> config = config().freeze();
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.A, config);
+
+        long bytes = sm.estimateFootprint();
+
+        assertTrue(bytes > 0);
+        assertTrue(bytes < config.estimateFootprint().getTotalBytes());
+    }
+
+    @Test
+    public void DeferredTriggersGrowMachine() {
+        StateMachineConfig<State, Trigger, Integer> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B).defer(Trigger.Y);
+        config.configure(State.B).permit(Trigger.Y, State.A);
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.A, config.freeze());
+        long before = sm.estimateFootprint();
+
+        sm.fire(Trigger.Y);
+
+        assertTrue(sm.estimateFootprint() > before);
+    }
+}
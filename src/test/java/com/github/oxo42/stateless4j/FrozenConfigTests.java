@@ -0,0 +1,72 @@
+package com.github.oxo42.stateless4j;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FrozenConfigTests {
+
+    @Test
+    public void FrozenConfigStillDrivesMachines() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.freeze();
+
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config);
+        sm.fire(Trigger.X);
+
+        assertTrue(config.isFrozen());
+        assertEquals(State.B, sm.getState());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void ConfigureFailsAfterFreeze() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.freeze();
+
+        config.configure(State.C);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void RetainedStateConfigurationFailsAfterFreeze() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        StateConfiguration<State, Trigger, Object> a = config.configure(State.A);
+        config.freeze();
+
+        a.permit(Trigger.Y, State.C);
+    }
+
+    @Test
+    public void FrozenConfigIsSharedAcrossThreads() throws Exception {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B).permit(Trigger.X, State.A);
+        config.freeze();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] results = new Future<?>[4];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = executor.submit(() -> {
+                    StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config);
+                    for (int n = 0; n < 10_000; n++) {
+                        sm.fire(Trigger.X);
+                    }
+                    assertEquals(State.A, sm.getState());
+                });
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
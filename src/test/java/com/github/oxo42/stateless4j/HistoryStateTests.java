@@ -0,0 +1,125 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.store.MapStateStore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HistoryStateTests {
+
+    private enum State { OFF, ON, IDLE, PLAYING, SLOW, FAST }
+
+    private enum Trigger { POWER, PLAY, SPEED }
+
+    private final List<String> log = new ArrayList<>();
+
+    private StateMachineConfig<State, Trigger, Object> player(HistoryType type) {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.OFF).permit(Trigger.POWER, State.ON);
+        config.configure(State.ON).history(type).permit(Trigger.POWER, State.OFF).permit(Trigger.PLAY, State.IDLE)
+                .onEntry(t -> log.add("enter ON"));
+        config.configure(State.IDLE).subStateOf(State.ON).permit(Trigger.PLAY, State.SLOW);
+        config.configure(State.PLAYING).subStateOf(State.ON).onEntry(t -> log.add("enter PLAYING"));
+        config.configure(State.SLOW).subStateOf(State.PLAYING).permit(Trigger.SPEED, State.FAST);
+        config.configure(State.FAST).subStateOf(State.PLAYING).permit(Trigger.SPEED, State.SLOW)
+                .onEntry(t -> log.add("enter FAST"));
+        return config;
+    }
+
+    private StateMachine<State, Trigger, Object> playingFast(StateMachineConfig<State, Trigger, Object> config) {
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.FAST, config);
+        sm.fire(Trigger.POWER);
+        log.clear();
+        return sm;
+    }
+
+    @Test
+    public void CompositeIsEnteredUntilHistoryIsRecorded() {
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.OFF, player(HistoryType.DEEP));
+
+        sm.fire(Trigger.POWER);
+
+        assertEquals(State.ON, sm.getState());
+        assertNull(sm.getHistory(State.ON));
+    }
+
+    @Test
+    public void ShallowHistoryRestoresDirectSubstate() {
+        StateMachine<State, Trigger, Object> sm = playingFast(player(HistoryType.SHALLOW));
+
+        sm.fire(Trigger.POWER);
+
+        assertEquals(State.PLAYING, sm.getState());
+        assertEquals(Arrays.asList("enter ON", "enter PLAYING"), log);
+    }
+
+    @Test
+    public void DeepHistoryRestoresInnermostSubstate() {
+        StateMachine<State, Trigger, Object> sm = playingFast(player(HistoryType.DEEP));
+
+        sm.fire(Trigger.POWER);
+
+        assertEquals(State.FAST, sm.getState());
+        assertEquals(Arrays.asList("enter ON", "enter PLAYING", "enter FAST"), log);
+    }
+
+    @Test
+    public void NestedShallowHistoryIsRestoredInTurn() {
+        StateMachineConfig<State, Trigger, Object> config = player(HistoryType.SHALLOW);
+        config.configure(State.PLAYING).history(HistoryType.SHALLOW);
+        StateMachine<State, Trigger, Object> sm = playingFast(config);
+
+        sm.fire(Trigger.POWER);
+
+        assertEquals(State.FAST, sm.getState());
+    }
+
+    @Test
+    public void TransitionsWithinCompositeAreNotRecorded() {
+        StateMachine<State, Trigger, Object> sm = playingFast(player(HistoryType.DEEP));
+        sm.fire(Trigger.POWER);
+
+        sm.fire(Trigger.SPEED);
+
+        assertEquals(State.SLOW, sm.getState());
+        assertEquals(State.FAST, sm.getHistory(State.ON));
+    }
+
+    @Test
+    public void ClearedHistoryEntersComposite() {
+        StateMachine<State, Trigger, Object> sm = playingFast(player(HistoryType.DEEP));
+
+        sm.clearHistory();
+        sm.fire(Trigger.POWER);
+
+        assertEquals(State.ON, sm.getState());
+    }
+
+    @Test
+    public void FrozenConfigurationKeepsHistoryPerMachine() {
+        StateMachineConfig<State, Trigger, Object> config = player(HistoryType.DEEP).freeze();
+        StateMachine<State, Trigger, Object> fast = playingFast(config);
+        StateMachine<State, Trigger, Object> off = new StateMachine<>(State.OFF, config);
+
+        fast.fire(Trigger.POWER);
+        off.fire(Trigger.POWER);
+
+        assertEquals(State.FAST, fast.getState());
+        assertEquals(State.ON, off.getState());
+    }
+
+    @Test
+    public void KeyedStateMachineIgnoresHistory() {
+        KeyedStateMachine<String, State, Trigger, Object> machines =
+                new KeyedStateMachine<>(player(HistoryType.DEEP), new MapStateStore<>(), State.FAST);
+        machines.fire("a", Trigger.POWER, null);
+
+        machines.fire("a", Trigger.POWER, null);
+
+        assertEquals(State.ON, machines.getState("a"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.triggers.SelectorCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MemoizedSelectorTests {
+
+    private final AtomicInteger selections = new AtomicInteger();
+
+    private StateMachineConfig<State, Trigger, Integer> routing(SelectorCache<Integer, State> cache) {
+        StateMachineConfig<State, Trigger, Integer> config = new StateMachineConfig<>();
+        config.configure(State.A).permitDynamic(Trigger.X, c -> c.getContext() % 10, c -> {
+            selections.incrementAndGet();
+            return c.getContext() % 10 == 0 ? State.B : State.C;
+        }, cache);
+        config.configure(State.B).permit(Trigger.Y, State.A);
+        config.configure(State.C).permit(Trigger.Y, State.A);
+        return config;
+    }
+
+    @Test
+    public void SelectorIsCalledOncePerKey() {
+        SelectorCache<Integer, State> cache = new SelectorCache<>(16);
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.A, routing(cache));
+
+        for (int i = 0; i < 100; i++) {
+            sm.fire(Trigger.X, i);
+            assertEquals(i % 10 == 0 ? State.B : State.C, sm.getState());
+            sm.fire(Trigger.Y, i);
+        }
+
+        assertEquals(10, selections.get());
+        assertEquals(10, cache.getMisses());
+        assertEquals(90, cache.getHits());
+        assertEquals(0.9, cache.getHitRate(), 1e-9);
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void LeastRecentlyUsedKeyIsEvicted() {
+        SelectorCache<Integer, State> cache = new SelectorCache<>(1);
+
+        cache.get(1, () -> State.A);
+        cache.get(2, () -> State.B);
+        State reselected = cache.get(1, () -> State.C);
+
+        assertEquals(State.C, reselected);
+        assertEquals(2, cache.getEvictions());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void RecentlyUsedKeySurvivesEviction() {
+        SelectorCache<Integer, State> cache = new SelectorCache<>(2);
+        cache.get(1, () -> State.A);
+        cache.get(2, () -> State.B);
+
+        cache.get(1, () -> State.C);
+        cache.get(3, () -> State.C);
+
+        assertEquals(State.A, cache.get(1, () -> State.C));
+    }
+
+    @Test
+    public void ClearedCacheSelectsAgain() {
+        SelectorCache<Integer, State> cache = new SelectorCache<>(16);
+        StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.A, routing(cache));
+        sm.fire(Trigger.X, 1);
+        sm.fire(Trigger.Y, 1);
+
+        cache.clear();
+        sm.fire(Trigger.X, 1);
+
+        assertEquals(2, selections.get());
+    }
+
+    @Test
+    public void CacheIsSharedByMachinesOnFrozenConfiguration() throws Exception {
+        SelectorCache<Integer, State> cache = new SelectorCache<>(64);
+        StateMachineConfig<State, Trigger, Integer> config = routing(cache).freeze();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    StateMachine<State, Trigger, Integer> sm = new StateMachine<>(State.A, config);
+                    for (int i = 0; i < 1000; i++) {
+                        sm.fire(Trigger.X, i);
+                        assertEquals(i % 10 == 0 ? State.B : State.C, sm.getState());
+                        sm.fire(Trigger.Y, i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(4000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.getMisses() >= 10 && cache.getMisses() <= 40);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void CapacityMustBePositive() {
+        new SelectorCache<Integer, State>(0);
+    }
+}
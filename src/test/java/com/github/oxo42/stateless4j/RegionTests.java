@@ -0,0 +1,126 @@
+package com.github.oxo42.stateless4j;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RegionTests {
+
+    private enum State { DEVICE, RETIRED, OFF, ON, DISCONNECTED, CONNECTED }
+
+    private enum Trigger { POWER, CONNECT, RESET, RETIRE }
+
+    private final List<String> log = Collections.synchronizedList(new ArrayList<>());
+    private StateMachineConfig<State, Trigger, Object> power;
+    private StateMachineConfig<State, Trigger, Object> connectivity;
+
+    @Before
+    public void setUp() {
+        power = new StateMachineConfig<>();
+        power.configure(State.OFF).permit(Trigger.POWER, State.ON).onExit(t -> log.add("exit OFF"));
+        power.configure(State.ON).permit(Trigger.RESET, State.OFF).onExit(t -> log.add("exit ON"));
+
+        connectivity = new StateMachineConfig<>();
+        connectivity.configure(State.DISCONNECTED).permit(Trigger.CONNECT, State.CONNECTED);
+        connectivity.configure(State.CONNECTED).permit(Trigger.RESET, State.DISCONNECTED);
+    }
+
+    private StateMachine<State, Trigger, Object> device(boolean independent) {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        StateConfiguration<State, Trigger, Object> composite = config.configure(State.DEVICE)
+                .region(power, State.OFF)
+                .region(connectivity, State.DISCONNECTED)
+                .permit(Trigger.RETIRE, State.RETIRED);
+        if (independent) {
+            composite.independentRegions(ForkJoinPool.commonPool());
+        }
+        return new StateMachine<>(State.DEVICE, config);
+    }
+
+    @Test
+    public void TriggerIsDispatchedToHandlingRegion() {
+        StateMachine<State, Trigger, Object> sm = device(false);
+
+        sm.fire(Trigger.POWER);
+
+        assertEquals(State.DEVICE, sm.getState());
+        assertTrue(sm.isInState(State.ON));
+        assertTrue(sm.isInState(State.DISCONNECTED));
+        assertFalse(sm.isInState(State.OFF));
+    }
+
+    @Test
+    public void TriggerIsDispatchedToAllHandlingRegions() {
+        StateMachine<State, Trigger, Object> sm = device(false);
+        sm.fire(Trigger.POWER);
+        sm.fire(Trigger.CONNECT);
+
+        sm.fire(Trigger.RESET);
+
+        assertEquals(Arrays.asList(State.DEVICE, State.OFF, State.DISCONNECTED), sm.getActiveStates());
+    }
+
+    @Test
+    public void IndependentRegionsAreEvaluatedOnPool() {
+        StateMachine<State, Trigger, Object> sm = device(true);
+        sm.fire(Trigger.POWER);
+        sm.fire(Trigger.CONNECT);
+
+        sm.fire(Trigger.RESET);
+
+        assertEquals(Arrays.asList(State.DEVICE, State.OFF, State.DISCONNECTED), sm.getActiveStates());
+    }
+
+    @Test
+    public void UnhandledByRegionsFallsThroughToCompositeState() {
+        StateMachine<State, Trigger, Object> sm = device(false);
+        sm.fire(Trigger.POWER);
+
+        sm.fire(Trigger.RETIRE);
+
+        assertEquals(State.RETIRED, sm.getState());
+        assertEquals(Collections.singletonList(State.RETIRED), sm.getActiveStates());
+        assertFalse(sm.isInState(State.ON));
+        assertEquals(Arrays.asList("exit OFF", "exit ON"), log);
+    }
+
+    @Test
+    public void RegionsRestartWhenCompositeIsReentered() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.DEVICE)
+                .region(power, State.OFF)
+                .permit(Trigger.RETIRE, State.RETIRED);
+        config.configure(State.RETIRED).permit(Trigger.CONNECT, State.DEVICE);
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.DEVICE, config);
+        sm.fireInitialTransition();
+        sm.fire(Trigger.POWER);
+
+        sm.fire(Trigger.RETIRE);
+        sm.fire(Trigger.CONNECT);
+
+        assertEquals(Arrays.asList(State.DEVICE, State.OFF), sm.getActiveStates());
+    }
+
+    @Test
+    public void RegionGuardIsEvaluatedOncePerFire() {
+        AtomicInteger calls = new AtomicInteger();
+        StateMachineConfig<State, Trigger, Object> guarded = new StateMachineConfig<>();
+        guarded.configure(State.OFF).permitIf(Trigger.POWER, State.ON, c -> calls.incrementAndGet() == 1);
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.DEVICE).region(guarded, State.OFF);
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.DEVICE, config);
+
+        sm.fire(Trigger.POWER);
+
+        assertEquals(1, calls.get());
+        assertTrue(sm.isInState(State.ON));
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.oxo42.stateless4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TriggerIndexedActionTests {
+
+    @Test
+    public void OnlyActionsForFiringTriggerRun() {
+        List<String> log = new ArrayList<>();
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B).permit(Trigger.Y, State.B);
+        config.configure(State.B)
+                .onEntryFrom(Trigger.X, t -> log.add("from X"))
+                .onEntryFrom(Trigger.Y, t -> log.add("from Y"));
+
+        new StateMachine<>(State.A, config).fire(Trigger.Y);
+
+        assertEquals(Collections.singletonList("from Y"), log);
+    }
+
+    @Test
+    public void RegistrationOrderIsKept() {
+        List<String> log = new ArrayList<>();
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B)
+                .onEntry(t -> log.add("1"))
+                .onEntryFrom(Trigger.X, t -> log.add("2"))
+                .onEntry(t -> log.add("3"))
+                .onEntryFrom(Trigger.X, t -> log.add("4"))
+                .onEntryFrom(Trigger.Y, t -> log.add("never"));
+        config.getRepresentation(State.B).insertEntryAction(t -> log.add("0"));
+
+        new StateMachine<>(State.A, config).fire(Trigger.X);
+
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4"), log);
+    }
+
+    @Test
+    public void OnExitViaRunsForItsTriggerOnly() {
+        List<String> log = new ArrayList<>();
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .permit(Trigger.X, State.B)
+                .permit(Trigger.Y, State.C)
+                .onExit(t -> log.add("exit"))
+                .onExitVia(Trigger.Y, t -> log.add("exit via Y"));
+        config.configure(State.B).permit(Trigger.X, State.A);
+
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config);
+        sm.fire(Trigger.X);
+        sm.fire(Trigger.X);
+        sm.fire(Trigger.Y);
+
+        assertEquals(Arrays.asList("exit", "exit", "exit via Y"), log);
+    }
+
+    @Test
+    public void InitialTransitionRunsUnconditionalActionsOnly() {
+        List<String> log = new ArrayList<>();
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .onEntry(t -> log.add("entry"))
+                .onEntryFrom(Trigger.X, t -> log.add("from X"));
+
+        new StateMachine<>(State.A, config).fireInitialTransition();
+
+        assertEquals(Collections.singletonList("entry"), log);
+    }
+}
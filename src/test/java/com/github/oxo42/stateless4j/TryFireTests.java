@@ -0,0 +1,67 @@
+package com.github.oxo42.stateless4j;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TryFireTests {
+
+    private StateMachineConfig<State, Trigger, Object> config() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .permit(Trigger.X, State.B)
+                .ignore(Trigger.Y)
+                .defer(Trigger.Z);
+        return config;
+    }
+
+    @Test
+    public void ResultDescribesHandling() {
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config());
+
+        assertEquals(FireResult.INTERNAL, sm.tryFire(Trigger.Y));
+        assertEquals(FireResult.DEFERRED, sm.tryFire(Trigger.Z));
+        assertEquals(FireResult.TRANSITIONED, sm.tryFire(Trigger.X));
+        assertEquals(FireResult.UNHANDLED, sm.tryFire(Trigger.X));
+        assertFalse(FireResult.UNHANDLED.isHandled());
+    }
+
+    @Test
+    public void TryFireDoesNotCallUnhandledTriggerAction() {
+        AtomicInteger calls = new AtomicInteger();
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.B, config());
+        sm.onUnhandledTrigger(condition -> calls.incrementAndGet());
+
+        assertEquals(FireResult.UNHANDLED, sm.tryFire(Trigger.X, null));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void DefaultExceptionNamesStateAndTrigger() {
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.B, config());
+        try {
+            sm.fire(Trigger.X);
+            fail();
+        } catch (UnhandledTriggerException e) {
+            assertEquals(State.B, e.getState());
+            assertEquals(Trigger.X, e.getTrigger());
+            assertTrue(e.getMessage().contains("'B'"));
+            assertTrue(e.getStackTrace().length > 0);
+        }
+    }
+
+    @Test
+    public void StacklessExceptionHasNoStackTrace() {
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.B, config());
+        sm.onUnhandledTrigger(UnhandledTriggerException.throwStackless());
+        try {
+            sm.fire(Trigger.X);
+            fail();
+        } catch (UnhandledTriggerException e) {
+            assertEquals(Trigger.X, e.getTrigger());
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.oxo42.stateless4j;
+
+import com.github.oxo42.stateless4j.triggers.TypedTrigger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TypedTriggerTests {
+
+    @Test
+    public void TypedTriggerFiresWithContext() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        TypedTrigger<Trigger, String> x = config.register(Trigger.X, String.class);
+        List<Object> contexts = new ArrayList<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B).onEntry(t -> contexts.add(t.getContext()));
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config);
+
+        sm.fire(x, "payload");
+
+        assertEquals(State.B, sm.getState());
+        assertEquals("payload", contexts.get(0));
+        assertEquals(String.class, config.getContextClass(Trigger.X));
+    }
+
+    @Test
+    public void SameRegistrationIsAccepted() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.register(Trigger.X, String.class);
+
+        config.register(TypedTrigger.of(Trigger.X, String.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void ConflictingRegistrationFails() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.register(Trigger.X, String.class);
+
+        config.register(Trigger.X, Integer.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void UnregisteredContextTypeIsRejectedOnFire() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.register(Trigger.X, String.class);
+        config.configure(State.A).permit(Trigger.X, State.B);
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config);
+
+        sm.fire(TypedTrigger.of(Trigger.X, Integer.class), 42);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void UnregisteredTriggerIsRejectedOnFire() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config);
+
+        sm.fire(TypedTrigger.of(Trigger.X, String.class), "payload");
+    }
+
+    @Test
+    public void RegisteredTriggersFireOnFrozenConfiguration() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        TypedTrigger<Trigger, String> x = config.register(Trigger.X, String.class);
+        config.configure(State.A).permit(Trigger.X, State.B);
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config.freeze());
+
+        sm.fire(x, "payload");
+
+        assertEquals(String.class, config.getContextClass(Trigger.X));
+        assertEquals(State.B, sm.getState());
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.oxo42.stateless4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VersionedConfigTests {
+
+    @Test
+    public void MachinePicksUpPublishedConfigOnNextFire() {
+        StateMachineConfig<State, Trigger, Object> v1 = new StateMachineConfig<>();
+        v1.configure(State.A).permit(Trigger.X, State.B);
+        v1.configure(State.B).permit(Trigger.X, State.A);
+        VersionedStateMachineConfig<State, Trigger, Object> configs = new VersionedStateMachineConfig<>(v1);
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, configs);
+        sm.fire(Trigger.X);
+
+        StateMachineConfig<State, Trigger, Object> v2 = new StateMachineConfig<>();
+        v2.configure(State.B).permit(Trigger.X, State.C);
+        assertEquals(2, configs.publish(v2));
+        sm.fire(Trigger.X);
+
+        assertEquals(State.C, sm.getState());
+        assertSame(v2, sm.configuration());
+    }
+
+    @Test
+    public void ConfigDoesNotChangeDuringFire() {
+        StateMachineConfig<State, Trigger, Object> v1 = new StateMachineConfig<>();
+        StateMachineConfig<State, Trigger, Object> v2 = new StateMachineConfig<>();
+        List<VersionedStateMachineConfig<State, Trigger, Object>> configs = new ArrayList<>();
+        List<StateMachine<State, Trigger, Object>> machines = new ArrayList<>();
+        v1.configure(State.A).permit(Trigger.X, State.B);
+        v1.configure(State.B)
+                .onEntry(t -> configs.get(0).publish(v2))
+                .onEntry(t -> machines.get(0).fire(Trigger.Y))
+                .permit(Trigger.Y, State.C);
+        configs.add(new VersionedStateMachineConfig<>(v1));
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, configs.get(0));
+        machines.add(sm);
+
+        sm.fire(Trigger.X);
+
+        assertEquals(State.C, sm.getState());
+        assertSame(v1, sm.configuration());
+    }
+
+    @Test
+    public void RemovedStateIsMigrated() {
+        StateMachineConfig<State, Trigger, Object> v1 = new StateMachineConfig<>();
+        v1.configure(State.A).permit(Trigger.X, State.B);
+        v1.configure(State.B);
+        VersionedStateMachineConfig<State, Trigger, Object> configs = new VersionedStateMachineConfig<>(v1);
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, configs);
+        sm.setMigration((state, config) -> State.C);
+        sm.fire(Trigger.X);
+
+        StateMachineConfig<State, Trigger, Object> v2 = new StateMachineConfig<>();
+        v2.configure(State.C).permit(Trigger.Y, State.A);
+        configs.publish(v2);
+        sm.fire(Trigger.Y);
+
+        assertEquals(State.A, sm.getState());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void PublishedConfigCannotBeModified() {
+        StateMachineConfig<State, Trigger, Object> v1 = new StateMachineConfig<>();
+        new VersionedStateMachineConfig<>(v1);
+
+        v1.configure(State.A);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.oxo42.stateless4j.benchmarks;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures handler lookup for a trigger with many guarded branches, where the branch that is
+ * almost always taken is declared last
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuardOrderBenchmark {
+
+    private enum Phase { IDLE, ROUTED }
+
+    private enum Signal { ROUTE }
+
+    @Param({"4", "16"})
+    public int branches;
+
+    private StateMachine<Phase, Signal, Integer> declared;
+    private StateMachine<Phase, Signal, Integer> adaptive;
+    private Integer hot;
+
+    @Setup
+    public void setUp() {
+        declared = new StateMachine<>(Phase.IDLE, config(false));
+        adaptive = new StateMachine<>(Phase.IDLE, config(true));
+        hot = branches - 1;
+    }
+
+    private StateMachineConfig<Phase, Signal, Integer> config(boolean adaptiveOrder) {
+        StateMachineConfig<Phase, Signal, Integer> config = new StateMachineConfig<>();
+        config.setFirstMatch(true);
+        config.setAdaptiveGuardOrder(adaptiveOrder);
+        for (int i = 0; i < branches; i++) {
+            final int branch = i;
+            config.configure(Phase.IDLE).permitInternalIf(Signal.ROUTE, c -> c.getContext() == branch, t -> {
+            });
+        }
+        return config.freeze();
+    }
+
+    @Benchmark
+    public FireResult declarationOrder() {
+        return declared.tryFire(Signal.ROUTE, hot);
+    }
+
+    @Benchmark
+    public FireResult adaptiveOrder() {
+        return adaptive.tryFire(Signal.ROUTE, hot);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GuardOrderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.oxo42.stateless4j.benchmarks;
+
+import com.github.oxo42.stateless4j.StateConfiguration;
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures firing in hierarchies of increasing depth. Divide the score by {@code depth} for the cost
+ * per level, which should stay flat.
+ * <p>
+ * Two chains of {@code depth} states are configured; the root of each moves to the leaf of the
+ * other. {@link #handlerLookup} fires a trigger that the root of the current chain ignores, so the
+ * handler search walks every level; {@link #enterExit} moves between the two leaves, exiting and
+ * entering every level.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HierarchyDepthBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int depth;
+
+    private StateMachine<Integer, String, Object> machine;
+
+    @Setup
+    public void setUp() {
+        StateMachineConfig<Integer, String, Object> config = new StateMachineConfig<>();
+        for (int chain = 0; chain < 2; chain++) {
+            int root = chain * depth;
+            for (int state = root; state < root + depth; state++) {
+                StateConfiguration<Integer, String, Object> configuration = config.configure(state);
+                if (state > root) {
+                    configuration.subStateOf(state - 1);
+                }
+            }
+            config.configure(root).ignore("PING");
+        }
+        config.configure(0).permit("SWAP", 2 * depth - 1);
+        config.configure(depth).permit("SWAP", depth - 1);
+        machine = new StateMachine<>(depth - 1, config.freeze());
+    }
+
+    @Benchmark
+    public void handlerLookup() {
+        machine.fire("PING");
+    }
+
+    @Benchmark
+    public void enterExit() {
+        machine.fire("SWAP");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HierarchyDepthBenchmark.class.getSimpleName()).build()).run();
+    }
+}
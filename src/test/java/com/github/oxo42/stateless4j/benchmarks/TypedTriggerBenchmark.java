@@ -0,0 +1,60 @@
+package com.github.oxo42.stateless4j.benchmarks;
+
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.triggers.Event;
+import com.github.oxo42.stateless4j.triggers.TypedTrigger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares firing a typed trigger with validating the context of an {@link Event} on every fire
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypedTriggerBenchmark {
+
+    private enum Phase { IDLE, BUSY }
+
+    private enum Signal { TOGGLE }
+
+    private StateMachine<Phase, Signal, Object> machine;
+    private TypedTrigger<Signal, Integer> toggle;
+    private Integer payload;
+
+    @Setup
+    public void setUp() {
+        StateMachineConfig<Phase, Signal, Object> config = new StateMachineConfig<>();
+        toggle = config.register(Signal.TOGGLE, Integer.class);
+        config.configure(Phase.IDLE).permit(Signal.TOGGLE, Phase.BUSY);
+        config.configure(Phase.BUSY).permit(Signal.TOGGLE, Phase.IDLE);
+        machine = new StateMachine<>(Phase.IDLE, config.freeze());
+        payload = 42;
+    }
+
+    @Benchmark
+    public Phase validatedEvent() {
+        Event<Signal, Integer> event = toggle;
+        event.validateParameters(payload);
+        machine.fire(event.getTrigger(), payload);
+        return machine.getState();
+    }
+
+    @Benchmark
+    public Phase typedTrigger() {
+        machine.fire(toggle, payload);
+        return machine.getState();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TypedTriggerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.oxo42.stateless4j.benchmarks;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.UnhandledTriggerException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of rejecting a trigger the current state does not handle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnhandledTriggerBenchmark {
+
+    private enum Phase { IDLE, BUSY }
+
+    private enum Signal { START, STOP }
+
+    private StateMachine<Phase, Signal, Object> throwing;
+    private StateMachine<Phase, Signal, Object> stackless;
+
+    @Setup
+    public void setUp() {
+        StateMachineConfig<Phase, Signal, Object> config = new StateMachineConfig<>();
+        config.configure(Phase.IDLE).permit(Signal.START, Phase.BUSY);
+        config.configure(Phase.BUSY).permit(Signal.STOP, Phase.IDLE);
+        config.freeze();
+        throwing = new StateMachine<>(Phase.IDLE, config);
+        stackless = new StateMachine<>(Phase.IDLE, config);
+        stackless.onUnhandledTrigger(UnhandledTriggerException.throwStackless());
+    }
+
+    @Benchmark
+    public Object defaultException() {
+        return reject(throwing);
+    }
+
+    @Benchmark
+    public Object stacklessException() {
+        return reject(stackless);
+    }
+
+    @Benchmark
+    public FireResult tryFire() {
+        return throwing.tryFire(Signal.STOP);
+    }
+
+    private static Object reject(StateMachine<Phase, Signal, Object> machine) {
+        try {
+            machine.fire(Signal.STOP);
+            return null;
+        } catch (IllegalStateException e) {
+            return e;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UnhandledTriggerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
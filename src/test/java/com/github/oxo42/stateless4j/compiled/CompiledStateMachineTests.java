@@ -0,0 +1,97 @@
+package com.github.oxo42.stateless4j.compiled;
+
+import com.github.oxo42.stateless4j.State;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.Trigger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompiledStateMachineTests {
+
+    private CompiledStateMachine<State, Trigger> engine() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B).subStateOf(State.C).ignore(Trigger.Y);
+        config.configure(State.C).permit(Trigger.Z, State.A);
+        return CompiledStateMachine.compile(config, State.class, Trigger.class);
+    }
+
+    @Test
+    public void TableFollowsConfiguration() {
+        CompiledStateMachine<State, Trigger> engine = engine();
+        int a = engine.stateCode(State.A), b = engine.stateCode(State.B);
+
+        assertEquals(b, engine.next(a, engine.triggerCode(Trigger.X)));
+        assertEquals(b, engine.next(b, engine.triggerCode(Trigger.Y)));
+        assertEquals(a, engine.next(b, engine.triggerCode(Trigger.Z)));
+        assertEquals(CompiledStateMachine.UNHANDLED, engine.next(a, engine.triggerCode(Trigger.Y)));
+        assertTrue(engine.isInState(b, engine.stateCode(State.C)));
+        assertFalse(engine.isInState(a, engine.stateCode(State.C)));
+    }
+
+    @Test
+    public void FireAllUpdatesEveryMachine() {
+        CompiledStateMachine<State, Trigger> engine = engine();
+        StateColumn column = engine.newColumn(1000, State.A);
+        column.set(7, engine.stateCode(State.B));
+
+        int unhandled = engine.fireAll(column, engine.triggerCode(Trigger.X));
+
+        assertEquals(1, unhandled);
+        for (int id = 0; id < column.size(); id++) {
+            assertEquals(State.B, engine.state(column.get(id)));
+        }
+    }
+
+    @Test
+    public void ColumnsAreInterchangeable() {
+        CompiledStateMachine<State, Trigger> engine = engine();
+        StateColumn[] columns = {new IntStateColumn(10), new ByteStateColumn(10), new DirectStateColumn(10, engine.getStateCount())};
+        for (StateColumn column : columns) {
+            column.fill(engine.stateCode(State.A));
+
+            assertEquals(engine.stateCode(State.B), engine.fire(column, 3, engine.triggerCode(Trigger.X)));
+            assertEquals(0, engine.fireAll(column, new int[]{3}, engine.triggerCode(Trigger.Z)));
+
+            assertEquals(State.A, engine.state(column.get(3)));
+            assertEquals(State.A, engine.state(column.get(4)));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void GuardsCannotBeCompiled() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permitIf(Trigger.X, State.B, c -> true);
+
+        CompiledStateMachine.compile(config, State.class, Trigger.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void OversizedWideDirectColumnIsRejected() {
+        new DirectStateColumn(Integer.MAX_VALUE / 4 + 1, 1000);
+    }
+
+    @Test
+    public void OutOfRangeTriggerCodesAreRejected() {
+        CompiledStateMachine<State, Trigger> engine = engine();
+        int a = engine.stateCode(State.A);
+        StateColumn column = engine.newColumn(10, State.A);
+        int[] codes = {-1, engine.getTriggerCount()};
+        for (int code : codes) {
+            try {
+                engine.next(a, code);
+                fail("next accepted trigger code " + code);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+            try {
+                engine.fireAll(column, code);
+                fail("fireAll accepted trigger code " + code);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+        assertEquals(State.A, engine.state(column.get(0)));
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.oxo42.stateless4j.explore;
+
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class StateSpaceExplorerTests {
+
+    private enum Job { IDLE, RUNNING, DONE, FAILED, STUCK }
+
+    private enum Command { START, FAIL, FINISH }
+
+    private static final int MAX_RETRIES = 3;
+
+    /**
+     * A job retried up to three times; the context counts the failures
+     */
+    private static StateMachineConfig<Job, Command, Integer> jobs() {
+        StateMachineConfig<Job, Command, Integer> config = new StateMachineConfig<>();
+        config.configure(Job.IDLE).permit(Command.START, Job.RUNNING).ignore(Command.FAIL).ignore(Command.FINISH);
+        config.configure(Job.RUNNING)
+                .permitIf(Command.FAIL, Job.IDLE, c -> c.getContext() < MAX_RETRIES)
+                .permitIf(Command.FAIL, Job.FAILED, c -> c.getContext() >= MAX_RETRIES)
+                .permit(Command.FINISH, Job.DONE)
+                .ignore(Command.START);
+        config.configure(Job.DONE);
+        config.configure(Job.FAILED);
+        return config;
+    }
+
+    private static StateSpaceExplorer<Job, Command, Integer> explorer(StateMachineConfig<Job, Command, Integer> config) {
+        StateSpaceExplorer<Job, Command, Integer> explorer = new StateSpaceExplorer<>(config.freeze(), Arrays.asList(Command.values()));
+        explorer.setContextModel(t -> t.getTrigger() == Command.FAIL && t.getSource() == Job.RUNNING ? t.getContext() + 1 : t.getContext());
+        return explorer;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void MutableConfigurationIsRejected() {
+        new StateSpaceExplorer<>(jobs(), Arrays.asList(Command.values()));
+    }
+
+    @Test
+    public void AllStateContextPairsAreVisited() {
+        ExplorationResult<Job, Command, Integer> result = explorer(jobs()).explore(Job.IDLE, Collections.singletonList(0));
+
+        // IDLE and RUNNING with 0..3 failures, DONE with 0..3, FAILED with 4
+        assertEquals(4 + 4 + 4 + 1, result.getNodeCount());
+        assertTrue(result.isComplete());
+        assertFalse(result.hasViolations());
+    }
+
+    @Test
+    public void UnhandledTriggerIsReportedWithTrace() {
+        StateSpaceExplorer<Job, Command, Integer> explorer = explorer(jobs());
+        explorer.requireHandled(state -> state == Job.DONE);
+
+        ExplorationResult<Job, Command, Integer> result = explorer.explore(Job.IDLE, Collections.singletonList(MAX_RETRIES));
+
+        List<Counterexample<Job, Command, Integer>> unhandled = result.getCounterexamples(ViolationKind.UNHANDLED_TRIGGER);
+        assertEquals(3, unhandled.size());
+        for (Counterexample<Job, Command, Integer> counterexample : unhandled) {
+            List<Command> trace = counterexample.getTrace();
+            assertEquals(Arrays.asList(Command.START, Command.FINISH), trace.subList(trace.size() - 3, trace.size() - 1));
+            assertEquals(Job.DONE, counterexample.getNode().getState());
+        }
+    }
+
+    @Test
+    public void InvariantViolationIsReportedWithTrace() {
+        StateSpaceExplorer<Job, Command, Integer> explorer = explorer(jobs());
+        explorer.requireInvariant("at most two failures", (state, failures) -> failures <= 2);
+
+        ExplorationResult<Job, Command, Integer> result = explorer.explore(Job.IDLE, Collections.singletonList(0));
+
+        Counterexample<Job, Command, Integer> first = result.getCounterexamples(ViolationKind.INVARIANT).get(0);
+        assertEquals(3, first.getNode().getContext().intValue());
+        assertEquals(3, Collections.frequency(first.getTrace(), Command.FAIL));
+        assertEquals(new StateNode<>(Job.IDLE, 0), first.getInitial());
+    }
+
+    @Test
+    public void TrapWithoutTerminalStateIsReported() {
+        StateMachineConfig<Job, Command, Integer> config = jobs();
+        config.configure(Job.IDLE).permit(Command.START, Job.STUCK);
+        config.configure(Job.STUCK).permitReentry(Command.START);
+        StateSpaceExplorer<Job, Command, Integer> explorer = explorer(config);
+        explorer.requireTerminalReachable(state -> state == Job.DONE || state == Job.FAILED);
+
+        ExplorationResult<Job, Command, Integer> result = explorer.explore(Job.IDLE, Collections.singletonList(0));
+
+        List<Counterexample<Job, Command, Integer>> traps = result.getCounterexamples(ViolationKind.NO_TERMINAL_REACHABLE);
+        assertFalse(traps.isEmpty());
+        for (Counterexample<Job, Command, Integer> trap : traps) {
+            assertTrue(trap.getNode().getState() == Job.IDLE || trap.getNode().getState() == Job.STUCK);
+        }
+    }
+
+    @Test
+    public void OverlappingGuardsAreReported() {
+        StateMachineConfig<Job, Command, Integer> config = new StateMachineConfig<>();
+        config.configure(Job.IDLE)
+                .permitIf(Command.START, Job.RUNNING, c -> true)
+                .permitIf(Command.START, Job.DONE, c -> c.getContext() > 0);
+        StateSpaceExplorer<Job, Command, Integer> explorer = explorer(config);
+
+        ExplorationResult<Job, Command, Integer> result = explorer.explore(Job.IDLE, Arrays.asList(0, 1));
+
+        List<Counterexample<Job, Command, Integer>> failures = result.getCounterexamples(ViolationKind.FIRE_FAILED);
+        assertEquals(1, failures.size());
+        assertEquals(new StateNode<>(Job.IDLE, 1), failures.get(0).getNode());
+        assertEquals(Collections.singletonList(Command.START), failures.get(0).getTrace());
+    }
+
+    @Test
+    public void ExplorationStopsAtNodeLimit() {
+        StateSpaceExplorer<Job, Command, Integer> explorer = explorer(jobs());
+        explorer.setMaxNodes(5);
+
+        ExplorationResult<Job, Command, Integer> result = explorer.explore(Job.IDLE, Collections.singletonList(0));
+
+        assertEquals(5, result.getNodeCount());
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    public void ParallelExplorationVisitsEveryNodeOnce() {
+        int size = 50_000;
+        StateMachineConfig<Job, Command, Integer> config = new StateMachineConfig<>();
+        config.configure(Job.IDLE).permit(Command.START, Job.RUNNING).permitReentry(Command.FAIL);
+        config.configure(Job.RUNNING).permit(Command.FINISH, Job.IDLE).permitReentry(Command.FAIL);
+        StateSpaceExplorer<Job, Command, Integer> explorer = new StateSpaceExplorer<>(config.freeze(), Arrays.asList(Command.values()));
+        explorer.setContextModel(t -> t.getTrigger() == Command.FAIL ? (t.getContext() + 1) % size : t.getContext());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            explorer.setPool(pool);
+            ExplorationResult<Job, Command, Integer> result = explorer.explore(Job.IDLE, Collections.singletonList(0));
+
+            assertEquals(2L * size, result.getNodeCount());
+            assertEquals(4L * size, result.getEdgeCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void ExplorationDoesNotCountAdaptiveGuardHits() {
+        StateMachineConfig<Job, Command, Integer> config = jobs();
+        config.setFirstMatch(true);
+        config.setAdaptiveGuardOrder(true);
+
+        ExplorationResult<Job, Command, Integer> result = explorer(config).explore(Job.IDLE, Collections.singletonList(0));
+
+        assertTrue(result.getNodeCount() > 0);
+        assertArrayEquals(new long[2], config.getRepresentation(Job.RUNNING).getGuardHits(Command.FAIL));
+    }
+}
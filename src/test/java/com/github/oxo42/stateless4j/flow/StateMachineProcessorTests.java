@@ -0,0 +1,169 @@
+package com.github.oxo42.stateless4j.flow;
+
+import com.github.oxo42.stateless4j.KeyedStateMachine;
+import com.github.oxo42.stateless4j.State;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.Trigger;
+import com.github.oxo42.stateless4j.store.MapStateStore;
+import com.github.oxo42.stateless4j.transitions.Transition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StateMachineProcessorTests {
+
+    private static class Recorder implements Flow.Subscriber<Transition<State, Trigger, Object>> {
+
+        final List<Transition<State, Trigger, Object>> items = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean complete;
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public synchronized void onNext(Transition<State, Trigger, Object> item) {
+            items.add(item);
+        }
+
+        @Override
+        public synchronized void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            complete = true;
+        }
+    }
+
+    private static class ManualSubscription implements Flow.Subscription {
+
+        long requested;
+        boolean cancelled;
+
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private KeyedStateMachine<Integer, State, Trigger, Object> machines() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B).permit(Trigger.Y, State.C).onEntry(t -> {
+            if ("fail".equals(t.getContext())) {
+                throw new IllegalStateException("boom");
+            }
+        });
+        return new KeyedStateMachine<>(config, new MapStateStore<>(), State.A);
+    }
+
+    @Test
+    public void TransitionsArePublishedOnDemand() {
+        StateMachineProcessor<Integer, State, Trigger, Object> processor = new StateMachineProcessor<>(machines(), 4);
+        ManualSubscription upstream = new ManualSubscription();
+        Recorder recorder = new Recorder();
+        processor.onSubscribe(upstream);
+        processor.subscribe(recorder);
+        assertEquals(4, upstream.requested);
+
+        processor.onNext(new KeyedTrigger<>(1, Trigger.X, null));
+        processor.onNext(new KeyedTrigger<>(2, Trigger.X, null));
+        processor.onNext(new KeyedTrigger<>(1, Trigger.Y, null));
+        assertTrue(recorder.items.isEmpty());
+
+        recorder.subscription.request(2);
+
+        assertEquals(2, recorder.items.size());
+        assertEquals(State.A, recorder.items.get(0).getSource());
+        assertEquals(State.B, recorder.items.get(0).getDestination());
+        assertEquals(4, upstream.requested);
+
+        recorder.subscription.request(5);
+
+        assertEquals(3, recorder.items.size());
+        assertEquals(State.C, recorder.items.get(2).getDestination());
+        assertEquals(7, upstream.requested);
+    }
+
+    @Test
+    public void UnhandledTriggersPublishNothing() {
+        StateMachineProcessor<Integer, State, Trigger, Object> processor = new StateMachineProcessor<>(machines(), 4);
+        Recorder recorder = new Recorder();
+        processor.onSubscribe(new ManualSubscription());
+        processor.subscribe(recorder);
+        recorder.subscription.request(10);
+
+        processor.onNext(new KeyedTrigger<>(1, Trigger.Y, null));
+        processor.onComplete();
+
+        assertTrue(recorder.items.isEmpty());
+        assertTrue(recorder.complete);
+    }
+
+    @Test
+    public void ActionFailureCancelsUpstream() {
+        StateMachineProcessor<Integer, State, Trigger, Object> processor = new StateMachineProcessor<>(machines(), 4);
+        ManualSubscription upstream = new ManualSubscription();
+        Recorder recorder = new Recorder();
+        processor.onSubscribe(upstream);
+        processor.subscribe(recorder);
+        recorder.subscription.request(10);
+
+        processor.onNext(new KeyedTrigger<>(1, Trigger.X, "fail"));
+
+        assertTrue(upstream.cancelled);
+        assertEquals("boom", recorder.error.getMessage());
+    }
+
+    @Test
+    public void NonPositiveRequestIsAnError() {
+        StateMachineProcessor<Integer, State, Trigger, Object> processor = new StateMachineProcessor<>(machines());
+        ManualSubscription upstream = new ManualSubscription();
+        Recorder recorder = new Recorder();
+        processor.onSubscribe(upstream);
+        processor.subscribe(recorder);
+
+        recorder.subscription.request(0);
+
+        assertTrue(upstream.cancelled);
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void WorksWithSubmissionPublisher() throws Exception {
+        StateMachineProcessor<Integer, State, Trigger, Object> processor = new StateMachineProcessor<>(machines(), 8);
+        Recorder recorder = new Recorder();
+        processor.subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+
+        try (SubmissionPublisher<KeyedTrigger<Integer, Trigger, Object>> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (int key = 0; key < 100; key++) {
+                publisher.submit(new KeyedTrigger<>(key, Trigger.X, null));
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!recorder.complete && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertTrue(recorder.complete);
+        assertEquals(100, recorder.items.size());
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.oxo42.stateless4j.ingest;
+
+import com.github.oxo42.stateless4j.KeyedStateMachine;
+import com.github.oxo42.stateless4j.State;
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.Trigger;
+import com.github.oxo42.stateless4j.store.MapStateStore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class IngestionPipelineTests {
+
+    private StateMachineConfig<State, Trigger, Object> config() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B).permit(Trigger.Y, State.A);
+        return config;
+    }
+
+    @Test
+    public void PublishedEventsAreFiredIntoKeyedMachines() throws Exception {
+        KeyedStateMachine<Integer, State, Trigger, Object> machines =
+                new KeyedStateMachine<>(config(), new MapStateStore<>(), State.A);
+        RingBuffer<Integer, Trigger, Object> ring = new RingBuffer<>(64, WaitStrategy.YIELD);
+
+        try (IngestionPipeline<Integer, Trigger, Object> pipeline =
+                     new IngestionPipeline<>(ring, EventHandler.firing(machines), WaitStrategy.YIELD)) {
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                final int first = p * 100;
+                Thread producer = new Thread(() -> {
+                    for (int key = first; key < first + 100; key++) {
+                        ring.publish(key, Trigger.X, null);
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            pipeline.flush();
+
+            for (int key = 0; key < 400; key++) {
+                assertEquals(State.B, machines.getState(key));
+            }
+            assertEquals(400, pipeline.getEventCount());
+        }
+    }
+
+    @Test
+    public void EventsAreDrainedInBatches() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Boolean> endOfBatch = new ArrayList<>();
+        RingBuffer<Integer, Trigger, Object> ring = new RingBuffer<>(8, WaitStrategy.PARK);
+
+        try (IngestionPipeline<Integer, Trigger, Object> pipeline = new IngestionPipeline<>(ring, (key, trigger, context, end) -> {
+            if (key == 0) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            } else {
+                endOfBatch.add(end);
+            }
+        }, WaitStrategy.PARK)) {
+            ring.publish(0, Trigger.X, null);
+            started.await();
+            for (int key = 1; key <= 5; key++) {
+                ring.publish(key, Trigger.X, null);
+            }
+            release.countDown();
+            pipeline.flush();
+
+            assertEquals(6, pipeline.getEventCount());
+            assertTrue(pipeline.getMaxBatchSize() > 1);
+            assertEquals(Boolean.TRUE, endOfBatch.get(endOfBatch.size() - 1));
+        }
+    }
+
+    @Test
+    public void FullRingRefusesTryPublish() {
+        RingBuffer<Integer, Trigger, Object> ring = new RingBuffer<>(2, WaitStrategy.BUSY_SPIN);
+
+        assertTrue(ring.tryPublish(1, Trigger.X, null));
+        assertTrue(ring.tryPublish(2, Trigger.X, null));
+        assertFalse(ring.tryPublish(3, Trigger.X, null));
+        assertEquals(2, ring.getPending());
+    }
+
+    @Test
+    public void HandlerFailuresAreCounted() throws Exception {
+        StateMachine<State, Trigger, Object> machine = new StateMachine<>(State.A, config());
+        RingBuffer<Integer, Trigger, Object> ring = new RingBuffer<>(16, WaitStrategy.BUSY_SPIN);
+        List<RuntimeException> errors = new ArrayList<>();
+
+        try (IngestionPipeline<Integer, Trigger, Object> pipeline =
+                     new IngestionPipeline<>(ring, EventHandler.firing(machine), WaitStrategy.BUSY_SPIN)) {
+            pipeline.setErrorHandler(errors::add);
+            ring.publish(null, Trigger.Y, null);
+            ring.publish(null, Trigger.X, null);
+            pipeline.flush();
+
+            assertEquals(1, pipeline.getFailedCount());
+            assertEquals(1, errors.size());
+            assertEquals(State.B, machine.getState());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void FailingErrorHandlerDoesNotStopTheConsumer() throws Exception {
+        StateMachine<State, Trigger, Object> machine = new StateMachine<>(State.A, config());
+        RingBuffer<Integer, Trigger, Object> ring = new RingBuffer<>(16, WaitStrategy.YIELD);
+
+        try (IngestionPipeline<Integer, Trigger, Object> pipeline =
+                     new IngestionPipeline<>(ring, EventHandler.firing(machine), WaitStrategy.YIELD)) {
+            pipeline.setErrorHandler(e -> {
+                throw new IllegalStateException("handler");
+            });
+            for (int i = 0; i < 40; i++) {
+                ring.publish(null, Trigger.Y, null);
+            }
+            ring.publish(null, Trigger.X, null);
+            pipeline.flush();
+
+            assertEquals(40, pipeline.getFailedCount());
+            assertEquals(State.B, machine.getState());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void CapacityMustBePowerOfTwo() {
+        new RingBuffer<Integer, Trigger, Object>(10, WaitStrategy.YIELD);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.oxo42.stateless4j.jfr;
+
+import com.github.oxo42.stateless4j.State;
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.Trigger;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JfrHookTests {
+
+    private StateMachine<State, Trigger, Object> machine() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .permitIf(Trigger.X, State.B, c -> true)
+                .onExit(t -> { });
+        config.configure(State.B).onEntry(t -> { });
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config);
+        sm.setHook(new JfrHook<>());
+        sm.onUnhandledTrigger(c -> { });
+        return sm;
+    }
+
+    @Test
+    public void HookIsDisabledWithoutRecording() {
+        assertFalse(new JfrHook<State, Trigger, Object>().isEnabled());
+    }
+
+    @Test
+    public void EventsAreRecorded() throws Exception {
+        Path file = Files.createTempFile("stateless4j", ".jfr");
+        List<RecordedEvent> events = new ArrayList<>();
+        try (Recording recording = new Recording()) {
+            for (String name : new String[]{"Fire", "Transition", "Guard", "Action", "UnhandledTrigger"}) {
+                recording.enable("com.github.oxo42.stateless4j." + name).withoutThreshold();
+            }
+            recording.start();
+            StateMachine<State, Trigger, Object> sm = machine();
+            sm.fire(Trigger.X);
+            sm.fire(Trigger.Y);
+            recording.stop();
+            recording.dump(file);
+            events.addAll(RecordingFile.readAllEvents(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        assertEquals(2, count(events, "Fire"));
+        assertEquals(1, count(events, "Transition"));
+        assertEquals(1, count(events, "Guard"));
+        assertEquals(2, count(events, "Action"));
+        assertEquals(1, count(events, "UnhandledTrigger"));
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().endsWith(".Transition")) {
+                assertEquals("A", event.getString("source"));
+                assertEquals("B", event.getString("destination"));
+            }
+        }
+    }
+
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.github.oxo42.stateless4j." + name))
+                .count();
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.oxo42.stateless4j.listeners;
+
+import com.github.oxo42.stateless4j.State;
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.Trigger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransitionListenerBusTests {
+
+    private StateMachineConfig<State, Trigger, Object> config() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B).ignore(Trigger.Z);
+        config.configure(State.B).permit(Trigger.Y, State.C).ignore(Trigger.Z);
+        config.configure(State.C).permit(Trigger.X, State.A);
+        return config;
+    }
+
+    @Test
+    public void SyncListenersSeeTransitionsBeforeFireReturns() {
+        List<String> log = new ArrayList<>();
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config());
+        sm.getListeners().addListener(t -> log.add("first " + t.getDestination()));
+        sm.getListeners().addListener(t -> log.add("second " + t.getDestination()));
+
+        sm.fire(Trigger.X);
+        sm.fire(Trigger.Z);
+
+        assertEquals(Arrays.asList("first B", "second B"), log);
+    }
+
+    @Test
+    public void FiltersSelectTransitions() {
+        List<State> entered = new ArrayList<>();
+        List<Trigger> fired = new ArrayList<>();
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config());
+        sm.getListeners().addListener(t -> entered.add(t.getDestination()),
+                TransitionFilter.entering(State.C), DispatchMode.SYNC);
+        sm.getListeners().addListener(t -> fired.add(t.getTrigger()),
+                TransitionFilter.<State, Trigger, Object>trigger(Trigger.X).and(TransitionFilter.leaving(State.C)),
+                DispatchMode.SYNC);
+
+        sm.fire(Trigger.X);
+        sm.fire(Trigger.Y);
+        sm.fire(Trigger.X);
+
+        assertEquals(Collections.singletonList(State.C), entered);
+        assertEquals(Collections.singletonList(Trigger.X), fired);
+    }
+
+    @Test
+    public void RemovedListenerIsNotCalled() {
+        List<State> entered = new ArrayList<>();
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config());
+        ListenerRegistration registration = sm.getListeners().addListener(t -> entered.add(t.getDestination()));
+
+        sm.fire(Trigger.X);
+        registration.remove();
+        sm.fire(Trigger.Y);
+
+        assertEquals(Collections.singletonList(State.B), entered);
+    }
+
+    @Test
+    public void ConfigListenersSeeAllMachines() {
+        List<State> entered = new ArrayList<>();
+        StateMachineConfig<State, Trigger, Object> config = config().freeze();
+        config.getListeners().addListener(t -> entered.add(t.getDestination()));
+
+        new StateMachine<>(State.A, config).fire(Trigger.X);
+        new StateMachine<>(State.B, config).fire(Trigger.Y);
+
+        assertEquals(Arrays.asList(State.B, State.C), entered);
+    }
+
+    @Test
+    public void AsyncListenersRunOnDispatcherInOrder() throws Exception {
+        List<State> entered = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        try (AsyncDispatcher dispatcher = new AsyncDispatcher(1024, 8)) {
+            StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config());
+            sm.getListeners().setDispatcher(dispatcher);
+            sm.getListeners().addListener(t -> {
+                entered.add(t.getDestination());
+                threads.add(Thread.currentThread());
+            }, TransitionFilter.any(), DispatchMode.ASYNC);
+
+            for (int i = 0; i < 10; i++) {
+                sm.fire(Trigger.X);
+                sm.fire(Trigger.Y);
+                sm.fire(Trigger.X);
+            }
+            dispatcher.flush();
+
+            assertEquals(30, entered.size());
+            for (int i = 0; i < 30; i += 3) {
+                assertEquals(Arrays.asList(State.B, State.C, State.A), entered.subList(i, i + 3));
+            }
+            assertFalse(threads.contains(Thread.currentThread()));
+            assertEquals(30, dispatcher.getDeliveredCount());
+        }
+    }
+
+    @Test
+    public void AsyncListenerFailuresAreCounted() throws Exception {
+        List<RuntimeException> errors = Collections.synchronizedList(new ArrayList<>());
+        try (AsyncDispatcher dispatcher = new AsyncDispatcher(16, 4)) {
+            dispatcher.setErrorHandler(errors::add);
+            StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config());
+            sm.getListeners().setDispatcher(dispatcher);
+            sm.getListeners().addListener(t -> {
+                throw new IllegalStateException("boom");
+            }, TransitionFilter.any(), DispatchMode.ASYNC);
+
+            sm.fire(Trigger.X);
+            dispatcher.flush();
+
+            assertEquals(State.B, sm.getState());
+            assertEquals(1, dispatcher.getFailedCount());
+            assertEquals(1, errors.size());
+        }
+    }
+
+    @Test
+    public void FailingErrorHandlerDoesNotStopTheDispatcher() throws Exception {
+        List<State> entered = Collections.synchronizedList(new ArrayList<>());
+        try (AsyncDispatcher dispatcher = new AsyncDispatcher(16, 4)) {
+            dispatcher.setErrorHandler(e -> {
+                throw new IllegalStateException("handler");
+            });
+            StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config());
+            sm.getListeners().setDispatcher(dispatcher);
+            sm.getListeners().addListener(t -> {
+                if (t.getDestination() == State.B) {
+                    throw new IllegalStateException("boom");
+                }
+                if (t.getDestination() == State.C) {
+                    throw new AssertionError("fatal");
+                }
+                entered.add(t.getDestination());
+            }, TransitionFilter.any(), DispatchMode.ASYNC);
+
+            sm.fire(Trigger.X);
+            sm.fire(Trigger.Y);
+            sm.fire(Trigger.X);
+            dispatcher.flush();
+
+            assertEquals(2, dispatcher.getFailedCount());
+            assertEquals(Collections.singletonList(State.A), entered);
+        }
+    }
+
+    @Test
+    public void TransitionsFiredDuringCloseAreDeliveredOrDropped() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            AsyncDispatcher dispatcher = new AsyncDispatcher(1 << 20, 64);
+            StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config());
+            sm.getListeners().setDispatcher(dispatcher);
+            sm.getListeners().addListener(t -> { }, TransitionFilter.any(), DispatchMode.ASYNC);
+            Thread firing = new Thread(() -> {
+                while (dispatcher.getDroppedCount() == 0) {
+                    sm.fire(Trigger.X);
+                    sm.fire(Trigger.Y);
+                    sm.fire(Trigger.X);
+                }
+            });
+            firing.start();
+            Thread.sleep(1);
+            dispatcher.close();
+            firing.join();
+
+            assertEquals(0, dispatcher.getQueueDepth());
+            dispatcher.flush();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.github.oxo42.stateless4j.loadgen;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.StateMachine;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a large population of state machines sharing one {@link SyntheticConfig} from several
+ * threads, picking machines with a Zipfian distribution, and reports throughput, latency percentiles,
+ * allocation rate and heap per machine as JSON. Unlike the JMH benchmarks it measures the library
+ * with a realistic working set: most machines are cold, a few are hot.
+ * <p>
+ * Each thread owns the machines whose index is congruent to it modulo the thread count, so machines
+ * are never shared and need no locking. Run from the test classpath, for example
+ * <pre>
+ * java -Xmx4g -cp target/test-classes:target/classes com.github.oxo42.stateless4j.loadgen.LoadGenerator \
+ *     --machines=2000000 --threads=8 --states=64 --depth=4 --fanout=4 --seconds=30 --report=load.json
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private final Options options;
+
+    public LoadGenerator(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = Options.parse(args);
+        String json = new LoadGenerator(options).run().toJson();
+        if (options.report == null) {
+            System.out.print(json);
+        } else {
+            Files.write(Paths.get(options.report), json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Build the configuration and the machines, warm up, then measure
+     *
+     * @return The report
+     * @throws InterruptedException If interrupted while waiting for the workers
+     */
+    public LoadReport run() throws InterruptedException {
+        SyntheticConfig synthetic = new SyntheticConfig(options.states, options.depth, options.fanOut, options.triggers, options.seed);
+
+        long heapBefore = usedHeap();
+        @SuppressWarnings("unchecked")
+        StateMachine<Integer, Integer, Integer>[] machines = (StateMachine<Integer, Integer, Integer>[]) new StateMachine<?, ?, ?>[options.machines];
+        for (int i = 0; i < machines.length; i++) {
+            machines[i] = new StateMachine<>(i % options.states, synthetic.getConfig());
+        }
+        long heapAfter = usedHeap();
+
+        // thread t drives the machines t, t + threads, t + 2 * threads, ...; each rank maps to one of them
+        ZipfianGenerator[] zipfs = new ZipfianGenerator[options.threads];
+        for (int t = 0; t < zipfs.length; t++) {
+            zipfs[t] = new ZipfianGenerator((options.machines - t + options.threads - 1) / options.threads, options.theta);
+        }
+        if (options.warmupSeconds > 0) {
+            drive(machines, synthetic, zipfs, options.warmupSeconds);
+        }
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        Worker[] workers = drive(machines, synthetic, zipfs, options.seconds);
+        gcCount = gcCount() - gcCount;
+        gcMillis = gcMillis() - gcMillis;
+
+        LatencyHistogram latency = new LatencyHistogram();
+        long unhandled = 0;
+        long allocated = 0;
+        long elapsed = 0;
+        for (Worker worker : workers) {
+            latency.add(worker.latency);
+            unhandled += worker.unhandled;
+            allocated += worker.allocated;
+            elapsed = Math.max(elapsed, worker.elapsed);
+        }
+        double seconds = elapsed / 1e9;
+        long operations = latency.getCount();
+
+        LoadReport report = new LoadReport();
+        report.put("parameters", "machines", options.machines)
+                .put("parameters", "threads", options.threads)
+                .put("parameters", "states", options.states)
+                .put("parameters", "depth", options.depth)
+                .put("parameters", "fanOut", options.fanOut)
+                .put("parameters", "triggers", options.triggers)
+                .put("parameters", "theta", options.theta)
+                .put("parameters", "unhandledRatio", options.unhandledRatio)
+                .put("parameters", "seconds", options.seconds)
+                .put("parameters", "seed", options.seed);
+        report.put("jvm", "version", System.getProperty("java.version"))
+                .put("jvm", "processors", Runtime.getRuntime().availableProcessors())
+                .put("jvm", "maxHeapBytes", Runtime.getRuntime().maxMemory());
+        report.put("throughput", "operations", operations)
+                .put("throughput", "unhandled", unhandled)
+                .put("throughput", "opsPerSecond", operations / seconds);
+        report.put("latencyNanos", "mean", latency.getMean())
+                .put("latencyNanos", "p50", latency.percentile(0.5))
+                .put("latencyNanos", "p90", latency.percentile(0.9))
+                .put("latencyNanos", "p99", latency.percentile(0.99))
+                .put("latencyNanos", "p999", latency.percentile(0.999))
+                .put("latencyNanos", "max", latency.getMax());
+        report.put("memory", "heapBytesPerMachine", Math.max(0, heapAfter - heapBefore) / (double) options.machines)
+                .put("memory", "estimatedBytesPerMachine", machines[0].estimateFootprint())
+                .put("memory", "estimatedConfigBytes", synthetic.getConfig().estimateFootprint().getTotalBytes())
+                .put("memory", "allocationSupported", allocated >= 0)
+                .put("memory", "allocatedBytesPerSecond", allocated < 0 ? Double.NaN : allocated / seconds)
+                .put("memory", "allocatedBytesPerOperation", allocated < 0 || operations == 0 ? Double.NaN : allocated / (double) operations)
+                .put("memory", "gcCount", gcCount)
+                .put("memory", "gcMillis", gcMillis);
+        return report;
+    }
+
+    private Worker[] drive(StateMachine<Integer, Integer, Integer>[] machines, SyntheticConfig synthetic,
+                           ZipfianGenerator[] zipfs, double seconds) throws InterruptedException {
+        Worker[] workers = new Worker[options.threads];
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        long nanos = (long) (seconds * 1e9);
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Worker(t, machines, synthetic, zipfs[t], options.seed * 31 + t, start, nanos);
+            Thread thread = new Thread(workers[t], "loadgen-" + t);
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Worker worker : workers) {
+            if (worker.failure != null) {
+                throw new IllegalStateException("Worker failed", worker.failure);
+            }
+        }
+        return workers;
+    }
+
+    private final class Worker implements Runnable {
+
+        private final int index;
+        private final StateMachine<Integer, Integer, Integer>[] machines;
+        private final SyntheticConfig synthetic;
+        private final ZipfianGenerator zipf;
+        private final Random random;
+        private final CountDownLatch start;
+        private final long nanos;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long unhandled;
+        private long allocated = -1;
+        private long elapsed;
+        private volatile Throwable failure;
+
+        Worker(int index, StateMachine<Integer, Integer, Integer>[] machines, SyntheticConfig synthetic,
+               ZipfianGenerator zipf, long seed, CountDownLatch start, long nanos) {
+            this.index = index;
+            this.machines = machines;
+            this.synthetic = synthetic;
+            this.zipf = zipf;
+            this.random = new Random(seed);
+            this.start = start;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+                SplittableRandom triggers = new SplittableRandom(random.nextLong());
+                int threads = options.threads;
+                int handled = synthetic.getTriggers() + 1;
+                long allocatedBefore = allocatedBytes();
+                long begin = System.nanoTime();
+                long deadline = begin + nanos;
+                long now = begin;
+                while (now < deadline) {
+                    for (int batch = 0; batch < 64; batch++) {
+                        long key = zipf.next(random) * threads + index;
+                        int trigger = triggers.nextDouble() < options.unhandledRatio
+                                ? synthetic.getUnhandledTrigger()
+                                : triggers.nextInt(handled);
+                        Integer context = triggers.nextInt(1 << 16);
+                        long fired = System.nanoTime();
+                        FireResult result = machines[(int) key].tryFire(trigger, context);
+                        now = System.nanoTime();
+                        latency.record(now - fired);
+                        if (result == FireResult.UNHANDLED) {
+                            unhandled++;
+                        }
+                    }
+                }
+                elapsed = now - begin;
+                long allocatedAfter = allocatedBytes();
+                allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(50);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Run parameters, parsed from {@code --name=value} arguments
+     */
+    public static class Options {
+
+        public int machines = 1_000_000;
+        public int threads = Runtime.getRuntime().availableProcessors();
+        public int states = 64;
+        public int depth = 4;
+        public int fanOut = 4;
+        public int triggers = 4;
+        public double theta = 0.99;
+        public double unhandledRatio = 0.01;
+        public double warmupSeconds = 5;
+        public double seconds = 20;
+        public long seed = 42;
+        public String report;
+
+        public static Options parse(String... args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                if (!arg.startsWith("--") || equals < 0) {
+                    throw new IllegalArgumentException("Expected --name=value: " + arg);
+                }
+                String name = arg.substring(2, equals);
+                String value = arg.substring(equals + 1);
+                switch (name) {
+                    case "machines": options.machines = Integer.parseInt(value); break;
+                    case "threads": options.threads = Integer.parseInt(value); break;
+                    case "states": options.states = Integer.parseInt(value); break;
+                    case "depth": options.depth = Integer.parseInt(value); break;
+                    case "fanout": options.fanOut = Integer.parseInt(value); break;
+                    case "triggers": options.triggers = Integer.parseInt(value); break;
+                    case "theta": options.theta = Double.parseDouble(value); break;
+                    case "unhandled": options.unhandledRatio = Double.parseDouble(value); break;
+                    case "warmup": options.warmupSeconds = Double.parseDouble(value); break;
+                    case "seconds": options.seconds = Double.parseDouble(value); break;
+                    case "seed": options.seed = Long.parseLong(value); break;
+                    case "report": options.report = value; break;
+                    default: throw new IllegalArgumentException("Unknown option: " + name);
+                }
+            }
+            if (options.machines < 1 || options.threads < 1 || options.machines < options.threads) {
+                throw new IllegalArgumentException("Needs at least one machine per thread");
+            }
+            return options;
+        }
+    }
+}
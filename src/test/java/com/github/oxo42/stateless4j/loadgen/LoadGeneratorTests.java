@@ -0,0 +1,87 @@
+package com.github.oxo42.stateless4j.loadgen;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.StateMachine;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LoadGeneratorTests {
+
+    @Test
+    public void ShortRunReportsEveryMetric() throws Exception {
+        LoadGenerator.Options options = LoadGenerator.Options.parse("--machines=10000", "--threads=2", "--states=32",
+                "--depth=3", "--fanout=3", "--warmup=0", "--seconds=0.2", "--unhandled=0.1");
+
+        LoadReport report = new LoadGenerator(options).run();
+
+        long operations = (Long) report.get("throughput", "operations");
+        assertTrue(operations > 0);
+        assertTrue((Long) report.get("throughput", "unhandled") > 0);
+        assertTrue((Long) report.get("throughput", "unhandled") < operations);
+        assertTrue((Double) report.get("throughput", "opsPerSecond") > 0);
+        assertTrue((Long) report.get("latencyNanos", "p50") <= (Long) report.get("latencyNanos", "p99"));
+        assertTrue((Long) report.get("latencyNanos", "p99") <= (Long) report.get("latencyNanos", "max"));
+        assertNotNull(report.get("memory", "heapBytesPerMachine"));
+        assertTrue(report.toJson().contains("\"opsPerSecond\": "));
+    }
+
+    @Test
+    public void SyntheticMachinesStayOnLeaves() {
+        SyntheticConfig synthetic = new SyntheticConfig(40, 5, 4, 3, 7);
+        StateMachine<Integer, Integer, Integer> sm = new StateMachine<>(0, synthetic.getConfig());
+        Random random = new Random(1);
+
+        for (int i = 0; i < 1000; i++) {
+            int trigger = random.nextInt(synthetic.getTriggers() + 1);
+            assertEquals(FireResult.TRANSITIONED, sm.tryFire(trigger, random.nextInt(100)));
+            assertTrue(sm.getState() < synthetic.getLeaves());
+        }
+        assertEquals(FireResult.UNHANDLED, sm.tryFire(synthetic.getUnhandledTrigger(), 0));
+    }
+
+    @Test
+    public void ZipfianRanksAreSkewed() {
+        ZipfianGenerator zipf = new ZipfianGenerator(1000, 0.99);
+        Random random = new Random(3);
+        int[] counts = new int[1000];
+
+        for (int i = 0; i < 100_000; i++) {
+            counts[(int) zipf.next(random)]++;
+        }
+
+        assertTrue(counts[0] > counts[1]);
+        assertTrue(counts[1] > counts[10]);
+        assertTrue(counts[0] > 100_000 / 10);
+        assertTrue(counts[999] < 100);
+    }
+
+    @Test
+    public void PercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(50_000, histogram.percentile(0.5), 50_000 * 0.04);
+        assertEquals(99_000, histogram.percentile(0.99), 99_000 * 0.04);
+        assertEquals(100_000, histogram.getMax());
+        assertEquals(10, histogram.percentile(0.0001));
+    }
+
+    @Test
+    public void MergedHistogramCountsBoth() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(1_000_000);
+
+        first.add(second);
+
+        assertEquals(2, first.getCount());
+        assertEquals(1_000_000, first.getMax());
+        assertEquals(10, first.percentile(0.5));
+    }
+}
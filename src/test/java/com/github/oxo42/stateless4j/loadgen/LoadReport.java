@@ -0,0 +1,80 @@
+package com.github.oxo42.stateless4j.loadgen;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The result of a {@link LoadGenerator} run: named sections of named numbers, written as JSON so
+ * that runs can be compared by scripts.
+ */
+public class LoadReport {
+
+    private final Map<String, Map<String, Object>> sections = new LinkedHashMap<>();
+
+    /**
+     * Set a value, creating its section if needed
+     *
+     * @param section The section name
+     * @param name    The value name
+     * @param value   A number, boolean or string
+     * @return This report
+     */
+    public LoadReport put(String section, String name, Object value) {
+        sections.computeIfAbsent(section, s -> new LinkedHashMap<>()).put(name, value);
+        return this;
+    }
+
+    /**
+     * @return The value, or null if not set
+     */
+    public Object get(String section, String name) {
+        Map<String, Object> values = sections.get(section);
+        return values == null ? null : values.get(name);
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        int s = 0;
+        for (Map.Entry<String, Map<String, Object>> section : sections.entrySet()) {
+            json.append("  ").append(quote(section.getKey())).append(": {\n");
+            int v = 0;
+            for (Map.Entry<String, Object> value : section.getValue().entrySet()) {
+                json.append("    ").append(quote(value.getKey())).append(": ").append(literal(value.getValue()));
+                json.append(++v < section.getValue().size() ? ",\n" : "\n");
+            }
+            json.append("  }").append(++s < sections.size() ? ",\n" : "\n");
+        }
+        return json.append("}\n").toString();
+    }
+
+    private static String literal(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            return Double.isFinite(d) ? String.format(Locale.ROOT, "%.3f", d) : "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return value == null ? "null" : quote(value.toString());
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.oxo42.stateless4j.loadgen;
+
+import com.github.oxo42.stateless4j.StateConfiguration;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+
+import java.util.Random;
+
+/**
+ * Builds frozen, randomly wired configurations of a given shape for load testing.
+ * <p>
+ * States {@code 0 .. leaves - 1} are leaves, grouped sixteen to a chain of {@code depth} composite
+ * states, so every lookup of an inherited trigger walks the whole chain. Each leaf handles triggers
+ * {@code 0 .. triggers - 1} with {@code fanOut} mutually exclusive guards on the context, each leading
+ * to a random leaf. The root of every chain handles {@link #getResetTrigger() the reset trigger}, and
+ * {@link #getUnhandledTrigger() one trigger} is handled nowhere.
+ */
+public class SyntheticConfig {
+
+    private static final int LEAVES_PER_CHAIN = 16;
+
+    private final int leaves;
+    private final int depth;
+    private final int fanOut;
+    private final int triggers;
+    private final StateMachineConfig<Integer, Integer, Integer> config = new StateMachineConfig<>();
+
+    /**
+     * @param leaves   The number of leaf states
+     * @param depth    The number of composite states above every leaf
+     * @param fanOut   The number of guarded transitions per leaf and trigger
+     * @param triggers The number of triggers handled by every leaf
+     * @param seed     The seed of the wiring
+     */
+    public SyntheticConfig(int leaves, int depth, int fanOut, int triggers, long seed) {
+        if (leaves < 2 || depth < 0 || fanOut < 1 || triggers < 1) {
+            throw new IllegalArgumentException("Needs at least two leaves, one guard and one trigger");
+        }
+        this.leaves = leaves;
+        this.depth = depth;
+        this.fanOut = fanOut;
+        this.triggers = triggers;
+
+        Random random = new Random(seed);
+        int chains = (leaves + LEAVES_PER_CHAIN - 1) / LEAVES_PER_CHAIN;
+        for (int chain = 0; chain < chains && depth > 0; chain++) {
+            for (int level = 0; level < depth; level++) {
+                StateConfiguration<Integer, Integer, Integer> composite = config.configure(composite(chain, level));
+                if (level > 0) {
+                    composite.subStateOf(composite(chain, level - 1));
+                } else {
+                    composite.permit(getResetTrigger(), chain * LEAVES_PER_CHAIN);
+                }
+            }
+        }
+        for (int leaf = 0; leaf < leaves; leaf++) {
+            StateConfiguration<Integer, Integer, Integer> configuration = config.configure(leaf);
+            if (depth > 0) {
+                configuration.subStateOf(composite(leaf / LEAVES_PER_CHAIN, depth - 1));
+            } else {
+                configuration.permit(getResetTrigger(), leaf == 0 ? 1 : 0);
+            }
+            for (int trigger = 0; trigger < triggers; trigger++) {
+                for (int guard = 0; guard < fanOut; guard++) {
+                    int destination = (leaf + 1 + random.nextInt(leaves - 1)) % leaves;
+                    if (fanOut == 1) {
+                        configuration.permit(trigger, destination);
+                    } else {
+                        int branch = guard;
+                        configuration.permitIf(trigger, destination, c -> c.getContext() % fanOut == branch);
+                    }
+                }
+            }
+        }
+        config.setFirstMatch(true);
+        config.freeze();
+    }
+
+    private int composite(int chain, int level) {
+        return leaves + chain * depth + level;
+    }
+
+    public StateMachineConfig<Integer, Integer, Integer> getConfig() {
+        return config;
+    }
+
+    public int getLeaves() {
+        return leaves;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getFanOut() {
+        return fanOut;
+    }
+
+    public int getTriggers() {
+        return triggers;
+    }
+
+    public int getResetTrigger() {
+        return triggers;
+    }
+
+    public int getUnhandledTrigger() {
+        return triggers + 1;
+    }
+}
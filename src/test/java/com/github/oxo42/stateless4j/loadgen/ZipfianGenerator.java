@@ -0,0 +1,71 @@
+package com.github.oxo42.stateless4j.loadgen;
+
+import java.util.Random;
+
+/**
+ * Draws ranks in {@code [0, n)} with a Zipfian distribution, rank 0 being the most frequent, using the
+ * rejection-free method of Gray et al. ("Quickly generating billion-record synthetic databases").
+ * Construction is linear in {@code n}; drawing is constant time. Thread-safe if the random source is.
+ */
+public class ZipfianGenerator {
+
+    private final long n;
+    private final double theta;
+    private final double zetaN;
+    private final double alpha;
+    private final double eta;
+    private final double half;
+
+    /**
+     * @param n     The number of ranks
+     * @param theta The skew, in {@code [0, 1)}; YCSB uses 0.99
+     */
+    public ZipfianGenerator(long n, double theta) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        if (theta < 0 || theta >= 1) {
+            throw new IllegalArgumentException("theta must be in [0, 1): " + theta);
+        }
+        this.n = n;
+        this.theta = theta;
+        this.zetaN = zeta(n, theta);
+        this.alpha = 1 / (1 - theta);
+        this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(Math.min(2, n), theta) / zetaN);
+        this.half = 1 + Math.pow(0.5, theta);
+    }
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+
+    /**
+     * Draw a rank
+     *
+     * @param random The random source
+     * @return The rank
+     */
+    public long next(Random random) {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < half && n > 1) {
+            return 1;
+        }
+        return Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public double getTheta() {
+        return theta;
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.oxo42.stateless4j.routing;
+
+import com.github.oxo42.stateless4j.State;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.Trigger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PartitionedStateMachineRouterTests {
+
+    private StateMachineConfig<State, Trigger, Object> config() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B).permit(Trigger.Y, State.C);
+        config.configure(State.C).permit(Trigger.Z, State.A);
+        return config;
+    }
+
+    @Test
+    public void EventsOfOneMachineAreProcessedInOrder() throws Exception {
+        try (PartitionedStateMachineRouter<Integer, State, Trigger, Object> router =
+                     new PartitionedStateMachineRouter<>(config(), State.A, 4, 1024, BackpressurePolicy.BLOCK)) {
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                final int first = p * 250;
+                Thread producer = new Thread(() -> {
+                    for (int key = first; key < first + 250; key++) {
+                        router.submit(key, Trigger.X, null);
+                        router.submit(key, Trigger.Y, null);
+                        if (key % 2 == 0) {
+                            router.submit(key, Trigger.Z, null);
+                        }
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            router.flush();
+
+            for (int key = 0; key < 1000; key++) {
+                assertEquals(key % 2 == 0 ? State.A : State.C, router.getState(key));
+            }
+            long processed = 0;
+            for (PartitionMetrics metrics : router.getMetrics()) {
+                processed += metrics.getProcessed();
+                assertEquals(0, metrics.getUnhandled());
+            }
+            assertEquals(2500, processed);
+        }
+    }
+
+    @Test
+    public void KeyIsPinnedToOnePartition() throws Exception {
+        try (PartitionedStateMachineRouter<String, State, Trigger, Object> router =
+                     new PartitionedStateMachineRouter<>(config(), State.A, 8, 16, BackpressurePolicy.BLOCK)) {
+            int partition = router.partitionOf("machine-42");
+            assertTrue(partition >= 0 && partition < 8);
+            assertEquals(partition, router.partitionOf("machine-42"));
+        }
+    }
+
+    @Test
+    public void UnhandledTriggersAreCounted() throws Exception {
+        try (PartitionedStateMachineRouter<Integer, State, Trigger, Object> router =
+                     new PartitionedStateMachineRouter<>(config(), State.A, 1, 16, BackpressurePolicy.BLOCK)) {
+            router.submit(1, Trigger.Y, null);
+            router.flush();
+
+            PartitionMetrics metrics = router.getMetrics().get(0);
+            assertEquals(1, metrics.getUnhandled());
+            assertEquals(State.A, router.getState(1));
+        }
+    }
+
+    @Test
+    public void FullQueueRejectsEvents() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permitReentry(Trigger.X).onEntry(t -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        try (PartitionedStateMachineRouter<Integer, State, Trigger, Object> router =
+                     new PartitionedStateMachineRouter<>(config, State.A, 1, 2, BackpressurePolicy.REJECT)) {
+            router.setErrorHandler(error::set);
+            assertTrue(router.submit(1, Trigger.X, null));
+            while (router.getMetrics().get(0).getQueueDepth() > 0) {
+                Thread.yield();
+            }
+            assertTrue(router.submit(1, Trigger.X, null));
+            assertTrue(router.submit(1, Trigger.X, null));
+            assertFalse(router.submit(1, Trigger.X, null));
+            release.countDown();
+            router.flush();
+
+            PartitionMetrics metrics = router.getMetrics().get(0);
+            assertEquals(1, metrics.getRejected());
+            assertEquals(3, metrics.getProcessed());
+            assertNull(error.get());
+        }
+    }
+
+    @Test
+    public void ActionFailuresAreReportedAndCounted() throws Exception {
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B).onEntry(t -> {
+            throw new IllegalArgumentException("boom");
+        });
+
+        try (PartitionedStateMachineRouter<Integer, State, Trigger, Object> router =
+                     new PartitionedStateMachineRouter<>(config, State.A, 1, 16, BackpressurePolicy.BLOCK)) {
+            router.setErrorHandler(error::set);
+            router.submit(1, Trigger.X, null);
+            router.flush();
+
+            assertEquals(1, router.getMetrics().get(0).getFailed());
+            assertEquals("boom", error.get().getMessage());
+        }
+    }
+
+    @Test
+    public void FailingErrorHandlerDoesNotStopThePartition() throws Exception {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permitReentry(Trigger.X).onEntry(t -> {
+            throw new IllegalArgumentException("boom");
+        });
+
+        try (PartitionedStateMachineRouter<Integer, State, Trigger, Object> router =
+                     new PartitionedStateMachineRouter<>(config, State.A, 1, 16, BackpressurePolicy.BLOCK)) {
+            router.setErrorHandler(e -> {
+                throw new IllegalStateException("handler");
+            });
+            router.submit(1, Trigger.X, null);
+            router.submit(2, Trigger.X, null);
+            router.flush();
+
+            assertEquals(2, router.getMetrics().get(0).getFailed());
+        }
+    }
+
+    @Test
+    public void ConcurrentSubmitsAreNeverDroppedByClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            PartitionedStateMachineRouter<Integer, State, Trigger, Object> router =
+                    new PartitionedStateMachineRouter<>(config(), State.A, 2, 1024, BackpressurePolicy.BLOCK);
+            AtomicInteger accepted = new AtomicInteger();
+            Thread producer = new Thread(() -> {
+                try {
+                    for (int key = 0; ; key++) {
+                        if (router.submit(key, Trigger.X, null)) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                } catch (IllegalStateException closed) {
+                    // the router was closed
+                }
+            });
+            producer.start();
+            Thread.sleep(1);
+            router.close();
+            producer.join();
+
+            long processed = 0;
+            for (PartitionMetrics metrics : router.getMetrics()) {
+                processed += metrics.getProcessed();
+            }
+            assertEquals(accepted.get(), processed);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void ClosedRouterRejectsSubmissions() throws Exception {
+        PartitionedStateMachineRouter<Integer, State, Trigger, Object> router =
+                new PartitionedStateMachineRouter<>(config(), State.A, 2, 16, BackpressurePolicy.BLOCK);
+        router.close();
+
+        router.submit(1, Trigger.X, null);
+    }
+
+    @Test
+    public void SharedConfigIsFrozen() throws Exception {
+        StateMachineConfig<State, Trigger, Object> config = config();
+        new PartitionedStateMachineRouter<Integer, State, Trigger, Object>(config, State.A, 1, 16, BackpressurePolicy.BLOCK).close();
+
+        assertTrue(config.isFrozen());
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.oxo42.stateless4j.store;
+
+import com.github.oxo42.stateless4j.KeyedStateMachine;
+import com.github.oxo42.stateless4j.State;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.Trigger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class StateStoreTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StateMachineConfig<State, Trigger, Object> config() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B).permit(Trigger.X, State.C);
+        return config;
+    }
+
+    private void assertDrivesMachines(StateStore<Integer, State> store) {
+        KeyedStateMachine<Integer, State, Trigger, Object> engine = new KeyedStateMachine<>(config(), store, State.A);
+
+        engine.fire(1, Trigger.X, null);
+        engine.fire(5_000, Trigger.X, null);
+        engine.fire(5_000, Trigger.X, null);
+
+        assertEquals(State.A, engine.getState(0));
+        assertEquals(State.B, engine.getState(1));
+        assertEquals(State.C, engine.getState(5_000));
+        assertTrue(engine.isInState(1, State.B));
+    }
+
+    @Test
+    public void MapStoreDrivesMachines() {
+        assertDrivesMachines(new MapStateStore<>());
+    }
+
+    @Test
+    public void OffHeapStoreDrivesMachines() {
+        assertDrivesMachines(new OffHeapStateStore<>(Integer::intValue, State.values(), 1024));
+    }
+
+    @Test
+    public void OffHeapStoreForgetsRemovedStates() {
+        OffHeapStateStore<Integer, State> store = new OffHeapStateStore<>(Integer::intValue, State.values(), 16);
+        store.put(3, State.C);
+
+        store.remove(3);
+
+        assertNull(store.get(3));
+        assertNull(store.get(100));
+    }
+
+    @Test
+    public void MappedFileStoreSurvivesReopen() throws IOException {
+        Path file = folder.newFile().toPath();
+        try (MappedFileStateStore<Integer, State> store = new MappedFileStateStore<>(file, Integer::intValue, State.values(), 1024)) {
+            assertDrivesMachines(store);
+        }
+
+        try (MappedFileStateStore<Integer, State> store = new MappedFileStateStore<>(file, Integer::intValue, State.values(), 1024)) {
+            assertEquals(State.B, store.get(1));
+            assertEquals(State.C, store.get(5_000));
+            assertNull(store.get(0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void KeyedMachineRejectsDeferredTriggers() {
+        StateMachineConfig<State, Trigger, Object> config = config();
+        config.configure(State.A).defer(Trigger.Y);
+
+        new KeyedStateMachine<>(config, new MapStateStore<Integer, State>(), State.A);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void KeyedMachineRejectsRegions() {
+        StateMachineConfig<State, Trigger, Object> region = new StateMachineConfig<>();
+        region.configure(State.B).permit(Trigger.Y, State.C);
+        StateMachineConfig<State, Trigger, Object> config = config();
+        config.configure(State.A).region(region, State.B);
+
+        new KeyedStateMachine<>(config, new MapStateStore<Integer, State>(), State.A);
+    }
+
+    @Test
+    public void NestedFireStoresTheOuterMachine() {
+        MapStateStore<Integer, State> store = new MapStateStore<>();
+        AtomicReference<KeyedStateMachine<Integer, State, Trigger, Object>> engine = new AtomicReference<>();
+        StateMachineConfig<State, Trigger, Object> config = config();
+        config.configure(State.B).onEntryFrom(Trigger.X, t -> engine.get().fire(2, Trigger.Y, null));
+        config.configure(State.A).permit(Trigger.Y, State.C);
+        engine.set(new KeyedStateMachine<>(config, store, State.A));
+
+        engine.get().fire(1, Trigger.X, null);
+
+        assertEquals(State.B, store.get(1));
+        assertEquals(State.C, store.get(2));
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.oxo42.stateless4j.tracing;
+
+import com.github.oxo42.stateless4j.FireResult;
+import com.github.oxo42.stateless4j.State;
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.Trigger;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SamplingTracerTests {
+
+    private StateMachine<State, Trigger, Object> machine(SamplingTracer<State, Trigger, Object> tracer) {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B).ignore(Trigger.Y);
+        config.configure(State.B).permit(Trigger.X, State.A).permit(Trigger.Z, State.C);
+        config.configure(State.C).onEntry(t -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config);
+        sm.setHook(tracer);
+        return sm;
+    }
+
+    @Test
+    public void EveryFireIsRecordedAtRateOne() {
+        SamplingTracer<State, Trigger, Object> tracer = new SamplingTracer<>(16);
+        tracer.setSampleEvery(1);
+        StateMachine<State, Trigger, Object> sm = machine(tracer);
+
+        sm.fire(Trigger.X);
+        sm.fire(Trigger.X);
+        sm.fire(Trigger.Y);
+        sm.tryFire(Trigger.Z);
+
+        List<TraceRecord<State, Trigger>> records = tracer.getRecords();
+        assertEquals(4, records.size());
+        assertEquals(State.A, records.get(0).getSource());
+        assertEquals(State.B, records.get(0).getDestination());
+        assertEquals(FireResult.TRANSITIONED, records.get(0).getResult());
+        assertEquals(FireResult.INTERNAL, records.get(2).getResult());
+        assertEquals(FireResult.UNHANDLED, records.get(3).getResult());
+    }
+
+    @Test
+    public void NothingIsRecordedWhenDisabled() {
+        SamplingTracer<State, Trigger, Object> tracer = new SamplingTracer<>(16);
+        tracer.setSampleEvery(1);
+        tracer.setEnabled(false);
+        StateMachine<State, Trigger, Object> sm = machine(tracer);
+
+        sm.fire(Trigger.X);
+        tracer.setEnabled(true);
+        sm.fire(Trigger.X);
+
+        assertEquals(1, tracer.getRecords().size());
+    }
+
+    @Test
+    public void SlowFiresAreAlwaysRecorded() {
+        SamplingTracer<State, Trigger, Object> tracer = new SamplingTracer<>(16);
+        tracer.setSlowThreshold(2, TimeUnit.MILLISECONDS);
+        StateMachine<State, Trigger, Object> sm = machine(tracer);
+
+        sm.fire(Trigger.X);
+        sm.fire(Trigger.Z);
+
+        List<TraceRecord<State, Trigger>> records = tracer.getRecords();
+        assertEquals(1, records.size());
+        assertEquals(State.C, records.get(0).getDestination());
+        assertTrue(records.get(0).getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(2));
+    }
+
+    @Test
+    public void RecordsAreRateLimitedPerStateAndTrigger() {
+        SamplingTracer<State, Trigger, Object> tracer = new SamplingTracer<>(64);
+        tracer.setSampleEvery(1);
+        tracer.setRateLimit(3);
+        StateMachine<State, Trigger, Object> sm = machine(tracer);
+
+        for (int i = 0; i < 10; i++) {
+            sm.fire(Trigger.Y);
+        }
+        sm.fire(Trigger.X);
+
+        List<TraceRecord<State, Trigger>> records = tracer.getRecords();
+        assertTrue(records.size() <= 4);
+        assertEquals(Trigger.X, records.get(records.size() - 1).getTrigger());
+        assertTrue(tracer.getRateLimitedCount() >= 7);
+    }
+
+    @Test
+    public void BufferKeepsMostRecentRecords() {
+        TraceBuffer<State, Trigger> buffer = new TraceBuffer<>(4);
+        for (int i = 0; i < 10; i++) {
+            buffer.add(State.A, Trigger.X, State.B, FireResult.TRANSITIONED, i, 0);
+        }
+
+        List<TraceRecord<State, Trigger>> records = buffer.snapshot();
+
+        assertEquals(4, records.size());
+        assertEquals(6, records.get(0).getDurationNanos());
+        assertEquals(9, records.get(3).getDurationNanos());
+    }
+
+    @Test
+    public void ConcurrentWritersDoNotCorruptRecords() throws Exception {
+        TraceBuffer<State, Trigger> buffer = new TraceBuffer<>(64);
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            final long id = w;
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    buffer.add(State.A, Trigger.X, State.B, FireResult.TRANSITIONED, id, id);
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        for (TraceRecord<State, Trigger> record : buffer.snapshot()) {
+            assertEquals(record.getDurationNanos(), record.getTimestamp());
+        }
+        assertEquals(40000, buffer.getWrittenCount());
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.oxo42.stateless4j.validation;
+
+import com.github.oxo42.stateless4j.State;
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import com.github.oxo42.stateless4j.Trigger;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConfigurationValidatorTests {
+
+    @Test
+    public void CleanConfigurationHasNoErrors() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B).permit(Trigger.Y, State.A);
+
+        ValidationResult<State, Trigger> result = config.validate(State.A);
+
+        assertFalse(result.hasErrors());
+        assertTrue(result.getDiagnostics().isEmpty());
+    }
+
+    @Test
+    public void SuperstateCycleIsReported() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).subStateOf(State.B);
+        config.configure(State.B).subStateOf(State.C);
+        config.configure(State.C).subStateOf(State.A);
+
+        ValidationResult<State, Trigger> result = config.validate();
+
+        assertTrue(result.hasErrors());
+        assertEquals(1, result.getDiagnostics(DiagnosticKind.SUPERSTATE_CYCLE).size());
+    }
+
+    @Test
+    public void UnguardedDuplicateIsAnError() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .permit(Trigger.X, State.B)
+                .permitIf(Trigger.X, State.C, c -> true);
+
+        List<Diagnostic<State, Trigger>> overlaps = config.validate().getDiagnostics(DiagnosticKind.OVERLAPPING_GUARDS);
+
+        assertEquals(1, overlaps.size());
+        assertEquals(State.A, overlaps.get(0).getState());
+        assertEquals(Trigger.X, overlaps.get(0).getTrigger());
+    }
+
+    @Test
+    public void GuardedAlternativesAreAWarning() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .permitIfElseIgnore(Trigger.X, State.B, c -> c.getContext() != null);
+
+        ValidationResult<State, Trigger> result = config.validate();
+
+        assertFalse(result.hasErrors());
+        assertEquals(1, result.getDiagnostics(DiagnosticKind.POSSIBLY_OVERLAPPING_GUARDS).size());
+    }
+
+    @Test
+    public void UnreachableAndDeadEndStatesAreReported() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permit(Trigger.X, State.B);
+        config.configure(State.B);
+        config.configure(State.C).permit(Trigger.Y, State.A);
+
+        ValidationResult<State, Trigger> result = config.validate(State.A);
+
+        List<Diagnostic<State, Trigger>> unreachable = result.getDiagnostics(DiagnosticKind.UNREACHABLE_STATE);
+        assertEquals(1, unreachable.size());
+        assertEquals(State.C, unreachable.get(0).getState());
+        List<Diagnostic<State, Trigger>> deadEnds = result.getDiagnostics(DiagnosticKind.DEAD_END_STATE);
+        assertEquals(1, deadEnds.size());
+        assertEquals(State.B, deadEnds.get(0).getState());
+    }
+
+    @Test
+    public void DynamicTransitionsSkipReachability() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A).permitDynamic(Trigger.X, c -> State.C);
+        config.configure(State.C).permit(Trigger.Y, State.A);
+
+        assertTrue(config.validate(State.A).getDiagnostics(DiagnosticKind.UNREACHABLE_STATE).isEmpty());
+    }
+
+    @Test
+    public void TriggerOnSubstateAndSuperstateIsReported() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.B).subStateOf(State.C).permit(Trigger.X, State.A);
+        config.configure(State.C).ignore(Trigger.X);
+
+        List<Diagnostic<State, Trigger>> shadowed = config.validate().getDiagnostics(DiagnosticKind.SHADOWED_TRIGGER);
+
+        assertEquals(1, shadowed.size());
+        assertEquals(State.B, shadowed.get(0).getState());
+    }
+
+    @Test
+    public void FirstMatchModeTakesFirstAcceptingBehaviour() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .permitIf(Trigger.X, State.B, c -> true)
+                .permitIf(Trigger.X, State.C, c -> true);
+        config.setFirstMatch(true);
+
+        StateMachine<State, Trigger, Object> sm = new StateMachine<>(State.A, config);
+        sm.fire(Trigger.X);
+
+        assertEquals(State.B, sm.getState());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void OverlappingGuardsThrowByDefault() {
+        StateMachineConfig<State, Trigger, Object> config = new StateMachineConfig<>();
+        config.configure(State.A)
+                .permitIf(Trigger.X, State.B, c -> true)
+                .permitIf(Trigger.X, State.C, c -> true);
+
+        new StateMachine<>(State.A, config).fire(Trigger.X);
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.oxo42.stateless4j.validation;
+
+import com.github.oxo42.stateless4j.HistoryType;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class ReachabilityIndexTests {
+
+    private enum Order { NEW, PAID, PICKING, PACKED, SHIPPED, CANCELLED, OPEN }
+
+    private enum Event { PAY, PICK, PACK, SHIP, CANCEL, RETRY }
+
+    private static StateMachineConfig<Order, Event, Object> orders() {
+        StateMachineConfig<Order, Event, Object> config = new StateMachineConfig<>();
+        config.configure(Order.OPEN).permit(Event.CANCEL, Order.CANCELLED);
+        config.configure(Order.NEW).subStateOf(Order.OPEN).permit(Event.PAY, Order.PAID);
+        config.configure(Order.PAID).subStateOf(Order.OPEN).permit(Event.PICK, Order.PICKING);
+        config.configure(Order.PICKING).subStateOf(Order.OPEN).permitIf(Event.PACK, Order.PACKED, c -> true);
+        config.configure(Order.PACKED).permit(Event.SHIP, Order.SHIPPED);
+        config.configure(Order.SHIPPED);
+        config.configure(Order.CANCELLED);
+        return config;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void MutableConfigurationIsRejected() {
+        ReachabilityIndex.of(orders());
+    }
+
+    @Test
+    public void ReachabilityFollowsInheritedTransitions() {
+        ReachabilityIndex<Order, Event> index = orders().freeze().getReachabilityIndex();
+
+        assertTrue(index.canReach(Order.NEW, Order.SHIPPED));
+        assertTrue(index.canReach(Order.PAID, Order.CANCELLED));
+        assertFalse(index.canReach(Order.PACKED, Order.CANCELLED));
+        assertFalse(index.canReach(Order.SHIPPED, Order.NEW));
+        assertTrue(index.canReach(Order.SHIPPED, Order.SHIPPED));
+        assertEquals(new HashSet<>(Arrays.asList(Order.PACKED, Order.SHIPPED)), index.reachableFrom(Order.PACKED));
+    }
+
+    @Test
+    public void ShortestPathListsTriggers() {
+        ReachabilityIndex<Order, Event> index = orders().freeze().getReachabilityIndex();
+
+        assertEquals(Arrays.asList(Event.PAY, Event.PICK, Event.PACK, Event.SHIP), index.shortestPath(Order.NEW, Order.SHIPPED));
+        assertEquals(Collections.singletonList(Event.CANCEL), index.shortestPath(Order.PICKING, Order.CANCELLED));
+        assertEquals(Collections.emptyList(), index.shortestPath(Order.PAID, Order.PAID));
+        assertNull(index.shortestPath(Order.SHIPPED, Order.NEW));
+    }
+
+    @Test
+    public void UnguardedSubstateTransitionShadowsSuperstate() {
+        StateMachineConfig<Order, Event, Object> config = orders();
+        config.configure(Order.PAID).permit(Event.CANCEL, Order.NEW);
+        ReachabilityIndex<Order, Event> index = config.freeze().getReachabilityIndex();
+
+        assertEquals(2, index.shortestPath(Order.PAID, Order.CANCELLED).size());
+    }
+
+    @Test
+    public void DynamicTransitionMayReachAnyState() {
+        StateMachineConfig<Order, Event, Object> config = orders();
+        config.configure(Order.SHIPPED).permitDynamic(Event.RETRY, c -> Order.NEW);
+        ReachabilityIndex<Order, Event> index = config.freeze().getReachabilityIndex();
+
+        assertTrue(index.canReach(Order.SHIPPED, Order.NEW));
+        assertNull(index.shortestPath(Order.SHIPPED, Order.NEW));
+    }
+
+    @Test
+    public void HistoryTransitionMayReachSubstates() {
+        StateMachineConfig<Order, Event, Object> config = orders();
+        config.configure(Order.OPEN).history(HistoryType.DEEP);
+        config.configure(Order.CANCELLED).permit(Event.RETRY, Order.OPEN);
+        ReachabilityIndex<Order, Event> index = config.freeze().getReachabilityIndex();
+
+        assertTrue(index.canReach(Order.CANCELLED, Order.PICKING));
+        assertFalse(index.canReach(Order.SHIPPED, Order.PICKING));
+    }
+
+    @Test
+    public void CompletionTransitionsAreFollowed() {
+        StateMachineConfig<Order, Event, Object> config = orders();
+        config.configure(Order.PACKED).permitCompletion(Order.SHIPPED);
+        ReachabilityIndex<Order, Event> index = config.freeze().getReachabilityIndex();
+
+        assertEquals(Arrays.asList(Event.PICK, Event.PACK, null), index.shortestPath(Order.PAID, Order.SHIPPED));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void UnknownStateIsRejected() {
+        StateMachineConfig<Order, Event, Object> config = new StateMachineConfig<>();
+        config.configure(Order.NEW).permit(Event.PAY, Order.PAID);
+
+        config.freeze().getReachabilityIndex().canReach(Order.NEW, Order.SHIPPED);
+    }
+
+    @Test
+    public void LargeChainIsIndexed() {
+        int length = 20_000;
+        StateMachineConfig<Integer, Event, Object> config = new StateMachineConfig<>();
+        for (int i = 0; i < length; i++) {
+            config.configure(i).permit(Event.PAY, i + 1);
+            config.configure(i + 1).permit(Event.RETRY, 0);
+        }
+        ReachabilityIndex<Integer, Event> index = config.freeze().getReachabilityIndex();
+
+        assertTrue(index.canReach(length, length));
+        assertTrue(index.canReach(1, 0));
+        assertTrue(index.canReach(0, length));
+        assertEquals(length, index.shortestPath(0, length).size());
+    }
+}